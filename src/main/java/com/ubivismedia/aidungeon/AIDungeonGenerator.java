@@ -11,6 +11,7 @@ import com.ubivismedia.aidungeon.dungeons.ExplorationChecker;
 import com.ubivismedia.aidungeon.handlers.MobHandler;
 import com.ubivismedia.aidungeon.handlers.TrapHandler;
 import com.ubivismedia.aidungeon.listeners.PlayerMoveListener;
+import com.ubivismedia.aidungeon.listeners.WorldUnloadListener;
 import com.ubivismedia.aidungeon.quests.QuestSystem;
 import com.ubivismedia.aidungeon.storage.DungeonStorage;
 import com.ubivismedia.aidungeon.boss.BossManager;
@@ -72,7 +73,8 @@ public class AIDungeonGenerator extends JavaPlugin {
         questSystem = new QuestSystem(this);
 
         // Initialize biome exploration tracker
-        biomeExplorationTracker = new BiomeExplorationTracker();
+        biomeExplorationTracker = new BiomeExplorationTracker(this);
+        biomeExplorationTracker.initialize();
         this.explorationChecker = new ExplorationChecker(this, dungeonManager);
         this.explorationChecker.startTask();
 
@@ -90,6 +92,7 @@ public class AIDungeonGenerator extends JavaPlugin {
         Bukkit.getPluginManager().registerEvents(trapHandler, this);
         Bukkit.getPluginManager().registerEvents(mobHandler, this);
         Bukkit.getPluginManager().registerEvents(questSystem, this);
+        Bukkit.getPluginManager().registerEvents(new WorldUnloadListener(this, dungeonManager), this);
 
         // Load existing dungeons
         Bukkit.getScheduler().runTaskAsynchronously(this, () -> {
@@ -117,14 +120,24 @@ public class AIDungeonGenerator extends JavaPlugin {
             explorationChecker.stopTask();
         }
 
+        // Finish placing any dungeons that are still being built
+        if (dungeonManager != null) {
+            dungeonManager.shutdown();
+        }
+
         // Save any pending dungeon data
         if (dungeonStorage != null) {
             dungeonStorage.saveAllDungeons();
         }
 
+        // Save newly explored chunks
+        if (biomeExplorationTracker != null) {
+            biomeExplorationTracker.shutdown();
+        }
+
         // Save quest data
         if (questSystem != null) {
-            questSystem.savePlayerQuests();
+            questSystem.shutdown();
             questSystem.cleanupDisplays();
         }
 
@@ -229,6 +242,11 @@ public class AIDungeonGenerator extends JavaPlugin {
                 // Reload individual files without triggering a full config reload
                 ConfigurationLoader loader = configManager.getConfigLoader();
                 loader.reloadConfigurations();
+
+                // Rebuild the settings snapshot, unless the themes haven't been loaded yet
+                if (configManager.getSettings() != null) {
+                    configManager.compileSettings();
+                }
             }
 
             getLogger().info("Configurations reloaded");
@@ -22,7 +22,13 @@ public class DungeonGenerator {
     private final CellularAutomata roomGenerator;
     private final MarkovChainModel themeModel;
     private final GeneticOptimizer layoutOptimizer;
-    private final Random random;
+    
+    // Salts that give every stage its own random stream from one dungeon seed
+    private static final long SIZE_SALT = 0x51A3E5C9D2B7F401L;
+    private static final long CELLULAR_SALT = 0x2C1B3C6D7E8F9A0BL;
+    private static final long MARKOV_SALT = 0x6A09E667F3BCC908L;
+    private static final long GENETIC_SALT = 0x3C6EF372FE94F82BL;
+    private static final long FEATURE_SALT = 0x1F83D9ABFB41BD6BL;
     
     public DungeonGenerator(AIDungeonGenerator plugin, 
                             CellularAutomata roomGenerator,
@@ -32,37 +38,59 @@ public class DungeonGenerator {
         this.roomGenerator = roomGenerator;
         this.themeModel = themeModel;
         this.layoutOptimizer = layoutOptimizer;
-        this.random = new Random();
+    }
+    
+    /**
+     * Derive the generation seed for a dungeon from the world seed and its area,
+     * so the same area in the same world always produces the same dungeon
+     */
+    public static long deriveSeed(long worldSeed, BiomeArea area) {
+        long seed = worldSeed;
+        seed = mix(seed ^ (area.getCenterX() * 0x9E3779B97F4A7C15L));
+        seed = mix(seed ^ (area.getCenterZ() * 0xC2B2AE3D27D4EB4FL));
+        seed = mix(seed ^ area.getRadius());
+        return seed;
+    }
+    
+    /**
+     * Scramble a seed (SplitMix64 finalizer)
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
     
     /**
      * Generate a dungeon synchronously (called from main thread)
+     * @param area The area the dungeon belongs to
+     * @param seed Generation seed, see {@link #deriveSeed(long, BiomeArea)}
      */
-    public DungeonLayout generateDungeon(BiomeArea area) {
+    public DungeonLayout generateDungeon(BiomeArea area, long seed) {
         // Get dungeon size from config based on random chance
-        int dungeonSize = getDungeonSize();
+        int dungeonSize = getDungeonSize(new Random(mix(seed ^ SIZE_SALT)));
         
         // Get theme based on biome
         DungeonTheme theme = plugin.getConfigManager().getThemeForBiome(area.getPrimaryBiome());
         
         // Create initial empty layout
-        DungeonLayout layout = new DungeonLayout(dungeonSize, theme);
+        DungeonLayout layout = new DungeonLayout(dungeonSize, theme, seed);
         
         // Set entrance room
         layout.setEntrancePosition(dungeonSize / 2, dungeonSize / 2);
         
         // Apply room generation
-        roomGenerator.applyTo(layout);
+        roomGenerator.applyTo(layout, new GenerationContext(new Random(mix(seed ^ CELLULAR_SALT))));
         
         // Apply room type transitions using Markov Chain
-        themeModel.applyThemeTransitions(layout);
+        themeModel.applyThemeTransitions(layout, new GenerationContext(new Random(mix(seed ^ MARKOV_SALT))));
         
         // Optimize layout using genetic algorithm
         int generations = plugin.getConfig().getInt("generation.algorithm.optimization-generations", 10);
-        layoutOptimizer.optimizeLayout(layout, generations);
+        layoutOptimizer.optimizeLayout(layout, generations, new GenerationContext(new Random(mix(seed ^ GENETIC_SALT))));
         
         // Add final decorative elements and features
-        addFeatures(layout);
+        addFeatures(layout, new Random(mix(seed ^ FEATURE_SALT)));
         
         return layout;
     }
@@ -70,16 +98,23 @@ public class DungeonGenerator {
     /**
      * Generate a dungeon asynchronously (safe to call from async thread)
      */
-    public DungeonLayout generateDungeonAsync(BiomeArea area) {
+    public DungeonLayout generateDungeonAsync(BiomeArea area, long seed) {
         // This method is identical to the synchronous one for now
         // In a real implementation, you might want to add progress callbacks or chunking
-        return generateDungeon(area);
+        return generateDungeon(area, seed);
+    }
+    
+    /**
+     * Release threads held by the generation stages
+     */
+    public void shutdown() {
+        layoutOptimizer.shutdown();
     }
     
     /**
      * Get random dungeon size from config
      */
-    private int getDungeonSize() {
+    private int getDungeonSize(Random random) {
         ConfigurationSection sizeSection = plugin.getConfig().getConfigurationSection("generation.algorithm.dungeon-size");
         
         // Default sizes if config is missing
@@ -108,7 +143,7 @@ public class DungeonGenerator {
     /**
      * Add features to the dungeon layout
      */
-    private void addFeatures(DungeonLayout layout) {
+    private void addFeatures(DungeonLayout layout, Random random) {
         // Calculate number of treasure rooms based on dungeon size
         int size = layout.getSize();
         int treasureRooms = Math.max(1, size / 15);
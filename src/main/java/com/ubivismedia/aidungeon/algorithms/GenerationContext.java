@@ -0,0 +1,36 @@
+package com.ubivismedia.aidungeon.algorithms;
+
+import java.util.Random;
+
+/**
+ * Per-call state for a generation stage. The algorithm classes themselves hold
+ * only immutable settings, so one instance can serve many generations at once;
+ * everything that changes during a run lives here or in the calling thread's
+ * {@link ScratchBuffers}.
+ */
+public class GenerationContext {
+
+    private final Random random;
+
+    /**
+     * Create a new context for one stage of one generation
+     */
+    public GenerationContext(Random random) {
+        this.random = random;
+    }
+
+    /**
+     * Get the random source for this generation
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Get the scratch buffers of the current thread.
+     * Buffers must not be kept after the calling method returns.
+     */
+    public ScratchBuffers scratch() {
+        return ScratchBuffers.forCurrentThread();
+    }
+}
@@ -0,0 +1,114 @@
+package com.ubivismedia.aidungeon.algorithms;
+
+import com.ubivismedia.aidungeon.algorithms.cellular.BitGrid;
+import com.ubivismedia.aidungeon.dungeons.RoomType;
+
+import java.util.Arrays;
+
+/**
+ * Reusable working arrays for the generation algorithms, one set per thread.
+ * Grids are reused as long as they are large enough, so a generation thread
+ * stops allocating once it has seen its largest dungeon size.
+ *
+ * Each caller owns a numbered slot; two buffers handed out for the same slot
+ * on the same thread are the same array.
+ */
+public final class ScratchBuffers {
+
+    public static final int GRID_SLOTS = 4;
+    public static final int INT_SLOTS = 2;
+    public static final int BIT_GRID_SLOTS = 2;
+    public static final int LONG_SLOTS = 1;
+
+    private static final ThreadLocal<ScratchBuffers> BUFFERS = ThreadLocal.withInitial(ScratchBuffers::new);
+
+    private final boolean[][][] booleanGrids = new boolean[GRID_SLOTS][][];
+    private final int[][] intBuffers = new int[INT_SLOTS][];
+    private final BitGrid[] bitGrids = new BitGrid[BIT_GRID_SLOTS];
+    private final long[][] longBuffers = new long[LONG_SLOTS][];
+    private RoomType[][] roomTypeGrid;
+
+    private ScratchBuffers() {
+    }
+
+    /**
+     * Get the buffers of the current thread
+     */
+    public static ScratchBuffers forCurrentThread() {
+        return BUFFERS.get();
+    }
+
+    /**
+     * Get a boolean grid of at least size x size with the first size x size cells cleared
+     */
+    public boolean[][] booleanGrid(int slot, int size) {
+        boolean[][] grid = booleanGrids[slot];
+
+        if (grid == null || grid.length < size || (size > 0 && grid[0].length < size)) {
+            grid = new boolean[size][size];
+            booleanGrids[slot] = grid;
+        } else {
+            for (int x = 0; x < size; x++) {
+                Arrays.fill(grid[x], 0, size, false);
+            }
+        }
+
+        return grid;
+    }
+
+    /**
+     * Get a cleared bit grid of the given size
+     */
+    public BitGrid bitGrid(int slot, int size) {
+        BitGrid grid = bitGrids[slot];
+
+        if (grid == null) {
+            grid = new BitGrid(size);
+            bitGrids[slot] = grid;
+        } else {
+            grid.reset(size);
+        }
+
+        return grid;
+    }
+
+    /**
+     * Get a room type grid of at least size x size. Contents are not cleared.
+     */
+    public RoomType[][] roomTypeGrid(int size) {
+        if (roomTypeGrid == null || roomTypeGrid.length < size || (size > 0 && roomTypeGrid[0].length < size)) {
+            roomTypeGrid = new RoomType[size][size];
+        }
+        return roomTypeGrid;
+    }
+
+    /**
+     * Get an int array of at least the given length with the first length entries cleared
+     */
+    public int[] intBuffer(int slot, int length) {
+        int[] buffer = intBuffers[slot];
+
+        if (buffer == null || buffer.length < length) {
+            buffer = new int[length];
+            intBuffers[slot] = buffer;
+        } else {
+            Arrays.fill(buffer, 0, length, 0);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Get a long array of at least the given length. Contents are not cleared.
+     */
+    public long[] longBuffer(int slot, int length) {
+        long[] buffer = longBuffers[slot];
+
+        if (buffer == null || buffer.length < length) {
+            buffer = new long[length];
+            longBuffers[slot] = buffer;
+        }
+
+        return buffer;
+    }
+}
@@ -0,0 +1,191 @@
+package com.ubivismedia.aidungeon.algorithms.cellular;
+
+import java.util.Arrays;
+
+/**
+ * Square grid of cells packed 64 to a long, one row of words per x coordinate.
+ * Cells outside the grid count as filled, so the unused bits at the end of each
+ * row are kept set and a simulation step can read them like any other neighbour.
+ */
+public final class BitGrid {
+
+    private static final long ALL = -1L;
+
+    private int size;
+    private int wordsPerRow;
+    private long[] words;
+
+    /**
+     * Create an empty grid
+     */
+    public BitGrid(int size) {
+        this.words = new long[0];
+        reset(size);
+    }
+
+    /**
+     * Clear the grid and change its size, reusing the backing array when it is large enough
+     */
+    public void reset(int size) {
+        this.size = size;
+        this.wordsPerRow = (size + 63) >>> 6;
+
+        int length = size * wordsPerRow;
+        if (words.length < length) {
+            words = new long[length];
+        } else {
+            Arrays.fill(words, 0, length, 0L);
+        }
+
+        long padding = paddingMask();
+        if (padding != 0) {
+            for (int x = 0; x < size; x++) {
+                words[x * wordsPerRow + wordsPerRow - 1] = padding;
+            }
+        }
+    }
+
+    /**
+     * Get the size of the grid
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Check whether a cell is filled
+     */
+    public boolean get(int x, int y) {
+        return (words[x * wordsPerRow + (y >>> 6)] & (1L << y)) != 0;
+    }
+
+    /**
+     * Fill or clear a cell
+     */
+    public void set(int x, int y, boolean value) {
+        int index = x * wordsPerRow + (y >>> 6);
+        if (value) {
+            words[index] |= 1L << y;
+        } else {
+            words[index] &= ~(1L << y);
+        }
+    }
+
+    /**
+     * Run one automaton step into target, which is resized to match this grid.
+     * A filled cell stays filled with at least deathLimit filled neighbours,
+     * an empty cell is filled with more than birthLimit.
+     */
+    public void stepInto(BitGrid target, int deathLimit, int birthLimit) {
+        target.reset(size);
+
+        long[] src = words;
+        long[] dst = target.words;
+        long padding = paddingMask();
+
+        for (int x = 0; x < size; x++) {
+            int row = x * wordsPerRow;
+            int above = row - wordsPerRow;
+            int below = row + wordsPerRow;
+            boolean hasAbove = x > 0;
+            boolean hasBelow = x < size - 1;
+
+            for (int w = 0; w < wordsPerRow; w++) {
+                boolean first = w == 0;
+                boolean last = w == wordsPerRow - 1;
+
+                long up = hasAbove ? src[above + w] : ALL;
+                long upPrev = first ? ALL : (hasAbove ? src[above + w - 1] : ALL);
+                long upNext = last ? ALL : (hasAbove ? src[above + w + 1] : ALL);
+
+                long mid = src[row + w];
+                long midPrev = first ? ALL : src[row + w - 1];
+                long midNext = last ? ALL : src[row + w + 1];
+
+                long down = hasBelow ? src[below + w] : ALL;
+                long downPrev = first ? ALL : (hasBelow ? src[below + w - 1] : ALL);
+                long downNext = last ? ALL : (hasBelow ? src[below + w + 1] : ALL);
+
+                long n0 = up;
+                long n1 = shiftIn(up, upPrev);
+                long n2 = shiftOut(up, upNext);
+                long n3 = shiftIn(mid, midPrev);
+                long n4 = shiftOut(mid, midNext);
+                long n5 = down;
+                long n6 = shiftIn(down, downPrev);
+                long n7 = shiftOut(down, downNext);
+
+                // Bit-sliced neighbour count (c3 c2 c1 c0) built from an adder tree
+                long a01 = n0 ^ n1;
+                long sumA = a01 ^ n2;
+                long carryA = (n0 & n1) | (n2 & a01);
+                long a34 = n3 ^ n4;
+                long sumB = a34 ^ n5;
+                long carryB = (n3 & n4) | (n5 & a34);
+                long sumC = n6 ^ n7;
+                long carryC = n6 & n7;
+
+                long ab = sumA ^ sumB;
+                long c0 = ab ^ sumC;
+                long carryD = (sumA & sumB) | (sumC & ab);
+
+                long xab = carryA ^ carryB;
+                long twos = xab ^ carryC;
+                long foursA = (carryA & carryB) | (carryC & xab);
+                long c1 = twos ^ carryD;
+                long foursB = twos & carryD;
+
+                long c2 = foursA ^ foursB;
+                long c3 = foursA & foursB;
+
+                long survive = mid & atLeast(c0, c1, c2, c3, deathLimit);
+                long born = ~mid & atLeast(c0, c1, c2, c3, birthLimit + 1);
+                long next = survive | born;
+
+                dst[row + w] = last ? next | padding : next;
+            }
+        }
+    }
+
+    /**
+     * Bits of the cell at y - 1, taking bit 63 of the previous word
+     */
+    private static long shiftIn(long word, long previous) {
+        return (word << 1) | (previous >>> 63);
+    }
+
+    /**
+     * Bits of the cell at y + 1, taking bit 0 of the next word
+     */
+    private static long shiftOut(long word, long next) {
+        return (word >>> 1) | (next << 63);
+    }
+
+    /**
+     * Mask of cells whose bit-sliced count is at least k
+     */
+    private static long atLeast(long c0, long c1, long c2, long c3, int k) {
+        if (k <= 0) {
+            return ALL;
+        }
+        if (k > 8) {
+            return 0L;
+        }
+
+        // Compare from the lowest bit up: a set bit of k needs the count bit, a clear one accepts it
+        long result = ALL;
+        result = (k & 1) != 0 ? c0 & result : c0 | result;
+        result = (k & 2) != 0 ? c1 & result : c1 | result;
+        result = (k & 4) != 0 ? c2 & result : c2 | result;
+        result = (k & 8) != 0 ? c3 & result : c3 | result;
+        return result;
+    }
+
+    /**
+     * Bits beyond the last cell in the final word of a row
+     */
+    private long paddingMask() {
+        int used = size & 63;
+        return used == 0 ? 0L : ALL << used;
+    }
+}
@@ -1,6 +1,8 @@
 package com.ubivismedia.aidungeon.algorithms.cellular;
 
 import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import com.ubivismedia.aidungeon.algorithms.GenerationContext;
+import com.ubivismedia.aidungeon.algorithms.ScratchBuffers;
 import com.ubivismedia.aidungeon.dungeons.DungeonLayout;
 import com.ubivismedia.aidungeon.dungeons.RoomType;
 
@@ -10,11 +12,17 @@ import java.util.Random;
  * Implements a cellular automata algorithm for room generation.
  * This is based on Conway's Game of Life with modifications
  * for dungeon generation.
+ * The simulation runs on bit-packed grids, so one step updates 64 cells per word operation.
+ * Instances only hold settings and are safe to share between generation threads.
  */
 public class CellularAutomata {
     
+    // Scratch slots: two bit grids for the simulation, one boolean grid for connectivity
+    private static final int MAP_SLOT = 0;
+    private static final int NEXT_MAP_SLOT = 1;
+    private static final int CONNECTED_SLOT = 0;
+    
     private final AIDungeonGenerator plugin;
-    private final Random random = new Random();
     
     // Configuration
     private final int initialFillPercent;
@@ -37,30 +45,41 @@ public class CellularAutomata {
     
     /**
      * Apply the cellular automata algorithm to a dungeon layout
+     * @param layout The layout to fill
+     * @param context Random source and scratch buffers for this generation
      */
-    public void applyTo(DungeonLayout layout) {
+    public void applyTo(DungeonLayout layout, GenerationContext context) {
+        Random random = context.getRandom();
         int size = layout.getSize();
-        boolean[][] map = new boolean[size][size];
+        
+        // Two grids are swapped between steps instead of allocating a new one each time
+        ScratchBuffers scratch = context.scratch();
+        BitGrid map = scratch.bitGrid(MAP_SLOT, size);
+        BitGrid nextMap = scratch.bitGrid(NEXT_MAP_SLOT, size);
         
         // Initialize with random fill
-        initializeRandomMap(map, size);
+        initializeRandomMap(map, size, random);
         
         // Run cellular automata iterations
         for (int i = 0; i < iterations; i++) {
-            map = doSimulationStep(map, size);
+            map.stepInto(nextMap, deathLimit, birthLimit);
+            
+            BitGrid previous = map;
+            map = nextMap;
+            nextMap = previous;
         }
         
         // Convert the resulting map to dungeon rooms
         applyMapToLayout(map, layout);
         
         // Fix disconnected rooms
-        connectRooms(layout);
+        connectRooms(layout, context);
     }
     
     /**
      * Initialize the map with random fill
      */
-    private void initializeRandomMap(boolean[][] map, int size) {
+    private void initializeRandomMap(BitGrid map, int size, Random random) {
         // Keep entrance position clear
         int midPoint = size / 2;
         
@@ -68,71 +87,19 @@ public class CellularAutomata {
             for (int y = 0; y < size; y++) {
                 // Skip the center area (entrance)
                 if (Math.abs(x - midPoint) <= 2 && Math.abs(y - midPoint) <= 2) {
-                    map[x][y] = true; // Always make rooms near entrance
+                    map.set(x, y, true); // Always make rooms near entrance
                 } else {
                     // Randomly decide if this is a room
-                    map[x][y] = random.nextInt(100) < initialFillPercent;
+                    map.set(x, y, random.nextInt(100) < initialFillPercent);
                 }
             }
         }
     }
     
     /**
-     * Run one step of the simulation
-     */
-    private boolean[][] doSimulationStep(boolean[][] oldMap, int size) {
-        boolean[][] newMap = new boolean[size][size];
-        
-        // Evaluate each cell in the grid
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                // Count neighbors (including diagonals)
-                int neighbors = countNeighbors(oldMap, x, y, size);
-                
-                // Apply cellular automata rules
-                if (oldMap[x][y]) {
-                    // Currently a room
-                    newMap[x][y] = neighbors >= deathLimit;
-                } else {
-                    // Currently empty
-                    newMap[x][y] = neighbors > birthLimit;
-                }
-            }
-        }
-        
-        return newMap;
-    }
-    
-    /**
-     * Count the number of neighbors around a cell
-     */
-    private int countNeighbors(boolean[][] map, int x, int y, int size) {
-        int count = 0;
-        
-        for (int i = -1; i <= 1; i++) {
-            for (int j = -1; j <= 1; j++) {
-                // Skip the cell itself
-                if (i == 0 && j == 0) continue;
-                
-                int nx = x + i;
-                int ny = y + j;
-                
-                // Count edge cells as filled
-                if (nx < 0 || ny < 0 || nx >= size || ny >= size) {
-                    count++;
-                } else if (map[nx][ny]) {
-                    count++;
-                }
-            }
-        }
-        
-        return count;
-    }
-    
-    /**
-     * Apply the boolean map to the dungeon layout
+     * Apply the simulated map to the dungeon layout
      */
-    private void applyMapToLayout(boolean[][] map, DungeonLayout layout) {
+    private void applyMapToLayout(BitGrid map, DungeonLayout layout) {
         int size = layout.getSize();
         
         for (int x = 0; x < size; x++) {
@@ -143,7 +110,7 @@ public class CellularAutomata {
                 }
                 
                 // Apply map to layout
-                if (map[x][y]) {
+                if (map.get(x, y)) {
                     layout.setRoomType(x, y, RoomType.NORMAL);
                 } else {
                     layout.setRoomType(x, y, RoomType.EMPTY);
@@ -155,7 +122,7 @@ public class CellularAutomata {
     /**
      * Connect disconnected rooms to ensure the dungeon is fully navigable
      */
-    private void connectRooms(DungeonLayout layout) {
+    private void connectRooms(DungeonLayout layout, GenerationContext context) {
         int size = layout.getSize();
         
         // Find the entrance
@@ -163,14 +130,14 @@ public class CellularAutomata {
         int entranceY = layout.getEntranceY();
         
         // Simple flood fill from entrance to mark connected rooms
-        boolean[][] connected = new boolean[size][size];
+        boolean[][] connected = context.scratch().booleanGrid(CONNECTED_SLOT, size);
         floodFill(layout, entranceX, entranceY, connected);
         
         // Find disconnected rooms and connect them
         for (int x = 0; x < size; x++) {
             for (int y = 0; y < size; y++) {
                 if (layout.isRoom(x, y) && !connected[x][y]) {
-                    connectRoomToNearestConnected(layout, x, y, connected);
+                    connectRoomToNearestConnected(layout, x, y, connected, context.getRandom());
                 }
             }
         }
@@ -203,7 +170,7 @@ public class CellularAutomata {
     /**
      * Connect a disconnected room to the nearest connected room
      */
-    private void connectRoomToNearestConnected(DungeonLayout layout, int roomX, int roomY, boolean[][] connected) {
+    private void connectRoomToNearestConnected(DungeonLayout layout, int roomX, int roomY, boolean[][] connected, Random random) {
         int size = layout.getSize();
         int nearestX = -1;
         int nearestY = -1;
@@ -225,7 +192,7 @@ public class CellularAutomata {
         
         // If found a nearest connected room, create a corridor
         if (nearestX != -1) {
-            createCorridor(layout, roomX, roomY, nearestX, nearestY);
+            createCorridor(layout, roomX, roomY, nearestX, nearestY, random);
             
             // Mark the new corridor and room as connected
             connected[roomX][roomY] = true;
@@ -238,7 +205,7 @@ public class CellularAutomata {
     /**
      * Create a corridor between two rooms
      */
-    private void createCorridor(DungeonLayout layout, int x1, int y1, int x2, int y2) {
+    private void createCorridor(DungeonLayout layout, int x1, int y1, int x2, int y2, Random random) {
         // Create an L-shaped corridor
         int currentX = x1;
         int currentY = y1;
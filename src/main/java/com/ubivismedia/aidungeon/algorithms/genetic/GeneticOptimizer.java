@@ -1,46 +1,85 @@
 package com.ubivismedia.aidungeon.algorithms.genetic;
 
 import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import com.ubivismedia.aidungeon.algorithms.GenerationContext;
+import com.ubivismedia.aidungeon.algorithms.ScratchBuffers;
 import com.ubivismedia.aidungeon.dungeons.DungeonLayout;
 import com.ubivismedia.aidungeon.dungeons.RoomType;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Implements a genetic algorithm to optimize dungeon layouts
- * for better playability, aesthetics, and challenge balance
+ * for better playability, aesthetics, and challenge balance.
+ * All state of a run lives in its population, so instances are safe
+ * to share between generation threads. Fitness of a population is
+ * evaluated in parallel on a fork-join pool shared by all generations.
+ * Individuals remember their fitness until mutated, so unchanged elites
+ * and clones are not scored again.
  */
 public class GeneticOptimizer {
     
+    // Scratch buffer slots used by fitness evaluation
+    private static final int VISITED_SLOT = 0;
+    private static final int CLUSTER_VISITED_SLOT = 1;
+    private static final int TRAP_DISTANCE_SLOT = 0;
+    private static final int SHAPE_HASH_SLOT = 0;
+    
     private final AIDungeonGenerator plugin;
-    private final Random random = new Random();
     
     // Genetic algorithm parameters
-    private final int populationSize = 10;
+    private final int populationSize;
     private final double mutationRate = 0.2;
     private final double crossoverRate = 0.7;
     
+    // Pool for fitness evaluation, null when evaluating on the calling thread
+    private final ForkJoinPool fitnessPool;
+    
     public GeneticOptimizer(AIDungeonGenerator plugin) {
         this.plugin = plugin;
+        
+        // Load configuration
+        this.populationSize = Math.max(2, plugin.getConfig().getInt("generation.algorithm.population-size", 10));
+        
+        int parallelism = plugin.getConfig().getInt("generation.algorithm.fitness-parallelism", 4);
+        this.fitnessPool = parallelism > 1 ? new ForkJoinPool(parallelism, pool -> {
+            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+            thread.setName("AIDungeon-Fitness-" + thread.getPoolIndex());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }, null, false) : null;
+    }
+    
+    /**
+     * Stop the fitness evaluation threads. Later optimizations evaluate on the calling thread.
+     */
+    public void shutdown() {
+        if (fitnessPool != null) {
+            fitnessPool.shutdown();
+        }
     }
     
     /**
      * Optimize a dungeon layout using genetic algorithm
      * @param layout The layout to optimize
      * @param generations Number of generations to run
+     * @param context Random source for this generation
      */
-    public void optimizeLayout(DungeonLayout layout, int generations) {
-        int size = layout.getSize();
+    public void optimizeLayout(DungeonLayout layout, int generations, GenerationContext context) {
+        Random random = context.getRandom();
         
         // Create initial population based on the input layout
-        List<Individual> population = createInitialPopulation(layout);
+        List<Individual> population = createInitialPopulation(layout, random);
         
         // Run the genetic algorithm for specified generations
         for (int generation = 0; generation < generations; generation++) {
             // Evaluate fitness for each individual
-            for (Individual individual : population) {
-                individual.calculateFitness();
-            }
+            evaluatePopulation(population);
             
             // Sort by fitness (descending)
             population.sort((a, b) -> Double.compare(b.fitness, a.fitness));
@@ -64,13 +103,13 @@ public class GeneticOptimizer {
             // Fill the rest with crossover and mutation
             while (newPopulation.size() < populationSize) {
                 // Select parents
-                Individual parent1 = selectParent(population);
-                Individual parent2 = selectParent(population);
+                Individual parent1 = selectParent(population, random);
+                Individual parent2 = selectParent(population, random);
                 
                 // Crossover
                 Individual child;
                 if (random.nextDouble() < crossoverRate) {
-                    child = crossover(parent1, parent2);
+                    child = crossover(parent1, parent2, random);
                 } else {
                     // No crossover, just clone parent1
                     child = parent1.clone();
@@ -78,7 +117,7 @@ public class GeneticOptimizer {
                 
                 // Mutation
                 if (random.nextDouble() < mutationRate) {
-                    mutate(child);
+                    mutate(child, random);
                 }
                 
                 newPopulation.add(child);
@@ -89,10 +128,35 @@ public class GeneticOptimizer {
         }
     }
     
+    /**
+     * Calculate the fitness of every changed individual, in parallel when a pool is available
+     */
+    private void evaluatePopulation(List<Individual> population) {
+        List<Individual> dirty = new ArrayList<>(population.size());
+        for (Individual individual : population) {
+            if (!individual.fitnessValid) {
+                dirty.add(individual);
+            }
+        }
+        
+        if (fitnessPool != null && dirty.size() > 1 && !fitnessPool.isShutdown()) {
+            try {
+                fitnessPool.invoke(new FitnessTask(dirty, 0, dirty.size()));
+                return;
+            } catch (RejectedExecutionException e) {
+                // Pool was shut down in the meantime, fall through to sequential evaluation
+            }
+        }
+        
+        for (Individual individual : dirty) {
+            individual.calculateFitness();
+        }
+    }
+    
     /**
      * Create initial population based on the input layout
      */
-    private List<Individual> createInitialPopulation(DungeonLayout layout) {
+    private List<Individual> createInitialPopulation(DungeonLayout layout, Random random) {
         List<Individual> population = new ArrayList<>();
         
         // First individual is the original layout
@@ -101,8 +165,8 @@ public class GeneticOptimizer {
         // The rest are variations
         for (int i = 1; i < populationSize; i++) {
             Individual individual = new Individual(layout);
-            mutate(individual); // Apply more mutations to create diversity
-            mutate(individual);
+            mutate(individual, random); // Apply more mutations to create diversity
+            mutate(individual, random);
             population.add(individual);
         }
         
@@ -112,7 +176,7 @@ public class GeneticOptimizer {
     /**
      * Select a parent using tournament selection
      */
-    private Individual selectParent(List<Individual> population) {
+    private Individual selectParent(List<Individual> population, Random random) {
         // Tournament size
         int tournamentSize = 3;
         
@@ -130,7 +194,7 @@ public class GeneticOptimizer {
     /**
      * Perform crossover between two parents to create a child
      */
-    private Individual crossover(Individual parent1, Individual parent2) {
+    private Individual crossover(Individual parent1, Individual parent2, Random random) {
         Individual child = new Individual(parent1.size);
         
         // Pick a random crossover point
@@ -160,8 +224,9 @@ public class GeneticOptimizer {
     /**
      * Mutate an individual by making random changes
      */
-    private void mutate(Individual individual) {
+    private void mutate(Individual individual, Random random) {
         int size = individual.size;
+        individual.fitnessValid = false;
         
         // Number of mutations based on dungeon size
         int mutations = size / 5;
@@ -201,7 +266,7 @@ public class GeneticOptimizer {
                 case 2:
                     // Connect to nearest room if this is an isolated room
                     if (individual.grid[x][y] != RoomType.EMPTY && isIsolated(individual, x, y)) {
-                        connectToNearestRoom(individual, x, y);
+                        connectToNearestRoom(individual, x, y, random);
                     }
                     break;
             }
@@ -226,7 +291,7 @@ public class GeneticOptimizer {
     /**
      * Connect an isolated room to the nearest non-empty room
      */
-    private void connectToNearestRoom(Individual individual, int roomX, int roomY) {
+    private void connectToNearestRoom(Individual individual, int roomX, int roomY, Random random) {
         int size = individual.size;
         int nearestX = -1;
         int nearestY = -1;
@@ -248,14 +313,14 @@ public class GeneticOptimizer {
         
         // If found a nearest room, create a corridor
         if (nearestX != -1) {
-            createCorridor(individual, roomX, roomY, nearestX, nearestY);
+            createCorridor(individual, roomX, roomY, nearestX, nearestY, random);
         }
     }
     
     /**
      * Create a corridor between two rooms
      */
-    private void createCorridor(Individual individual, int x1, int y1, int x2, int y2) {
+    private void createCorridor(Individual individual, int x1, int y1, int x2, int y2, Random random) {
         // Create an L-shaped corridor
         int currentX = x1;
         int currentY = y1;
@@ -306,6 +371,32 @@ public class GeneticOptimizer {
         }
     }
     
+    /**
+     * Fork-join task that splits a population range down to single individuals
+     */
+    private static class FitnessTask extends RecursiveAction {
+        private final List<Individual> population;
+        private final int from;
+        private final int to;
+        
+        FitnessTask(List<Individual> population, int from, int to) {
+            this.population = population;
+            this.from = from;
+            this.to = to;
+        }
+        
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                population.get(from).calculateFitness();
+                return;
+            }
+            
+            int mid = (from + to) >>> 1;
+            invokeAll(new FitnessTask(population, from, mid), new FitnessTask(population, mid, to));
+        }
+    }
+    
     /**
      * Inner class representing an individual in the genetic algorithm
      */
@@ -315,6 +406,8 @@ public class GeneticOptimizer {
         int entranceX;
         int entranceY;
         double fitness;
+        // Cleared whenever the grid changes
+        boolean fitnessValid;
         
         /**
          * Create a new individual based on an existing layout
@@ -349,9 +442,13 @@ public class GeneticOptimizer {
         }
         
         /**
-         * Calculate fitness score for this individual
+         * Calculate fitness score for this individual, unless it is already known
          */
         void calculateFitness() {
+            if (fitnessValid) {
+                return;
+            }
+            
             double score = 0.0;
             
             // 1. Connectivity - reward well-connected layouts
@@ -367,6 +464,7 @@ public class GeneticOptimizer {
             score += evaluateChallenge() * 0.1;
             
             this.fitness = score;
+            this.fitnessValid = true;
         }
         
         /**
@@ -375,7 +473,7 @@ public class GeneticOptimizer {
          */
         private double evaluateConnectivity() {
             // Count accessible rooms using flood fill
-            boolean[][] visited = new boolean[size][size];
+            boolean[][] visited = ScratchBuffers.forCurrentThread().booleanGrid(VISITED_SLOT, size);
             int accessibleRooms = floodFill(entranceX, entranceY, visited);
             
             // Count total rooms
@@ -489,50 +587,62 @@ public class GeneticOptimizer {
          * Count different room shapes in the dungeon
          */
         private int countRoomShapes() {
-            Set<String> shapes = new HashSet<>();
+            ScratchBuffers scratch = ScratchBuffers.forCurrentThread();
             
             // Look for room clusters
-            boolean[][] visited = new boolean[size][size];
+            boolean[][] visited = scratch.booleanGrid(CLUSTER_VISITED_SLOT, size);
+            long[] signatures = scratch.longBuffer(SHAPE_HASH_SLOT, size * size);
+            int clusters = 0;
             
             for (int x = 0; x < size; x++) {
                 for (int y = 0; y < size; y++) {
                     if (!visited[x][y] && grid[x][y] != RoomType.EMPTY) {
                         // Find this room cluster and get its shape signature
-                        StringBuilder signature = new StringBuilder();
-                        findRoomCluster(x, y, visited, 0, 0, signature);
-                        shapes.add(signature.toString());
+                        signatures[clusters++] = findRoomCluster(x, y, visited, 0, 0, 1L);
                     }
                 }
             }
             
-            return shapes.size();
+            // Count distinct signatures
+            Arrays.sort(signatures, 0, clusters);
+            int shapes = 0;
+            for (int i = 0; i < clusters; i++) {
+                if (i == 0 || signatures[i] != signatures[i - 1]) {
+                    shapes++;
+                }
+            }
+            
+            return shapes;
         }
         
         /**
-         * Recursively find a room cluster and build its shape signature
+         * Recursively find a room cluster and fold its cells into a shape signature hash
+         * @return The signature including this cell and everything reached from it
          */
-        private void findRoomCluster(int x, int y, boolean[][] visited, int relX, int relY, StringBuilder signature) {
+        private long findRoomCluster(int x, int y, boolean[][] visited, int relX, int relY, long signature) {
             // Check boundaries
             if (x < 0 || x >= size || y < 0 || y >= size) {
-                return;
+                return signature;
             }
             
             // Skip if already visited or empty
             if (visited[x][y] || grid[x][y] == RoomType.EMPTY) {
-                return;
+                return signature;
             }
             
             // Mark as visited
             visited[x][y] = true;
             
-            // Add to signature
-            signature.append(relX).append(",").append(relY).append(";");
+            // Add to signature, in the same visiting order as a written-out list of offsets
+            signature = (signature ^ (((long) relX << 32) | (relY & 0xFFFFFFFFL))) * 0x9E3779B97F4A7C15L;
+            signature ^= signature >>> 29;
             
             // Recursively check neighbors
-            findRoomCluster(x+1, y, visited, relX+1, relY, signature);
-            findRoomCluster(x-1, y, visited, relX-1, relY, signature);
-            findRoomCluster(x, y+1, visited, relX, relY+1, signature);
-            findRoomCluster(x, y-1, visited, relX, relY-1, signature);
+            signature = findRoomCluster(x+1, y, visited, relX+1, relY, signature);
+            signature = findRoomCluster(x-1, y, visited, relX-1, relY, signature);
+            signature = findRoomCluster(x, y+1, visited, relX, relY+1, signature);
+            signature = findRoomCluster(x, y-1, visited, relX, relY-1, signature);
+            return signature;
         }
         
         /**
@@ -589,7 +699,7 @@ public class GeneticOptimizer {
          */
         private double evaluateTrapDistribution() {
             // Count traps by distance from entrance
-            int[] trapsByDistance = new int[size];
+            int[] trapsByDistance = ScratchBuffers.forCurrentThread().intBuffer(TRAP_DISTANCE_SLOT, size);
             
             for (int x = 0; x < size; x++) {
                 for (int y = 0; y < size; y++) {
@@ -638,6 +748,8 @@ public class GeneticOptimizer {
             Individual clone = new Individual(size);
             clone.entranceX = this.entranceX;
             clone.entranceY = this.entranceY;
+            clone.fitness = this.fitness;
+            clone.fitnessValid = this.fitnessValid;
             
             // Copy grid
             for (int x = 0; x < size; x++) {
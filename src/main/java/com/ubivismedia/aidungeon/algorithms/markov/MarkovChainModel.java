@@ -1,92 +1,166 @@
 package com.ubivismedia.aidungeon.algorithms.markov;
 
 import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import com.ubivismedia.aidungeon.algorithms.GenerationContext;
 import com.ubivismedia.aidungeon.dungeons.DungeonLayout;
 import com.ubivismedia.aidungeon.dungeons.RoomType;
 
+import org.bukkit.configuration.ConfigurationSection;
+
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Random;
 
 /**
  * Implements a Markov Chain model for room type transitions
- * to create more coherent and natural-feeling dungeons
+ * to create more coherent and natural-feeling dungeons.
+ * The transition matrix, and one per theme that overrides it in the config,
+ * is compiled once into alias tables, so sampling a transition takes constant
+ * time. Instances are never modified afterwards and are safe to share between
+ * generation threads.
  */
 public class MarkovChainModel {
     
+    // Scratch buffer slot for neighbor counts
+    private static final int NEIGHBOR_COUNT_SLOT = 0;
+    private static final RoomType[] ROOM_TYPES = RoomType.values();
+    
+    private static final String CONFIG_PATH = "generation.algorithm.room-transitions";
+    
     private final AIDungeonGenerator plugin;
-    private final Random random = new Random();
     
-    // Transition probabilities for room types
-    private final Map<RoomType, Map<RoomType, Double>> transitionProbabilities;
+    // Transition tables by source room ordinal, for all themes and per overriding theme
+    private final AliasTable[] defaultTransitions;
+    private final Map<String, AliasTable[]> themeTransitions = new HashMap<>();
     
     /**
      * Create a new Markov Chain model
      */
     public MarkovChainModel(AIDungeonGenerator plugin) {
         this.plugin = plugin;
-        this.transitionProbabilities = new HashMap<>();
         
-        // Initialize transition probabilities
-        initializeTransitionProbabilities();
+        // Built-in probabilities, then the configured overrides
+        double[][] matrix = createDefaultMatrix();
+        ConfigurationSection config = plugin.getConfig().getConfigurationSection(CONFIG_PATH);
+        if (config != null) {
+            applyOverrides(matrix, config.getConfigurationSection("default"), "default");
+        }
+        this.defaultTransitions = compile(matrix);
+        
+        ConfigurationSection themes = config != null ? config.getConfigurationSection("themes") : null;
+        if (themes != null) {
+            for (String themeName : themes.getKeys(false)) {
+                double[][] themeMatrix = new double[matrix.length][];
+                for (int i = 0; i < matrix.length; i++) {
+                    themeMatrix[i] = matrix[i].clone();
+                }
+                applyOverrides(themeMatrix, themes.getConfigurationSection(themeName), themeName);
+                themeTransitions.put(themeName.toUpperCase(Locale.ROOT), compile(themeMatrix));
+            }
+        }
     }
     
     /**
-     * Initialize the transition probability matrix with default values
+     * Create the default transition probability matrix, indexed by source and destination ordinal.
+     * A transition to EMPTY keeps the room as it is.
      */
-    private void initializeTransitionProbabilities() {
+    private static double[][] createDefaultMatrix() {
+        double[][] matrix = new double[ROOM_TYPES.length][ROOM_TYPES.length];
+        
         // For each source room type
-        for (RoomType sourceType : RoomType.values()) {
-            Map<RoomType, Double> transitions = new HashMap<>();
-            transitionProbabilities.put(sourceType, transitions);
+        for (RoomType sourceType : ROOM_TYPES) {
+            double[] transitions = matrix[sourceType.ordinal()];
             
-            // For each destination room type
-            for (RoomType destType : RoomType.values()) {
-                // Set default probabilities
-                double probability = 0.0;
-                
-                if (sourceType == RoomType.EMPTY) {
-                    // Empty cells should stay empty
-                    probability = (destType == RoomType.EMPTY) ? 1.0 : 0.0;
-                } else if (sourceType == RoomType.ENTRANCE) {
-                    // Entrance should connect to normal rooms
-                    probability = (destType == RoomType.NORMAL) ? 0.9 : 0.1;
-                } else if (sourceType == RoomType.NORMAL) {
-                    // Normal rooms can connect to various types
-                    switch (destType) {
-                        case NORMAL:
-                            probability = 0.7;  // Most likely another normal room
-                            break;
-                        case TREASURE:
-                            probability = 0.1;  // Sometimes treasure
-                            break;
-                        case TRAP:
-                            probability = 0.15; // Sometimes traps
-                            break;
-                        case BOSS:
-                            probability = 0.05; // Rarely boss rooms
-                            break;
-                        default:
-                            probability = 0.0;  // Never others
-                    }
-                } else if (sourceType.isSpecial()) {
-                    // Special rooms mostly connect back to normal rooms
-                    probability = (destType == RoomType.NORMAL) ? 0.9 : 0.1;
+            if (sourceType == RoomType.NORMAL) {
+                // Normal rooms can connect to various types
+                transitions[RoomType.NORMAL.ordinal()] = 0.7;    // Most likely another normal room
+                transitions[RoomType.TREASURE.ordinal()] = 0.1;  // Sometimes treasure
+                transitions[RoomType.TRAP.ordinal()] = 0.15;     // Sometimes traps
+                transitions[RoomType.BOSS.ordinal()] = 0.05;     // Rarely boss rooms
+            } else if (sourceType == RoomType.ENTRANCE || sourceType.isSpecial()) {
+                // Entrance and special rooms mostly connect to normal rooms
+                transitions[RoomType.NORMAL.ordinal()] = 0.9;
+                transitions[RoomType.EMPTY.ordinal()] = 0.1;
+            } else {
+                // Empty cells should stay empty
+                transitions[RoomType.EMPTY.ordinal()] = 1.0;
+            }
+        }
+        
+        return matrix;
+    }
+    
+    /**
+     * Replace rows of a matrix with the weights configured in a section
+     * (source type -> destination type -> weight); weights of a row are relative
+     */
+    private void applyOverrides(double[][] matrix, ConfigurationSection section, String name) {
+        if (section == null) {
+            return;
+        }
+        
+        for (String sourceName : section.getKeys(false)) {
+            RoomType source = parseRoomType(sourceName, name);
+            ConfigurationSection row = section.getConfigurationSection(sourceName);
+            if (source == null || row == null) {
+                continue;
+            }
+            
+            double[] weights = new double[ROOM_TYPES.length];
+            double total = 0;
+            for (String destName : row.getKeys(false)) {
+                RoomType dest = parseRoomType(destName, name);
+                if (dest != null) {
+                    weights[dest.ordinal()] = Math.max(0, row.getDouble(destName));
+                    total += weights[dest.ordinal()];
                 }
-                
-                transitions.put(destType, probability);
             }
+            
+            if (total <= 0) {
+                plugin.getLogger().warning("Ignoring room transitions of " + sourceName + " in " + name
+                        + ": no positive weights");
+                continue;
+            }
+            matrix[source.ordinal()] = weights;
         }
     }
     
+    private RoomType parseRoomType(String typeName, String name) {
+        try {
+            return RoomType.valueOf(typeName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            plugin.getLogger().warning("Unknown room type " + typeName + " in room transitions of " + name);
+            return null;
+        }
+    }
+    
+    private static AliasTable[] compile(double[][] matrix) {
+        AliasTable[] tables = new AliasTable[matrix.length];
+        for (int i = 0; i < matrix.length; i++) {
+            tables[i] = new AliasTable(matrix[i]);
+        }
+        return tables;
+    }
+    
     /**
      * Apply the Markov Chain model to a dungeon layout
+     * @param layout The layout to transform
+     * @param context Random source and scratch buffers for this generation
      */
-    public void applyThemeTransitions(DungeonLayout layout) {
+    public void applyThemeTransitions(DungeonLayout layout, GenerationContext context) {
+        Random random = context.getRandom();
         int size = layout.getSize();
         
+        // Use the theme's own transitions if it has any
+        AliasTable[] transitions = defaultTransitions;
+        if (layout.getTheme() != null) {
+            transitions = themeTransitions.getOrDefault(layout.getTheme().getName().toUpperCase(Locale.ROOT),
+                    defaultTransitions);
+        }
+        
         // Create a copy of the current layout to sample from
-        RoomType[][] originalLayout = new RoomType[size][size];
+        RoomType[][] originalLayout = context.scratch().roomTypeGrid(size);
         for (int x = 0; x < size; x++) {
             for (int y = 0; y < size; y++) {
                 originalLayout[x][y] = layout.getRoomType(x, y);
@@ -98,23 +172,24 @@ public class MarkovChainModel {
             for (int y = 0; y < size; y++) {
                 // Only consider transforming normal rooms
                 if (originalLayout[x][y] == RoomType.NORMAL) {
-                    transformRoom(layout, originalLayout, x, y);
+                    transformRoom(layout, originalLayout, x, y, transitions, context);
                 }
             }
         }
         
         // Ensure we have at least one of each special room type
-        ensureSpecialRoomTypes(layout);
+        ensureSpecialRoomTypes(layout, random);
     }
     
     /**
      * Transform a room based on Markov transitions
      */
-    private void transformRoom(DungeonLayout layout, RoomType[][] originalLayout, int x, int y) {
+    private void transformRoom(DungeonLayout layout, RoomType[][] originalLayout, int x, int y,
+                               AliasTable[] transitions, GenerationContext context) {
         int size = layout.getSize();
         
-        // Get the most common neighboring room type
-        Map<RoomType, Integer> neighborCounts = new HashMap<>();
+        // Get the most common neighboring room type, counted by ordinal
+        int[] neighborCounts = context.scratch().intBuffer(NEIGHBOR_COUNT_SLOT, ROOM_TYPES.length);
         
         for (int dx = -1; dx <= 1; dx++) {
             for (int dy = -1; dy <= 1; dy++) {
@@ -124,67 +199,53 @@ public class MarkovChainModel {
                 int ny = y + dy;
                 
                 if (nx >= 0 && nx < size && ny >= 0 && ny < size) {
-                    RoomType neighborType = originalLayout[nx][ny];
-                    neighborCounts.put(neighborType, neighborCounts.getOrDefault(neighborType, 0) + 1);
+                    neighborCounts[originalLayout[nx][ny].ordinal()]++;
                 }
             }
         }
         
-        // Find the most common neighbor
-        RoomType mostCommonNeighbor = RoomType.NORMAL; // Default
+        // Find the most common neighbor (ties go to the lowest ordinal)
+        int mostCommonNeighbor = RoomType.NORMAL.ordinal(); // Default
         int maxCount = 0;
         
-        for (Map.Entry<RoomType, Integer> entry : neighborCounts.entrySet()) {
-            if (entry.getValue() > maxCount) {
-                maxCount = entry.getValue();
-                mostCommonNeighbor = entry.getKey();
+        for (int i = 0; i < ROOM_TYPES.length; i++) {
+            if (neighborCounts[i] > maxCount) {
+                maxCount = neighborCounts[i];
+                mostCommonNeighbor = i;
             }
         }
         
-        // Get transition probabilities from this neighbor type
-        Map<RoomType, Double> transitions = transitionProbabilities.get(mostCommonNeighbor);
-        
-        // Select a new room type based on transitions
-        double rand = random.nextDouble();
-        double cumulativeProbability = 0.0;
+        // Select a new room type based on transitions from this neighbor type
+        RoomType newType = ROOM_TYPES[transitions[mostCommonNeighbor].sample(context.getRandom())];
         
-        for (Map.Entry<RoomType, Double> entry : transitions.entrySet()) {
-            cumulativeProbability += entry.getValue();
-            
-            if (rand <= cumulativeProbability) {
-                RoomType newType = entry.getKey();
-                
-                // Don't change to EMPTY (we want to keep rooms)
-                if (newType != RoomType.EMPTY) {
-                    layout.setRoomType(x, y, newType);
-                }
-                break;
-            }
+        // Don't change to EMPTY (we want to keep rooms)
+        if (newType != RoomType.EMPTY) {
+            layout.setRoomType(x, y, newType);
         }
     }
     
     /**
      * Ensure we have at least one of each special room type
      */
-    private void ensureSpecialRoomTypes(DungeonLayout layout) {
+    private void ensureSpecialRoomTypes(DungeonLayout layout, Random random) {
         // Check for boss room
-        if (layout.getRoomPositions(RoomType.BOSS).isEmpty()) {
+        if (layout.getRoomCount(RoomType.BOSS) == 0) {
             // Find a room far from entrance to set as boss room
             setFarthestRoomAsType(layout, RoomType.BOSS);
         }
         
         // Check for treasure rooms
-        if (layout.getRoomPositions(RoomType.TREASURE).isEmpty()) {
+        if (layout.getRoomCount(RoomType.TREASURE) == 0) {
             // Set some random rooms as treasure
             int treasureCount = Math.max(1, layout.getSize() / 10);
-            setRandomRoomsAsType(layout, RoomType.TREASURE, treasureCount);
+            setRandomRoomsAsType(layout, RoomType.TREASURE, treasureCount, random);
         }
         
         // Check for trap rooms
-        if (layout.getRoomPositions(RoomType.TRAP).isEmpty()) {
+        if (layout.getRoomCount(RoomType.TRAP) == 0) {
             // Set some random rooms as traps
             int trapCount = Math.max(2, layout.getSize() / 8);
-            setRandomRoomsAsType(layout, RoomType.TRAP, trapCount);
+            setRandomRoomsAsType(layout, RoomType.TRAP, trapCount, random);
         }
     }
     
@@ -224,7 +285,7 @@ public class MarkovChainModel {
     /**
      * Set random normal rooms as a specific type
      */
-    private void setRandomRoomsAsType(DungeonLayout layout, RoomType type, int count) {
+    private void setRandomRoomsAsType(DungeonLayout layout, RoomType type, int count, Random random) {
         int size = layout.getSize();
         int remaining = count;
         
@@ -239,4 +300,78 @@ public class MarkovChainModel {
             }
         }
     }
+    
+    /**
+     * Walker alias table over outcome indices: one uniform draw picks a column,
+     * which yields either its own index or its alias
+     */
+    private static final class AliasTable {
+        private final double[] probability;
+        private final int[] alias;
+        
+        /**
+         * Build a table from non-negative weights with a positive sum (Vose's method)
+         */
+        AliasTable(double[] weights) {
+            int n = weights.length;
+            probability = new double[n];
+            alias = new int[n];
+            
+            double total = 0;
+            for (double weight : weights) {
+                total += weight;
+            }
+            
+            // Scale so the average column holds exactly 1, then pair small columns with large ones
+            double[] scaled = new double[n];
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0;
+            int largeCount = 0;
+            for (int i = 0; i < n; i++) {
+                scaled[i] = weights[i] * n / total;
+                if (scaled[i] < 1.0) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
+            }
+            
+            while (smallCount > 0 && largeCount > 0) {
+                int less = small[--smallCount];
+                int more = large[--largeCount];
+                
+                probability[less] = scaled[less];
+                alias[less] = more;
+                
+                scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+                if (scaled[more] < 1.0) {
+                    small[smallCount++] = more;
+                } else {
+                    large[largeCount++] = more;
+                }
+            }
+            
+            // Whatever is left is full up to rounding errors
+            while (largeCount > 0) {
+                int index = large[--largeCount];
+                probability[index] = 1.0;
+                alias[index] = index;
+            }
+            while (smallCount > 0) {
+                int index = small[--smallCount];
+                probability[index] = 1.0;
+                alias[index] = index;
+            }
+        }
+        
+        /**
+         * Draw an outcome index, using a single random double
+         */
+        int sample(Random random) {
+            double scaled = random.nextDouble() * probability.length;
+            int column = Math.min((int) scaled, probability.length - 1);
+            return scaled - column < probability[column] ? column : alias[column];
+        }
+    }
 }
@@ -18,6 +18,8 @@ import org.bukkit.event.Listener;
 import org.bukkit.event.entity.EntityDamageByEntityEvent;
 import org.bukkit.event.entity.EntityDamageEvent;
 import org.bukkit.event.entity.EntityDeathEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.metadata.FixedMetadataValue;
 import org.bukkit.persistence.PersistentDataContainer;
@@ -27,6 +29,7 @@ import org.bukkit.potion.PotionEffectType;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.util.Vector;
 
+import java.lang.ref.WeakReference;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
@@ -40,8 +43,16 @@ public class BossManager implements Listener {
     private final Map<UUID, DungeonBoss> activeBosses = new ConcurrentHashMap<>();
     private final Map<UUID, BossBar> bossBars = new ConcurrentHashMap<>();
     private final Map<UUID, List<UUID>> bossParticipants = new ConcurrentHashMap<>();
+    
+    // Entity handles of active bosses; a fresh handle is needed whenever a boss's chunk reloads
+    private final Map<UUID, WeakReference<LivingEntity>> bossEntities = new ConcurrentHashMap<>();
+    // Active bosses whose chunk is currently unloaded, with the time it was unloaded
+    private final Map<UUID, Long> unloadedBosses = new ConcurrentHashMap<>();
     private final Random random = new Random();
 
+    // Bosses whose chunk stays unloaded longer than this are dropped
+    private static final long UNLOADED_BOSS_TIMEOUT = 10 * 60 * 1000L; // 10 minutes
+
     // Boss metadata keys
     private static final String BOSS_UUID_KEY = "dungeon_boss_uuid";
     private static final String BOSS_TYPE_KEY = "dungeon_boss_type";
@@ -67,20 +78,32 @@ public class BossManager implements Listener {
      * Process active boss abilities
      */
     private void processActiveBosses() {
-        // Create a copy to avoid concurrent modification
-        Set<UUID> bossIds = new HashSet<>(activeBosses.keySet());
+        long now = System.currentTimeMillis();
         
-        for (UUID bossId : bossIds) {
-            Entity entity = getBossEntity(bossId);
+        // Concurrent map iteration tolerates cleanupBoss removing entries
+        for (Map.Entry<UUID, DungeonBoss> entry : activeBosses.entrySet()) {
+            UUID bossId = entry.getKey();
+            
+            // Bosses in unloaded chunks keep their state for a while in case the chunk loads again
+            Long unloadedSince = unloadedBosses.get(bossId);
+            if (unloadedSince != null && now - unloadedSince < UNLOADED_BOSS_TIMEOUT) {
+                continue;
+            }
             
-            // Skip if boss is no longer valid or alive
-            if (entity == null || !entity.isValid() || !(entity instanceof LivingEntity) || ((LivingEntity) entity).isDead()) {
+            LivingEntity boss = getBossEntity(bossId);
+            
+            // Skip if boss is no longer valid or alive, or its chunk never came back
+            if (boss == null || !boss.isValid() || boss.isDead()) {
                 cleanupBoss(bossId);
                 continue;
             }
             
-            LivingEntity boss = (LivingEntity) entity;
-            DungeonBoss bossData = activeBosses.get(bossId);
+            // Loaded again without a load event reaching us
+            if (unloadedSince != null) {
+                markLoaded(bossId);
+            }
+            
+            DungeonBoss bossData = entry.getValue();
             
             // Process abilities
             processBossAbilities(boss, bossData);
@@ -91,17 +114,75 @@ public class BossManager implements Listener {
     }
 
     /**
-     * Get a boss entity by UUID
+     * Get a boss entity by UUID, using the cached handle while it is still valid
+     */
+    private LivingEntity getBossEntity(UUID bossId) {
+        WeakReference<LivingEntity> handle = bossEntities.get(bossId);
+        LivingEntity boss = handle != null ? handle.get() : null;
+        if (boss != null && boss.isValid()) {
+            return boss;
+        }
+        
+        Entity entity = Bukkit.getEntity(bossId);
+        if (!(entity instanceof LivingEntity)) {
+            bossEntities.remove(bossId);
+            return null;
+        }
+        
+        boss = (LivingEntity) entity;
+        bossEntities.put(bossId, new WeakReference<>(boss));
+        return boss;
+    }
+    
+    /**
+     * Pick up the new entity handles of bosses whose chunk was loaded
      */
-    private Entity getBossEntity(UUID bossId) {
-        for (World world : Bukkit.getWorlds()) {
-            for (Entity entity : world.getEntities()) {
-                if (entity.getUniqueId().equals(bossId)) {
-                    return entity;
+    @EventHandler
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        if (activeBosses.isEmpty()) return;
+        
+        for (Entity entity : event.getEntities()) {
+            UUID entityId = entity.getUniqueId();
+            if (entity instanceof LivingEntity && activeBosses.containsKey(entityId)) {
+                bossEntities.put(entityId, new WeakReference<>((LivingEntity) entity));
+                markLoaded(entityId);
+            }
+        }
+    }
+    
+    /**
+     * Pause bosses whose chunk was unloaded instead of treating them as gone,
+     * hiding their boss bar until they are loaded again
+     */
+    @EventHandler
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        if (activeBosses.isEmpty()) return;
+        
+        long now = System.currentTimeMillis();
+        for (Entity entity : event.getEntities()) {
+            UUID entityId = entity.getUniqueId();
+            if (activeBosses.containsKey(entityId)) {
+                bossEntities.remove(entityId);
+                unloadedBosses.put(entityId, now);
+                
+                BossBar bar = bossBars.get(entityId);
+                if (bar != null) {
+                    bar.setVisible(false);
                 }
             }
         }
-        return null;
+    }
+    
+    /**
+     * Resume a boss whose chunk was loaded again and show its boss bar
+     */
+    private void markLoaded(UUID bossId) {
+        if (unloadedBosses.remove(bossId) == null) return;
+        
+        BossBar bar = bossBars.get(bossId);
+        if (bar != null) {
+            bar.setVisible(true);
+        }
     }
 
     /**
@@ -172,6 +253,8 @@ public class BossManager implements Listener {
     private void cleanupBoss(UUID bossId) {
         // Remove from active bosses
         activeBosses.remove(bossId);
+        bossEntities.remove(bossId);
+        unloadedBosses.remove(bossId);
         
         // Remove boss bar
         BossBar bar = bossBars.remove(bossId);
@@ -230,6 +313,7 @@ public class BossManager implements Listener {
         // Store boss data
         DungeonBoss bossData = new DungeonBoss(template);
         activeBosses.put(boss.getUniqueId(), bossData);
+        bossEntities.put(boss.getUniqueId(), new WeakReference<>(boss));
         
         // Create boss bar
         BossBar bossBar = Bukkit.createBossBar(
@@ -4,6 +4,7 @@ import com.ubivismedia.aidungeon.AIDungeonGenerator;
 import com.ubivismedia.aidungeon.config.DungeonTheme;
 import com.ubivismedia.aidungeon.dungeons.BiomeArea;
 import com.ubivismedia.aidungeon.dungeons.DungeonManager;
+import com.ubivismedia.aidungeon.dungeons.GenerationTask;
 import com.ubivismedia.aidungeon.localization.LanguageManager;
 import com.ubivismedia.aidungeon.storage.DungeonData;
 import org.bukkit.ChatColor;
@@ -150,6 +151,8 @@ public class DungeonCommand implements CommandExecutor, TabCompleter {
         double explorationPercentage = plugin.getBiomeExplorationTracker().recordExploredChunk(
                 player,
                 world,
+                location.getBlockX() >> 4,
+                location.getBlockZ() >> 4,
                 biome
         );
 
@@ -214,7 +217,11 @@ public class DungeonCommand implements CommandExecutor, TabCompleter {
             return true;
         }
 
-        dungeonManager.queueDungeonGeneration(area, player);
+        if (!dungeonManager.queueDungeonGeneration(area, player, GenerationTask.PRIORITY_HIGH)) {
+            player.sendMessage(lang.getMessage("dungeon.generate.busy"));
+            return true;
+        }
+
         player.sendMessage(lang.getMessage("dungeon.generate.queued", area.getPrimaryBiome()));
         return true;
     }
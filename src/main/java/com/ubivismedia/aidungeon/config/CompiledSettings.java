@@ -0,0 +1,86 @@
+package com.ubivismedia.aidungeon.config;
+
+import org.bukkit.block.Biome;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the settings read on hot paths, resolved once when the
+ * configuration is loaded so lookups don't go through string paths.
+ * A new snapshot replaces the old one on reload (see {@link ConfigManager#getSettings()}).
+ */
+public final class CompiledSettings {
+
+    private final Map<Biome, DungeonTheme> biomeThemes;
+    private final Set<Biome> dungeonBiomes;
+    private final Set<String> worldBlacklist;
+    private final boolean dungeonPerBiome;
+    private final int minDistanceBetweenDungeons;
+    private final boolean questsEnabled;
+
+    /**
+     * Create a settings snapshot
+     * @param biomeThemes The resolved theme of every biome
+     * @param dungeonBiomes Biomes configured for dungeon discovery
+     */
+    public CompiledSettings(Map<Biome, DungeonTheme> biomeThemes, Set<Biome> dungeonBiomes,
+                            Set<String> worldBlacklist, boolean dungeonPerBiome,
+                            int minDistanceBetweenDungeons, boolean questsEnabled) {
+        this.biomeThemes = Collections.unmodifiableMap(biomeThemes.isEmpty()
+                ? new EnumMap<>(Biome.class) : new EnumMap<>(biomeThemes));
+        this.dungeonBiomes = Collections.unmodifiableSet(dungeonBiomes.isEmpty()
+                ? EnumSet.noneOf(Biome.class) : EnumSet.copyOf(dungeonBiomes));
+        this.worldBlacklist = Collections.unmodifiableSet(new HashSet<>(worldBlacklist));
+        this.dungeonPerBiome = dungeonPerBiome;
+        this.minDistanceBetweenDungeons = minDistanceBetweenDungeons;
+        this.questsEnabled = questsEnabled;
+    }
+
+    /**
+     * Get the theme of a biome
+     * @return The theme, or null if themes were not resolved for this biome
+     */
+    public DungeonTheme getThemeForBiome(Biome biome) {
+        return biomeThemes.get(biome);
+    }
+
+    /**
+     * Check if a biome is configured for dungeon generation
+     */
+    public boolean isDungeonBiome(Biome biome) {
+        return dungeonBiomes.contains(biome);
+    }
+
+    /**
+     * Check if dungeons may not be generated in a world
+     */
+    public boolean isWorldBlacklisted(String worldName) {
+        return worldBlacklist.contains(worldName);
+    }
+
+    /**
+     * Check if only one dungeon is generated per biome and world
+     */
+    public boolean isDungeonPerBiome() {
+        return dungeonPerBiome;
+    }
+
+    /**
+     * Get the minimum distance between dungeons in blocks
+     */
+    public int getMinDistanceBetweenDungeons() {
+        return minDistanceBetweenDungeons;
+    }
+
+    /**
+     * Check if the quest system is enabled
+     */
+    public boolean isQuestsEnabled() {
+        return questsEnabled;
+    }
+}
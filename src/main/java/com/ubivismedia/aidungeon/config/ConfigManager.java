@@ -22,6 +22,9 @@ public class ConfigManager {
     private final Map<String, DungeonTheme> themes = new HashMap<>();
     private final Map<Biome, String> biomeThemeMap = new HashMap<>();
 
+    // Snapshot of the hot-path settings, replaced as a whole on reload
+    private volatile CompiledSettings settings;
+
     // Flag to prevent infinite config loading loops
     private boolean isLoading = false;
 
@@ -67,6 +70,66 @@ public class ConfigManager {
             plugin.getLogger().warning("No biome-themes section found in dungeon.yml");
             createDefaultBiomeMappings();
         }
+
+        compileSettings();
+    }
+
+    /**
+     * Rebuild the settings snapshot from the current configuration and themes
+     */
+    public void compileSettings() {
+        FileConfiguration mainConfig = plugin.getConfig();
+        ConfigurationSection dungeonConfig = configLoader.getConfig("dungeon");
+
+        Map<Biome, DungeonTheme> biomeThemes = new EnumMap<>(Biome.class);
+        Set<Biome> dungeonBiomes = EnumSet.noneOf(Biome.class);
+        int unmapped = 0;
+
+        for (Biome biome : Biome.values()) {
+            String path = "biome-themes." + biome.name();
+
+            // Only biomes mapped in the main configuration are checked for dungeons
+            if (mainConfig.isSet(path)) {
+                dungeonBiomes.add(biome);
+            }
+
+            // Main configuration first, then dungeon config
+            String themeName = mainConfig.getString(path);
+            if (themeName == null) {
+                themeName = dungeonConfig.getString(path);
+            }
+            if (themeName == null) {
+                unmapped++;
+                themeName = "RUINS"; // Fallback default theme
+            }
+
+            DungeonTheme theme = getThemeByName(themeName);
+            if (theme == null) {
+                plugin.getLogger().severe("Could not find theme: " + themeName + " for biome: " + biome.name());
+                theme = getDefaultTheme();
+            }
+            biomeThemes.put(biome, theme);
+        }
+
+        if (unmapped > 0) {
+            plugin.getLogger().warning("No theme found for " + unmapped + " biome(s). Using default.");
+        }
+
+        settings = new CompiledSettings(
+                biomeThemes,
+                dungeonBiomes,
+                new HashSet<>(mainConfig.getStringList("settings.world-blacklist")),
+                mainConfig.getBoolean("settings.dungeon-per-biome", true),
+                mainConfig.getInt("settings.min-distance-between-dungeons", 1000),
+                mainConfig.getBoolean("quests.enabled", true)
+        );
+    }
+
+    /**
+     * Get the current settings snapshot
+     */
+    public CompiledSettings getSettings() {
+        return settings;
     }
 
     /**
@@ -282,40 +345,8 @@ public class ConfigManager {
      * Get the theme for a specific biome
      */
     public DungeonTheme getThemeForBiome(Biome biome) {
-        try {
-            // First, try to get the theme from the main configuration
-            String themeName = plugin.getConfig().getString("biome-themes." + biome.name());
-
-            // If not found in main config, try dungeon config
-            if (themeName == null) {
-                ConfigurationSection dungeonConfig = configLoader.getConfig("dungeon");
-                themeName = dungeonConfig.getString("biome-themes." + biome.name());
-            }
-
-            // If still not found, log a warning and use default
-            if (themeName == null) {
-                plugin.getLogger().warning("No theme found for biome: " + biome.name() + ". Using default.");
-                themeName = "RUINS"; // Fallback default theme
-            }
-
-            // Get theme by name
-            DungeonTheme theme = getThemeByName(themeName);
-
-            // Additional logging for debugging
-            if (theme == null) {
-                plugin.getLogger().severe("Could not find theme: " + themeName + " for biome: " + biome.name());
-                // Fallback to default theme
-                theme = getDefaultTheme();
-            }
-
-            return theme;
-        } catch (Exception e) {
-            // Log the full exception for debugging
-            plugin.getLogger().log(Level.SEVERE, "Error getting theme for biome: " + biome.name(), e);
-
-            // Return default theme in case of any error
-            return getDefaultTheme();
-        }
+        DungeonTheme theme = settings != null ? settings.getThemeForBiome(biome) : null;
+        return theme != null ? theme : getDefaultTheme();
     }
 
     /**
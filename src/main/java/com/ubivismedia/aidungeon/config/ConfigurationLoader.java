@@ -164,7 +164,21 @@ public class ConfigurationLoader {
                 "discovery.discovery-radius",
                 "discovery.enable-compass",
                 "discovery.show-on-map",
-                "discovery.hint-message"
+                "discovery.hint-message",
+                "discovery.chunk-samples-per-run",
+                "discovery.exploration-save-interval",
+                "discovery.biome-estimation.radius",
+                "discovery.biome-estimation.spacing",
+                "discovery.biome-estimation.threads",
+                "generation.async.enabled",
+                "generation.async.max-concurrent-generations",
+                "generation.async.max-queued-generations",
+                "generation.async.shutdown-timeout-seconds",
+                "generation.algorithm.optimization-generations",
+                "generation.algorithm.population-size",
+                "generation.algorithm.fitness-parallelism",
+                "generation.algorithm.room-transitions",
+                "generation.placement.tick-budget-ms"
         };
 
         // Import each specified path
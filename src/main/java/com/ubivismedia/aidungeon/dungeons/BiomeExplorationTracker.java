@@ -1,20 +1,46 @@
 package com.ubivismedia.aidungeon.dungeons;
 
+import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import com.ubivismedia.aidungeon.storage.ExplorationFile;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.block.Biome;
 import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.logging.Level;
 
 /**
- * Tracks how much of each biome players have explored
+ * Tracks how much of each biome players have explored.
+ * Every chunk is counted once per world; explored chunks are kept in
+ * {@link ExploredChunkMap}s and appended to one exploration file per world.
  */
 public class BiomeExplorationTracker {
 
+    private static final String FILE_EXTENSION = ".dat";
+
+    private final AIDungeonGenerator plugin;
+    private final File folder;
+
+    // Explored chunks by world name, only used on the main thread
+    private final Map<String, ExploredChunkMap> exploredChunks = new HashMap<>();
+
+    // Exploration files by world name
+    private final Map<String, ExplorationFile> files = new ConcurrentHashMap<>();
+
+    // Records waiting to be written, flushed off the main thread
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    // Sampled biome sizes, replacing the rough guesses once a world is estimated
+    private final BiomeSizeEstimator sizeEstimator;
+
+    private BukkitTask saveTask;
+
     // Store explored chunks per biome and world for each player
     private final Map<UUID, Map<String, Map<Biome, Integer>>> playerBiomeExploration = new ConcurrentHashMap<>();
 
@@ -30,14 +56,59 @@ public class BiomeExplorationTracker {
     // Store highest exploration percentage seen for each biome/world
     private final Map<String, Map<Biome, Double>> highestExplorationPercentage = new ConcurrentHashMap<>();
 
+    /**
+     * Create a new exploration tracker
+     */
+    public BiomeExplorationTracker(AIDungeonGenerator plugin) {
+        this.plugin = plugin;
+        this.folder = new File(plugin.getDataFolder(), "exploration");
+        this.sizeEstimator = new BiomeSizeEstimator(plugin, new File(folder, "biome-sizes"), this::resetEstimates);
+    }
+
+    /**
+     * Load the explored chunks of all worlds and start saving new ones periodically
+     */
+    public void initialize() {
+        if (!folder.exists() && !folder.mkdirs()) {
+            plugin.getLogger().severe("Could not create exploration storage folder " + folder.getPath());
+        }
+
+        loadExploredChunks();
+
+        // Sample biome sizes of the loaded worlds in the background; other worlds start when first explored
+        for (World world : Bukkit.getWorlds()) {
+            sizeEstimator.start(world);
+        }
+
+        long interval = Math.max(1, plugin.getConfig().getInt("discovery.exploration-save-interval", 30)) * 20L;
+        saveTask = Bukkit.getScheduler().runTaskTimer(plugin, this::saveExploredChunks, interval, interval);
+    }
+
+    /**
+     * Stop the periodic save and write all newly explored chunks before returning
+     */
+    public void shutdown() {
+        if (saveTask != null) {
+            saveTask.cancel();
+            saveTask = null;
+        }
+
+        sizeEstimator.shutdown();
+
+        queuePendingChunks();
+        flushPendingWrites();
+    }
+
     /**
      * Record that a player has explored a chunk with a particular biome
      * @param player The player
      * @param world The world
+     * @param chunkX The chunk X coordinate
+     * @param chunkZ The chunk Z coordinate
      * @param biome The biome type
      * @return The percentage of this biome type explored (0.0 - 1.0)
      */
-    public double recordExploredChunk(Player player, World world, Biome biome) {
+    public double recordExploredChunk(Player player, World world, int chunkX, int chunkZ, Biome biome) {
         UUID playerId = player.getUniqueId();
         String worldName = world.getName();
 
@@ -55,10 +126,13 @@ public class BiomeExplorationTracker {
         int playerExplored = biomeExploration.getOrDefault(biome, 0) + 1;
         biomeExploration.put(biome, playerExplored);
 
-        // Increment total explored chunks across all players
+        // Increment total explored chunks across all players, counting each chunk only once
         totalExploredChunks.putIfAbsent(worldName, new ConcurrentHashMap<>());
-        int totalExplored = totalExploredChunks.get(worldName).getOrDefault(biome, 0) + 1;
-        totalExploredChunks.get(worldName).put(biome, totalExplored);
+        int totalExplored = totalExploredChunks.get(worldName).getOrDefault(biome, 0);
+        if (getExploredChunks(worldName).add(chunkX, chunkZ, biome)) {
+            totalExplored++;
+            totalExploredChunks.get(worldName).put(biome, totalExplored);
+        }
 
         // Get estimated total for this biome
         estimatedBiomeChunks.putIfAbsent(worldName, new ConcurrentHashMap<>());
@@ -92,20 +166,27 @@ public class BiomeExplorationTracker {
     public double getExplorationPercentage(World world, Biome biome) {
         String worldName = world.getName();
 
-        // If we haven't tracked this world/biome combo, return 0
+        // If we haven't tracked this world/biome combo since starting, use the stored chunks
         if (!highestExplorationPercentage.containsKey(worldName) ||
                 !highestExplorationPercentage.get(worldName).containsKey(biome)) {
-            return 0.0;
+            int totalExplored = totalExploredChunks.getOrDefault(worldName, Collections.emptyMap()).getOrDefault(biome, 0);
+            return totalExplored > 0 ? (double) totalExplored / getEstimatedBiomeSize(world, biome) : 0.0;
         }
 
         return highestExplorationPercentage.get(worldName).get(biome);
     }
 
     /**
-     * Get an estimated size for a biome type
+     * Get an estimated size for a biome type in chunks
      */
     private int getEstimatedBiomeSize(World world, Biome biome) {
-        // Very rough estimates - adjust these based on your world generation
+        sizeEstimator.start(world);
+        int sampled = sizeEstimator.getEstimatedChunks(world.getName(), biome);
+        if (sampled > 0) {
+            return sampled;
+        }
+
+        // Very rough estimates until the world has been sampled
         switch (biome) {
             case OCEAN:
             case DEEP_OCEAN:
@@ -152,6 +233,16 @@ public class BiomeExplorationTracker {
         generatedDungeons.get(worldName).put(biome, true);
     }
 
+    /**
+     * Clear the mark of a biome whose dungeon was abandoned before it was placed
+     */
+    public void clearDungeonGenerated(String worldName, Biome biome) {
+        Map<Biome, Boolean> biomes = generatedDungeons.get(worldName);
+        if (biomes != null) {
+            biomes.remove(biome);
+        }
+    }
+
     /**
      * Reset exploration data for a player
      */
@@ -196,4 +287,130 @@ public class BiomeExplorationTracker {
                 biome.name(), playerExplored, totalExplored, estimatedTotal, percentage
         );
     }
-}
\ No newline at end of file
+
+    /**
+     * Drop the estimates and percentages of a world that were based on guessed biome sizes
+     */
+    private void resetEstimates(String worldName) {
+        estimatedBiomeChunks.remove(worldName);
+        highestExplorationPercentage.remove(worldName);
+    }
+
+    /**
+     * Get the explored chunks of a world
+     */
+    private ExploredChunkMap getExploredChunks(String worldName) {
+        return exploredChunks.computeIfAbsent(worldName, name -> new ExploredChunkMap());
+    }
+
+    /**
+     * Queue the chunks explored since the last save and write them asynchronously
+     */
+    private void saveExploredChunks() {
+        if (queuePendingChunks()) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, this::flushPendingWrites);
+        }
+    }
+
+    /**
+     * Encode the newly explored chunks of every world into pending writes
+     * @return true if anything was queued
+     */
+    private boolean queuePendingChunks() {
+        boolean queued = false;
+
+        for (Map.Entry<String, ExploredChunkMap> entry : exploredChunks.entrySet()) {
+            List<byte[]> payloads = entry.getValue().drainPending();
+            if (!payloads.isEmpty()) {
+                pendingWrites.add(new PendingWrite(entry.getKey(), payloads));
+                queued = true;
+            }
+        }
+
+        return queued;
+    }
+
+    /**
+     * Append all pending records to their exploration files
+     */
+    private synchronized void flushPendingWrites() {
+        Map<String, List<byte[]>> byWorld = new LinkedHashMap<>();
+        PendingWrite write;
+        while ((write = pendingWrites.poll()) != null) {
+            byWorld.computeIfAbsent(write.worldName, name -> new ArrayList<>()).addAll(write.payloads);
+        }
+
+        for (Map.Entry<String, List<byte[]>> entry : byWorld.entrySet()) {
+            try {
+                getFile(entry.getKey()).append(entry.getValue());
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not save explored chunks of world " + entry.getKey(), e);
+            }
+        }
+    }
+
+    /**
+     * Get the exploration file of a world
+     */
+    private ExplorationFile getFile(String worldName) {
+        return files.computeIfAbsent(worldName, name ->
+                new ExplorationFile(new File(folder, name + FILE_EXTENSION), plugin.getLogger()));
+    }
+
+    /**
+     * Load the explored chunks of every world and count them per biome
+     */
+    private void loadExploredChunks() {
+        File[] worldFiles = folder.listFiles((dir, name) -> name.endsWith(FILE_EXTENSION));
+        if (worldFiles == null) {
+            return;
+        }
+
+        Map<String, Biome> biomesByName = new HashMap<>();
+        for (File file : worldFiles) {
+            String worldName = file.getName().substring(0, file.getName().length() - FILE_EXTENSION.length());
+            ExploredChunkMap explored = getExploredChunks(worldName);
+            Map<Biome, Integer> totals = totalExploredChunks.computeIfAbsent(worldName, name -> new ConcurrentHashMap<>());
+
+            try {
+                getFile(worldName).load((biomeName, chunkX, chunkZ) -> {
+                    if (!explored.mark(chunkX, chunkZ)) {
+                        return;
+                    }
+
+                    // Chunks of biomes this server version doesn't know still count as explored
+                    Biome biome = biomesByName.computeIfAbsent(biomeName, BiomeExplorationTracker::parseBiome);
+                    if (biome != null) {
+                        totals.merge(biome, 1, Integer::sum);
+                    }
+                });
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not load explored chunks of world " + worldName, e);
+                continue;
+            }
+
+            plugin.getLogger().info("Loaded " + explored.size() + " explored chunks in world " + worldName);
+        }
+    }
+
+    private static Biome parseBiome(String name) {
+        try {
+            return Biome.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Encoded chunk records of a world waiting to be written
+     */
+    private static class PendingWrite {
+        final String worldName;
+        final List<byte[]> payloads;
+
+        PendingWrite(String worldName, List<byte[]> payloads) {
+            this.worldName = worldName;
+            this.payloads = payloads;
+        }
+    }
+}
@@ -0,0 +1,315 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.WorldBorder;
+import org.bukkit.block.Biome;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.generator.BiomeProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Estimates how many chunks of each biome a world has by sampling its biome
+ * provider on a coarse grid around the world border's center.
+ * Grid rows are sampled in parallel off the main thread, and the progress is
+ * cached per world and seed, so an interrupted estimate resumes after a restart
+ * and a finished one is never sampled again.
+ */
+public class BiomeSizeEstimator {
+
+    private static final Biome[] BIOMES = Biome.values();
+
+    // Completed rows between progress saves
+    private static final int SAVE_INTERVAL_ROWS = 16;
+
+    private final AIDungeonGenerator plugin;
+    private final File folder;
+    private final Consumer<String> onComplete;
+    private final ExecutorService executor;
+
+    private final int radiusBlocks;
+    private final int spacingBlocks;
+
+    // Estimates by world name, started or finished
+    private final Map<String, Estimate> estimates = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new estimator
+     * @param folder Folder for the cached estimates
+     * @param onComplete Called on the main thread with the world name when a world's estimate is finished
+     */
+    public BiomeSizeEstimator(AIDungeonGenerator plugin, File folder, Consumer<String> onComplete) {
+        this.plugin = plugin;
+        this.folder = folder;
+        this.onComplete = onComplete;
+        this.radiusBlocks = Math.max(16, plugin.getConfig().getInt("discovery.biome-estimation.radius", 4096));
+        this.spacingBlocks = Math.max(16, plugin.getConfig().getInt("discovery.biome-estimation.spacing", 64));
+
+        int threads = Math.max(1, plugin.getConfig().getInt("discovery.biome-estimation.threads",
+                Math.max(1, Runtime.getRuntime().availableProcessors() / 2)));
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "AIDungeon-BiomeSampler-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    /**
+     * Start estimating a world unless it was already started. Must be called on the main thread.
+     */
+    public void start(World world) {
+        if (estimates.containsKey(world.getName())) {
+            return;
+        }
+
+        // Sample within the world border, up to the configured radius around its center
+        WorldBorder border = world.getWorldBorder();
+        int radiusChunks = (int) Math.min(radiusBlocks, border.getSize() / 2) >> 4;
+        int spacingChunks = spacingBlocks >> 4;
+        int centerChunkX = border.getCenter().getBlockX() >> 4;
+        int centerChunkZ = border.getCenter().getBlockZ() >> 4;
+        int y = Math.max(world.getMinHeight(), Math.min(world.getMaxHeight() - 1, world.getSeaLevel()));
+
+        // Custom generators may bring their own provider
+        BiomeProvider provider = world.getBiomeProvider();
+        if (provider == null) {
+            provider = world.vanillaBiomeProvider();
+        }
+
+        // Copies of a world share environment and seed, so the name keeps their progress apart
+        String fileName = world.getName().replaceAll("[^A-Za-z0-9_.-]", "_") + "-"
+                + world.getEnvironment().name().toLowerCase(Locale.ROOT) + "-" + world.getSeed() + ".yml";
+        Estimate estimate = new Estimate(world, provider, new File(folder, fileName),
+                centerChunkX - radiusChunks, centerChunkZ - radiusChunks,
+                radiusChunks * 2 / spacingChunks + 1, spacingChunks, y);
+        estimates.put(world.getName(), estimate);
+
+        estimate.loadProgress();
+        if (estimate.complete) {
+            return;
+        }
+
+        // Rows are marked done by the sampling threads, so iterate a copy
+        BitSet rowsDone = (BitSet) estimate.rowsDone.clone();
+        plugin.getLogger().info("Estimating biome sizes of world " + world.getName() + " ("
+                + (estimate.size - rowsDone.cardinality()) + " of " + estimate.size + " rows left)");
+        for (int row = rowsDone.nextClearBit(0); row < estimate.size; row = rowsDone.nextClearBit(row + 1)) {
+            int sampledRow = row;
+            executor.execute(() -> sampleRow(estimate, sampledRow));
+        }
+    }
+
+    /**
+     * Get the estimated number of chunks of a biome in a world
+     * @return The estimate, or -1 if the world has not been fully sampled yet
+     */
+    public int getEstimatedChunks(String worldName, Biome biome) {
+        Estimate estimate = estimates.get(worldName);
+        return estimate != null && estimate.complete ? estimate.getChunks(biome) : -1;
+    }
+
+    /**
+     * Stop sampling and save the progress of unfinished estimates
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+        for (Estimate estimate : estimates.values()) {
+            if (!estimate.complete) {
+                estimate.saveProgress();
+            }
+        }
+    }
+
+    private void sampleRow(Estimate estimate, int row) {
+        if (estimate.failed) {
+            return;
+        }
+
+        int[] counts = new int[BIOMES.length];
+        int blockZ = ((estimate.minChunkZ + row * estimate.spacing) << 4) + 8;
+
+        try {
+            for (int column = 0; column < estimate.size; column++) {
+                int blockX = ((estimate.minChunkX + column * estimate.spacing) << 4) + 8;
+                counts[estimate.provider.getBiome(estimate.world, blockX, estimate.y, blockZ).ordinal()]++;
+            }
+        } catch (RuntimeException e) {
+            // The row stays unfinished and is sampled again after a restart
+            if (!estimate.failed) {
+                estimate.failed = true;
+                plugin.getLogger().log(Level.WARNING, "Could not sample biomes of world " + estimate.world.getName(), e);
+            }
+            return;
+        }
+
+        if (estimate.completeRow(row, counts)) {
+            plugin.getLogger().info("Estimated biome sizes of world " + estimate.world.getName()
+                    + " from " + estimate.size * estimate.size + " samples");
+            if (plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> onComplete.accept(estimate.world.getName()));
+            }
+        }
+    }
+
+    /**
+     * Sampling state of one world: a square grid of size x size samples,
+     * spacing chunks apart, of which whole rows are completed at a time
+     */
+    private class Estimate {
+        final World world;
+        final BiomeProvider provider;
+        final File file;
+        final int minChunkX;
+        final int minChunkZ;
+        final int size;
+        final int spacing;
+        final int y;
+
+        // Guarded by this
+        final BitSet rowsDone = new BitSet();
+        final int[] counts = new int[BIOMES.length];
+        int rowsSinceSave;
+
+        volatile boolean complete;
+        volatile boolean failed;
+
+        Estimate(World world, BiomeProvider provider, File file, int minChunkX, int minChunkZ,
+                 int size, int spacing, int y) {
+            this.world = world;
+            this.provider = provider;
+            this.file = file;
+            this.minChunkX = minChunkX;
+            this.minChunkZ = minChunkZ;
+            this.size = size;
+            this.spacing = spacing;
+            this.y = y;
+        }
+
+        /**
+         * Get the chunks of a biome; a biome the grid missed is smaller than one sample cell
+         */
+        int getChunks(Biome biome) {
+            return Math.max(1, counts[biome.ordinal()]) * spacing * spacing;
+        }
+
+        /**
+         * Add the samples of a finished row
+         * @return true if this was the last row
+         */
+        synchronized boolean completeRow(int row, int[] rowCounts) {
+            if (complete || rowsDone.get(row)) {
+                return false;
+            }
+
+            rowsDone.set(row);
+            for (int i = 0; i < rowCounts.length; i++) {
+                counts[i] += rowCounts[i];
+            }
+
+            if (rowsDone.cardinality() == size) {
+                complete = true;
+                saveProgress();
+                return true;
+            }
+
+            if (++rowsSinceSave >= SAVE_INTERVAL_ROWS) {
+                saveProgress();
+            }
+            return false;
+        }
+
+        /**
+         * Restore the cached progress if it was sampled with the same grid
+         */
+        synchronized void loadProgress() {
+            if (!file.exists()) {
+                return;
+            }
+
+            YamlConfiguration data = YamlConfiguration.loadConfiguration(file);
+            if (data.getInt("min-chunk-x") != minChunkX || data.getInt("min-chunk-z") != minChunkZ
+                    || data.getInt("size") != size || data.getInt("spacing") != spacing || data.getInt("y") != y) {
+                // Sampled with other settings, start over
+                return;
+            }
+
+            List<Long> rows = data.getLongList("rows-done");
+            long[] words = new long[rows.size()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = rows.get(i);
+            }
+            rowsDone.or(BitSet.valueOf(words));
+
+            ConfigurationSection countsSection = data.getConfigurationSection("counts");
+            if (countsSection != null) {
+                for (String biomeName : countsSection.getKeys(false)) {
+                    try {
+                        counts[Biome.valueOf(biomeName).ordinal()] += countsSection.getInt(biomeName);
+                    } catch (IllegalArgumentException e) {
+                        // Biome removed in this server version
+                    }
+                }
+            }
+
+            complete = rowsDone.cardinality() >= size;
+        }
+
+        /**
+         * Write the sampled rows and counts to the cache file
+         */
+        synchronized void saveProgress() {
+            rowsSinceSave = 0;
+
+            YamlConfiguration data = new YamlConfiguration();
+            data.set("min-chunk-x", minChunkX);
+            data.set("min-chunk-z", minChunkZ);
+            data.set("size", size);
+            data.set("spacing", spacing);
+            data.set("y", y);
+
+            long[] words = rowsDone.toLongArray();
+            Long[] rows = new Long[words.length];
+            for (int i = 0; i < words.length; i++) {
+                rows[i] = words[i];
+            }
+            data.set("rows-done", Arrays.asList(rows));
+
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] > 0) {
+                    data.set("counts." + BIOMES[i].name(), counts[i]);
+                }
+            }
+
+            try {
+                if (!folder.exists()) {
+                    folder.mkdirs();
+                }
+                File temp = new File(folder, file.getName() + ".tmp");
+                Files.write(temp.toPath(), data.saveToString().getBytes(StandardCharsets.UTF_8));
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Could not save biome estimate of world " + world.getName(), e);
+            }
+        }
+    }
+}
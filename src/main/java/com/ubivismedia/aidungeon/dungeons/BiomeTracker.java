@@ -109,7 +109,7 @@ public class BiomeTracker {
      * Check if a biome is configured for dungeon generation
      */
     private boolean isDungeonBiome(Biome biome) {
-        return plugin.getConfig().isSet("biome-themes." + biome.name());
+        return plugin.getConfigManager().getSettings().isDungeonBiome(biome);
     }
     
     /**
@@ -0,0 +1,185 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.logging.Level;
+
+/**
+ * Drains queued dungeon block writes on the main thread, spreading the work
+ * across ticks so that no single tick spends more than the configured budget
+ */
+public class BlockPlacementEngine {
+
+    // How many blocks to place between clock checks
+    private static final int BLOCKS_PER_TIME_CHECK = 64;
+
+    private final AIDungeonGenerator plugin;
+    private final long tickBudgetNanos;
+    private final Deque<PlacementJob> jobs = new ArrayDeque<>();
+    private BukkitTask task;
+
+    /**
+     * Create a new placement engine
+     */
+    public BlockPlacementEngine(AIDungeonGenerator plugin) {
+        this.plugin = plugin;
+
+        double budgetMs = plugin.getConfig().getDouble("generation.placement.tick-budget-ms", 10.0);
+        this.tickBudgetNanos = (long) (Math.max(0.5, budgetMs) * 1_000_000L);
+    }
+
+    /**
+     * Queue a placement job (must be called on main thread)
+     * @param world The world to place blocks in
+     * @param baseY The Y coordinate the queue's relative heights are based on
+     * @param queue The planned block writes
+     * @param listener Receives progress and completion callbacks on the main thread
+     */
+    public void submit(World world, int baseY, BlockPlacementQueue queue, PlacementListener listener) {
+        jobs.add(new PlacementJob(world, baseY, queue, listener));
+
+        // While disabling, jobs are left for shutdown() to place
+        if (task == null && plugin.isEnabled()) {
+            task = new BukkitRunnable() {
+                @Override
+                public void run() {
+                    tick();
+                }
+            }.runTaskTimer(plugin, 1L, 1L);
+        }
+    }
+
+    /**
+     * Place blocks until the tick budget is used up (package-private so benchmarks can drive ticks)
+     */
+    void tick() {
+        long deadline = System.nanoTime() + tickBudgetNanos;
+
+        while (!jobs.isEmpty() && System.nanoTime() < deadline) {
+            PlacementJob job = jobs.peek();
+
+            try {
+                do {
+                    job.queue.drain(job.world, job.baseY, BLOCKS_PER_TIME_CHECK);
+                } while (!job.queue.isEmpty() && System.nanoTime() < deadline);
+
+                job.listener.onProgress(job.queue.getPlaced(), job.queue.getTotal());
+
+                if (job.queue.isEmpty()) {
+                    jobs.poll();
+                    job.listener.onComplete();
+                }
+            } catch (Exception e) {
+                jobs.poll();
+                plugin.getLogger().log(Level.SEVERE, "Error placing dungeon blocks", e);
+                job.listener.onFailure(e);
+            }
+        }
+
+        if (jobs.isEmpty() && task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    /**
+     * Drop the jobs placing blocks in a world, e.g. because it is being unloaded
+     * @return Number of jobs dropped
+     */
+    public int cancelWorld(World world) {
+        int cancelled = 0;
+        Iterator<PlacementJob> iterator = jobs.iterator();
+        while (iterator.hasNext()) {
+            PlacementJob job = iterator.next();
+            if (job.world.equals(world)) {
+                iterator.remove();
+                cancelled++;
+                try {
+                    job.listener.onCancelled();
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.SEVERE, "Error cancelling dungeon placement", e);
+                }
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Finish all pending jobs immediately (used when the plugin is disabled)
+     */
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+
+        while (!jobs.isEmpty()) {
+            PlacementJob job = jobs.poll();
+            try {
+                job.queue.drainAll(job.world, job.baseY);
+                job.listener.onComplete();
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Error placing dungeon blocks", e);
+                job.listener.onFailure(e);
+            }
+        }
+    }
+
+    /**
+     * Get the number of placement jobs that have not finished yet
+     */
+    public int getPendingJobs() {
+        return jobs.size();
+    }
+
+    /**
+     * Callbacks for placement progress, always invoked on the main thread
+     */
+    public interface PlacementListener {
+
+        /**
+         * Called after each tick in which blocks of this job were placed
+         */
+        default void onProgress(int placed, int total) {
+        }
+
+        /**
+         * Called once all blocks have been placed
+         */
+        void onComplete();
+
+        /**
+         * Called if placement was aborted by an error
+         */
+        void onFailure(Exception e);
+
+        /**
+         * Called if placement was stopped before all blocks were placed
+         */
+        default void onCancelled() {
+        }
+    }
+
+    /**
+     * A queued placement job
+     */
+    private static class PlacementJob {
+        final World world;
+        final int baseY;
+        final BlockPlacementQueue queue;
+        final PlacementListener listener;
+
+        PlacementJob(World world, int baseY, BlockPlacementQueue queue, PlacementListener listener) {
+            this.world = world;
+            this.baseY = baseY;
+            this.queue = queue;
+            this.listener = listener;
+        }
+    }
+}
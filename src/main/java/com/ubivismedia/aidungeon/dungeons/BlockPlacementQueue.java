@@ -0,0 +1,171 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Queue of pending block writes grouped by chunk.
+ * Y coordinates are stored relative to the dungeon floor so a queue can be
+ * planned off the main thread before the final placement height is known.
+ */
+public class BlockPlacementQueue {
+
+    private final Map<Long, ChunkBatch> batchesByChunk = new LinkedHashMap<>();
+    private final Deque<ChunkBatch> pending = new ArrayDeque<>();
+    private int total;
+    private int placed;
+    private boolean sealed;
+
+    /**
+     * Queue a block write at an absolute X/Z and a Y relative to the floor
+     */
+    public void add(int x, int relativeY, int z, Material material) {
+        if (sealed) {
+            throw new IllegalStateException("Cannot add blocks to a queue that is being drained");
+        }
+
+        long key = chunkKey(x >> 4, z >> 4);
+        ChunkBatch batch = batchesByChunk.get(key);
+        if (batch == null) {
+            batch = new ChunkBatch();
+            batchesByChunk.put(key, batch);
+        }
+
+        batch.add(x, relativeY, z, material);
+        total++;
+    }
+
+    /**
+     * Get the material that will end up at a position once the queue is drained
+     * @return The last material queued there, or null if nothing is queued there
+     */
+    public Material getQueuedMaterial(int x, int relativeY, int z) {
+        ChunkBatch batch = batchesByChunk.get(chunkKey(x >> 4, z >> 4));
+        return batch != null ? batch.lastAt(x, relativeY, z) : null;
+    }
+
+    /**
+     * Place up to maxBlocks queued blocks, finishing one chunk before starting the next
+     * @return Number of blocks placed
+     */
+    public int drain(World world, int baseY, int maxBlocks) {
+        seal();
+
+        int count = 0;
+        while (count < maxBlocks && !pending.isEmpty()) {
+            ChunkBatch batch = pending.peek();
+            count += batch.drain(world, baseY, maxBlocks - count);
+
+            if (batch.isDone()) {
+                pending.poll();
+            }
+        }
+
+        placed += count;
+        return count;
+    }
+
+    /**
+     * Place every queued block immediately
+     */
+    public void drainAll(World world, int baseY) {
+        drain(world, baseY, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Check whether all queued blocks have been placed
+     */
+    public boolean isEmpty() {
+        seal();
+        return pending.isEmpty();
+    }
+
+    /**
+     * Get the total number of queued blocks
+     */
+    public int getTotal() {
+        return total;
+    }
+
+    /**
+     * Get the number of blocks placed so far
+     */
+    public int getPlaced() {
+        return placed;
+    }
+
+    /**
+     * Get the number of chunks touched by this queue
+     */
+    public int getChunkCount() {
+        return batchesByChunk.size();
+    }
+
+    private void seal() {
+        if (!sealed) {
+            sealed = true;
+            pending.addAll(batchesByChunk.values());
+        }
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Block writes for a single chunk, kept in insertion order so later
+     * writes to the same position still win
+     */
+    private static class ChunkBatch {
+        private int[] coords = new int[48];
+        private Material[] materials = new Material[16];
+        private int size;
+        private int cursor;
+
+        void add(int x, int y, int z, Material material) {
+            if (size == materials.length) {
+                materials = Arrays.copyOf(materials, size * 2);
+                coords = Arrays.copyOf(coords, size * 6);
+            }
+
+            int i = size * 3;
+            coords[i] = x;
+            coords[i + 1] = y;
+            coords[i + 2] = z;
+            materials[size] = material;
+            size++;
+        }
+
+        Material lastAt(int x, int y, int z) {
+            for (int n = size - 1; n >= 0; n--) {
+                int i = n * 3;
+                if (coords[i] == x && coords[i + 1] == y && coords[i + 2] == z) {
+                    return materials[n];
+                }
+            }
+            return null;
+        }
+
+        int drain(World world, int baseY, int maxBlocks) {
+            int end = (int) Math.min((long) cursor + maxBlocks, size);
+            int start = cursor;
+
+            for (; cursor < end; cursor++) {
+                int i = cursor * 3;
+                world.setType(coords[i], baseY + coords[i + 1], coords[i + 2], materials[cursor]);
+            }
+
+            return cursor - start;
+        }
+
+        boolean isDone() {
+            return cursor >= size;
+        }
+    }
+}
@@ -15,10 +15,18 @@ import java.util.*;
  */
 public class DungeonLayout {
     
-    // Grid representation of the dungeon
+    private static final RoomType[] ROOM_TYPES = RoomType.values();
+    
+    // Grid representation of the dungeon, one room type ordinal per cell (index x * size + y)
     private final int size;
-    private final RoomType[][] grid;
-    private final Map<RoomType, List<Vector>> roomPositions;
+    private final byte[] cells;
+    
+    // Cells of each non-empty room type, and each cell's slot in its type's index
+    private final PositionIndex[] roomIndices;
+    private final int[] indexSlots;
+    
+    // Position lists built on demand from the indices, null when out of date
+    private final List<Vector>[] roomPositions;
     private final Map<Vector, String> bossTypes = new HashMap<>();
     
     // Theme for this dungeon
@@ -28,29 +36,35 @@ public class DungeonLayout {
     private int entranceX;
     private int entranceY;
     
-    // Random for placements
-    private final Random random = new Random();
+    // Seed the layout was generated from, also used for block placement
+    private final long seed;
     
     /**
-     * Create a new empty dungeon layout
+     * Create a new empty dungeon layout with a random seed
      */
     public DungeonLayout(int size, DungeonTheme theme) {
+        this(size, theme, new Random().nextLong());
+    }
+    
+    /**
+     * Create a new empty dungeon layout
+     */
+    @SuppressWarnings("unchecked")
+    public DungeonLayout(int size, DungeonTheme theme, long seed) {
         this.size = size;
-        this.grid = new RoomType[size][size];
+        this.seed = seed;
         this.theme = theme;
-        this.roomPositions = new HashMap<>();
         
-        // Initialize all cells to empty
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                grid[x][y] = RoomType.EMPTY;
-            }
-        }
+        // All cells start empty (ordinal 0)
+        this.cells = new byte[size * size];
+        this.indexSlots = new int[size * size];
         
-        // Initialize room position lists for each type
-        for (RoomType type : RoomType.values()) {
-            roomPositions.put(type, new ArrayList<>());
+        // Initialize room position indices for each type
+        this.roomIndices = new PositionIndex[ROOM_TYPES.length];
+        for (int i = 0; i < ROOM_TYPES.length; i++) {
+            roomIndices[i] = new PositionIndex();
         }
+        this.roomPositions = new List[ROOM_TYPES.length];
     }
     
     /**
@@ -61,18 +75,26 @@ public class DungeonLayout {
             return;
         }
         
-        // Remove from previous room type list
-        RoomType oldType = grid[x][y];
-        if (oldType != RoomType.EMPTY) {
-            roomPositions.get(oldType).removeIf(v -> v.getBlockX() == x && v.getBlockZ() == y);
+        int cell = x * size + y;
+        int oldOrdinal = cells[cell];
+        int newOrdinal = type.ordinal();
+        if (oldOrdinal == newOrdinal) {
+            return;
+        }
+        
+        // Remove from previous room type index
+        if (oldOrdinal != RoomType.EMPTY.ordinal()) {
+            roomIndices[oldOrdinal].remove(indexSlots[cell], indexSlots);
+            roomPositions[oldOrdinal] = null;
         }
         
         // Set new type
-        grid[x][y] = type;
+        cells[cell] = (byte) newOrdinal;
         
-        // Add to new room type list if not empty
+        // Add to new room type index if not empty
         if (type != RoomType.EMPTY) {
-            roomPositions.get(type).add(new Vector(x, 0, y));
+            indexSlots[cell] = roomIndices[newOrdinal].add(cell);
+            roomPositions[newOrdinal] = null;
         }
     }
     
@@ -83,7 +105,7 @@ public class DungeonLayout {
         if (x < 0 || x >= size || y < 0 || y >= size) {
             return RoomType.EMPTY;
         }
-        return grid[x][y];
+        return ROOM_TYPES[cells[x * size + y]];
     }
     
     /**
@@ -94,10 +116,32 @@ public class DungeonLayout {
     }
     
     /**
-     * Get all room positions of a specific type
+     * Get all room positions of a specific type, ordered by X then Y.
+     * The returned list is read-only and is rebuilt after the layout changes.
      */
     public List<Vector> getRoomPositions(RoomType type) {
-        return roomPositions.getOrDefault(type, Collections.emptyList());
+        if (type == RoomType.EMPTY) {
+            return Collections.emptyList();
+        }
+        
+        List<Vector> positions = roomPositions[type.ordinal()];
+        if (positions == null) {
+            int[] sorted = roomIndices[type.ordinal()].toSortedArray();
+            List<Vector> list = new ArrayList<>(sorted.length);
+            for (int cell : sorted) {
+                list.add(new Vector(cell / size, 0, cell % size));
+            }
+            positions = Collections.unmodifiableList(list);
+            roomPositions[type.ordinal()] = positions;
+        }
+        return positions;
+    }
+    
+    /**
+     * Get the number of rooms of a specific type
+     */
+    public int getRoomCount(RoomType type) {
+        return type == RoomType.EMPTY ? 0 : roomIndices[type.ordinal()].count;
     }
     
     /**
@@ -130,6 +174,13 @@ public class DungeonLayout {
         return size;
     }
     
+    /**
+     * Get the seed this layout was generated from
+     */
+    public long getSeed() {
+        return seed;
+    }
+    
     /**
      * Get the theme of this dungeon
      */
@@ -138,15 +189,40 @@ public class DungeonLayout {
     }
     
     /**
-     * Place the dungeon in the world at the specified location
+     * Place the dungeon in the world at the specified location.
+     * This places every block in one go; large dungeons should be planned with
+     * {@link #planPlacement(int, int)} and drained by a {@link BlockPlacementEngine}
      */
     public void placeInWorld(Location baseLocation) {
         World world = baseLocation.getWorld();
         if (world == null) return;
         
-        int baseX = baseLocation.getBlockX() - (size / 2);
-        int baseY = baseLocation.getBlockY();
-        int baseZ = baseLocation.getBlockZ() - (size / 2);
+        planPlacement(baseLocation.getBlockX(), baseLocation.getBlockZ())
+                .drainAll(world, baseLocation.getBlockY());
+    }
+    
+    /**
+     * Plan all block writes for this dungeon centered on the given X/Z.
+     * Heights in the returned queue are relative to the dungeon floor, so this
+     * does not touch the world and is safe to call from an async thread
+     */
+    public BlockPlacementQueue planPlacement(int centerX, int centerZ) {
+        return planPlacement(centerX, centerZ, new DungeonManifest.Builder());
+    }
+    
+    /**
+     * Plan all block writes for this dungeon and record the features it places
+     * @param manifest Receives the rooms, chests, spawners and traps, with Y relative to the floor
+     */
+    public BlockPlacementQueue planPlacement(int centerX, int centerZ, DungeonManifest.Builder manifest) {
+        BlockPlacementQueue queue = new BlockPlacementQueue();
+        
+        // Material choices are seeded so the same layout always places the same blocks
+        Random random = new Random(seed);
+        
+        int baseX = centerX - (size / 2);
+        int baseY = 0;
+        int baseZ = centerZ - (size / 2);
         
         // Set of blocks we've already placed to avoid duplicates
         Set<Vector> placedBlocks = new HashSet<>();
@@ -154,9 +230,10 @@ public class DungeonLayout {
         // Generate rooms and corridors
         for (int x = 0; x < size; x++) {
             for (int z = 0; z < size; z++) {
-                RoomType type = grid[x][z];
+                RoomType type = ROOM_TYPES[cells[x * size + z]];
                 if (type != RoomType.EMPTY) {
-                    placeRoom(world, baseX + x, baseY, baseZ + z, type, placedBlocks);
+                    placeRoom(queue, baseX + x, baseY, baseZ + z, type, placedBlocks, random, manifest);
+                    manifest.addRoom(baseX + x, baseZ + z, type);
                 }
             }
         }
@@ -167,20 +244,26 @@ public class DungeonLayout {
                 if (isRoom(x, z)) {
                     // Check each direction
                     if (isRoom(x + 1, z)) {
-                        placeCorridor(world, baseX + x, baseY, baseZ + z, BlockFace.EAST, placedBlocks);
+                        placeCorridor(queue, baseX + x, baseY, baseZ + z, BlockFace.EAST, placedBlocks, random);
                     }
                     if (isRoom(x, z + 1)) {
-                        placeCorridor(world, baseX + x, baseY, baseZ + z, BlockFace.SOUTH, placedBlocks);
+                        placeCorridor(queue, baseX + x, baseY, baseZ + z, BlockFace.SOUTH, placedBlocks, random);
                     }
                 }
             }
         }
+        
+        // Decorations and traps of later rooms may have replaced recorded features
+        manifest.retainPlaced(queue);
+        
+        return queue;
     }
     
     /**
      * Place a room at the specified location
      */
-    private void placeRoom(World world, int baseX, int baseY, int baseZ, RoomType type, Set<Vector> placedBlocks) {
+    private void placeRoom(BlockPlacementQueue queue, int baseX, int baseY, int baseZ, RoomType type, Set<Vector> placedBlocks, Random random,
+                           DungeonManifest.Builder manifest) {
         // Room size based on type
         int roomWidth = 7;
         int roomHeight = 5;
@@ -190,7 +273,7 @@ public class DungeonLayout {
             roomHeight = 7;
         } else if (type == RoomType.ENTRANCE) {
             // Create stairs up to surface
-            placeEntrance(world, baseX, baseY, baseZ, placedBlocks);
+            placeEntrance(queue, baseX, baseY, baseZ, placedBlocks, random, manifest);
             return;
         }
         
@@ -218,18 +301,18 @@ public class DungeonLayout {
                     if (y == 0) {
                         // Floor
                         Material floor = floorMaterials.get(random.nextInt(floorMaterials.size()));
-                        world.setType(worldX, worldY, worldZ, floor);
+                        queue.add(worldX, worldY, worldZ, floor);
                     } else if (y == roomHeight - 1) {
                         // Ceiling
                         Material ceiling = ceilingMaterials.get(random.nextInt(ceilingMaterials.size()));
-                        world.setType(worldX, worldY, worldZ, ceiling);
+                        queue.add(worldX, worldY, worldZ, ceiling);
                     } else if (Math.abs(x) == roomWidth/2 || Math.abs(z) == roomWidth/2) {
                         // Walls
                         Material wall = wallMaterials.get(random.nextInt(wallMaterials.size()));
-                        world.setType(worldX, worldY, worldZ, wall);
+                        queue.add(worldX, worldY, worldZ, wall);
                     } else {
                         // Interior
-                        world.setType(worldX, worldY, worldZ, Material.AIR);
+                        queue.add(worldX, worldY, worldZ, Material.AIR);
                     }
                     
                     placedBlocks.add(pos);
@@ -240,17 +323,19 @@ public class DungeonLayout {
         // Add special features based on room type
         switch (type) {
             case TREASURE:
-                placeTreasure(world, centerX, baseY + 1, centerZ, placedBlocks);
+                placeTreasure(queue, centerX, baseY + 1, centerZ, placedBlocks);
+                manifest.addChest(centerX, baseY + 1, centerZ);
                 break;
             case TRAP:
-                placeTrap(world, centerX, baseY + 1, centerZ, placedBlocks);
+                placeTrap(queue, centerX, baseY + 1, centerZ, placedBlocks, random, manifest);
                 break;
             case BOSS:
-                placeBossRoom(world, centerX, baseY + 1, centerZ, placedBlocks);
+                placeBossRoom(queue, centerX, baseY + 1, centerZ, placedBlocks, random);
+                manifest.addSpawner(centerX, baseY + 1, centerZ);
                 break;
             default:
                 // Add random decorations
-                placeDecorations(world, centerX, baseY + 1, centerZ, placedBlocks);
+                placeDecorations(queue, centerX, baseY + 1, centerZ, placedBlocks, random);
                 break;
         }
     }
@@ -258,7 +343,7 @@ public class DungeonLayout {
     /**
      * Place a corridor connecting two rooms
      */
-    private void placeCorridor(World world, int x, int baseY, int z, BlockFace direction, Set<Vector> placedBlocks) {
+    private void placeCorridor(BlockPlacementQueue queue, int x, int baseY, int z, BlockFace direction, Set<Vector> placedBlocks, Random random) {
         // Corridor width and height
         int width = 3;
         int height = 3;
@@ -293,18 +378,18 @@ public class DungeonLayout {
                     if (h == 0) {
                         // Floor
                         Material floor = floorMaterials.get(random.nextInt(floorMaterials.size()));
-                        world.setType(worldX, worldY, worldZ, floor);
+                        queue.add(worldX, worldY, worldZ, floor);
                     } else if (h == height - 1) {
                         // Ceiling
                         Material ceiling = ceilingMaterials.get(random.nextInt(ceilingMaterials.size()));
-                        world.setType(worldX, worldY, worldZ, ceiling);
+                        queue.add(worldX, worldY, worldZ, ceiling);
                     } else if (Math.abs(w) == width/2) {
                         // Walls
                         Material wall = wallMaterials.get(random.nextInt(wallMaterials.size()));
-                        world.setType(worldX, worldY, worldZ, wall);
+                        queue.add(worldX, worldY, worldZ, wall);
                     } else {
                         // Interior
-                        world.setType(worldX, worldY, worldZ, Material.AIR);
+                        queue.add(worldX, worldY, worldZ, Material.AIR);
                     }
                     
                     placedBlocks.add(pos);
@@ -316,27 +401,28 @@ public class DungeonLayout {
     /**
      * Place the entrance room with stairs to the surface
      */
-    private void placeEntrance(World world, int x, int y, int z, Set<Vector> placedBlocks) {
+    private void placeEntrance(BlockPlacementQueue queue, int x, int y, int z, Set<Vector> placedBlocks, Random random,
+                               DungeonManifest.Builder manifest) {
         // TODO: Implement custom entrance with stairs leading to surface
         // For now, just place a basic room
-        placeRoom(world, x, y, z, RoomType.NORMAL, placedBlocks);
+        placeRoom(queue, x, y, z, RoomType.NORMAL, placedBlocks, random, manifest);
         
         // Mark entrance with a beacon
-        world.setType(x, y + 1, z, Material.BEACON);
+        queue.add(x, y + 1, z, Material.BEACON);
     }
     
     /**
      * Place treasure in a treasure room
      */
-    private void placeTreasure(World world, int x, int y, int z, Set<Vector> placedBlocks) {
+    private void placeTreasure(BlockPlacementQueue queue, int x, int y, int z, Set<Vector> placedBlocks) {
         // Place a chest in the center
-        world.setType(x, y, z, Material.CHEST);
+        queue.add(x, y, z, Material.CHEST);
         
         // Surround with some gold blocks
-        world.setType(x + 1, y, z, Material.GOLD_BLOCK);
-        world.setType(x - 1, y, z, Material.GOLD_BLOCK);
-        world.setType(x, y, z + 1, Material.GOLD_BLOCK);
-        world.setType(x, y, z - 1, Material.GOLD_BLOCK);
+        queue.add(x + 1, y, z, Material.GOLD_BLOCK);
+        queue.add(x - 1, y, z, Material.GOLD_BLOCK);
+        queue.add(x, y, z + 1, Material.GOLD_BLOCK);
+        queue.add(x, y, z - 1, Material.GOLD_BLOCK);
         
         // Add to placed blocks
         for (int dx = -1; dx <= 1; dx++) {
@@ -349,15 +435,17 @@ public class DungeonLayout {
     /**
      * Place a trap in a trap room
      */
-    private void placeTrap(World world, int x, int y, int z, Set<Vector> placedBlocks) {
+    private void placeTrap(BlockPlacementQueue queue, int x, int y, int z, Set<Vector> placedBlocks, Random random,
+                           DungeonManifest.Builder manifest) {
         // For now just place pressure plates on TNT
         // In a real implementation, you'd use more complex trap designs
         
         for (int dx = -1; dx <= 1; dx++) {
             for (int dz = -1; dz <= 1; dz++) {
                 if (random.nextDouble() < 0.3) {
-                    world.setType(x + dx, y - 1, z + dz, Material.TNT);
-                    world.setType(x + dx, y, z + dz, Material.STONE_PRESSURE_PLATE);
+                    queue.add(x + dx, y - 1, z + dz, Material.TNT);
+                    queue.add(x + dx, y, z + dz, Material.STONE_PRESSURE_PLATE);
+                    manifest.addTrap(x + dx, y, z + dz);
                     
                     placedBlocks.add(new Vector(x + dx, y - 1, z + dz));
                     placedBlocks.add(new Vector(x + dx, y, z + dz));
@@ -369,9 +457,9 @@ public class DungeonLayout {
     /**
      * Place special features in a boss room
      */
-    private void placeBossRoom(World world, int x, int y, int z, Set<Vector> placedBlocks) {
+    private void placeBossRoom(BlockPlacementQueue queue, int x, int y, int z, Set<Vector> placedBlocks, Random random) {
         // Place a spawner in the center
-        world.setType(x, y, z, Material.SPAWNER);
+        queue.add(x, y, z, Material.SPAWNER);
         placedBlocks.add(new Vector(x, y, z));
         
         // Add some lava pools
@@ -381,7 +469,7 @@ public class DungeonLayout {
             
             if (dx == 0 && dz == 0) continue; // Skip center
             
-            world.setType(x + dx, y - 1, z + dz, Material.LAVA);
+            queue.add(x + dx, y - 1, z + dz, Material.LAVA);
             placedBlocks.add(new Vector(x + dx, y - 1, z + dz));
         }
     }
@@ -389,7 +477,7 @@ public class DungeonLayout {
     /**
      * Place random decorations in a room
      */
-    private void placeDecorations(World world, int x, int y, int z, Set<Vector> placedBlocks) {
+    private void placeDecorations(BlockPlacementQueue queue, int x, int y, int z, Set<Vector> placedBlocks, Random random) {
         // Add some random decorations based on theme
         List<Material> lightBlocks = theme.getLightBlocks();
         
@@ -399,7 +487,7 @@ public class DungeonLayout {
             int dz = random.nextInt(5) - 2;
             
             Material light = lightBlocks.get(random.nextInt(lightBlocks.size()));
-            world.setType(x + dx, y, z + dz, light);
+            queue.add(x + dx, y, z + dz, light);
             placedBlocks.add(new Vector(x + dx, y, z + dz));
         }
     }
@@ -411,4 +499,50 @@ public class DungeonLayout {
     public String getBossTypeAt(int x, int y) {
         return bossTypes.get(new Vector(x, y, 0));
     }
+    
+    /**
+     * Get all boss types by position (layout X and Y stored as the vector's X and Y)
+     */
+    public Map<Vector, String> getBossTypes() {
+        return Collections.unmodifiableMap(bossTypes);
+    }
+    
+    /**
+     * Unordered set of cell indices with O(1) add and remove.
+     * Each cell's slot is kept in a slot array shared by all indices of a layout,
+     * which works because a cell belongs to at most one room type at a time.
+     */
+    private static class PositionIndex {
+        private int[] members = new int[16];
+        private int count;
+        
+        /**
+         * Add a cell and return its slot
+         */
+        int add(int cell) {
+            if (count == members.length) {
+                members = Arrays.copyOf(members, count * 2);
+            }
+            members[count] = cell;
+            return count++;
+        }
+        
+        /**
+         * Remove the cell in a slot by moving the last member into it
+         */
+        void remove(int slot, int[] slots) {
+            int last = members[--count];
+            members[slot] = last;
+            slots[last] = slot;
+        }
+        
+        /**
+         * Copy the members in ascending cell order
+         */
+        int[] toSortedArray() {
+            int[] sorted = Arrays.copyOf(members, count);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
 }
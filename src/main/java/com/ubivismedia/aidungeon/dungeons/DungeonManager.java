@@ -7,6 +7,7 @@ import com.ubivismedia.aidungeon.algorithms.DungeonGenerator;
 import com.ubivismedia.aidungeon.algorithms.cellular.CellularAutomata;
 import com.ubivismedia.aidungeon.algorithms.genetic.GeneticOptimizer;
 import com.ubivismedia.aidungeon.algorithms.markov.MarkovChainModel;
+import com.ubivismedia.aidungeon.config.CompiledSettings;
 import com.ubivismedia.aidungeon.config.DungeonTheme;
 import com.ubivismedia.aidungeon.storage.DungeonData;
 import com.ubivismedia.aidungeon.storage.DungeonStorage;
@@ -14,7 +15,10 @@ import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.IllegalPluginAccessException;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Queue;
 import java.util.UUID;
@@ -22,6 +26,8 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
 
 public class DungeonManager {
     
@@ -30,10 +36,19 @@ public class DungeonManager {
     private final DungeonStorage dungeonStorage;
     
     private final Map<BiomeArea, DungeonData> generatedDungeons = new ConcurrentHashMap<>();
-    private final Queue<GenerationTask> generationQueue = new ConcurrentLinkedQueue<>();
+    private final Map<String, DungeonData> dungeonsById = new ConcurrentHashMap<>();
+    private final DungeonSpatialIndex dungeonIndex = new DungeonSpatialIndex();
+    private final DungeonTrapIndex trapIndex = new DungeonTrapIndex();
+    
+    // Dungeons that are queued, generating or being placed, so no other dungeon is queued over them
+    private final Map<BiomeArea, GenerationTask> reservations = new ConcurrentHashMap<>();
+    private final DungeonSpatialIndex reservedIndex = new DungeonSpatialIndex();
+    private final Queue<Runnable> shutdownPlacements = new ConcurrentLinkedQueue<>();
     private final Cache<UUID, Long> playerGenerationCooldown;
     
     private final DungeonGenerator dungeonGenerator;
+    private final BlockPlacementEngine placementEngine;
+    private final GenerationExecutor generationExecutor;
     private final AtomicInteger activeGenerations = new AtomicInteger(0);
     private final int maxConcurrentGenerations;
     private final boolean asyncGenerationEnabled;
@@ -54,15 +69,20 @@ public class DungeonManager {
         
         // Initialize generation systems
         this.dungeonGenerator = new DungeonGenerator(plugin, roomGenerator, themeModel, layoutOptimizer);
+        this.placementEngine = new BlockPlacementEngine(plugin);
         
         // Initialize cooldown cache (5 minutes cooldown per player)
         this.playerGenerationCooldown = Caffeine.newBuilder()
                 .expireAfterWrite(5, TimeUnit.MINUTES)
                 .build();
         
-        // Start async processing if enabled
+        // Start the generation thread pool if async generation is enabled
         if (asyncGenerationEnabled) {
-            startAsyncProcessing();
+            int threads = Math.max(1, Math.min(maxConcurrentGenerations, Runtime.getRuntime().availableProcessors()));
+            int maxQueued = plugin.getConfig().getInt("generation.async.max-queued-generations", 32);
+            this.generationExecutor = new GenerationExecutor(plugin, threads, maxQueued);
+        } else {
+            this.generationExecutor = null;
         }
     }
     
@@ -70,13 +90,15 @@ public class DungeonManager {
      * Checks if a dungeon can be generated for a player in a specific biome area
      */
     public boolean canGenerateDungeon(Player player, BiomeArea area) {
-        // Check if already generated
-        if (generatedDungeons.containsKey(area)) {
+        // Check if already generated or being generated
+        if (generatedDungeons.containsKey(area) || reservations.containsKey(area)) {
             return false;
         }
 
+        CompiledSettings settings = plugin.getConfigManager().getSettings();
+
         // Check world blacklist
-        if (plugin.getConfig().getStringList("settings.world-blacklist").contains(area.getWorldName())) {
+        if (settings.isWorldBlacklisted(area.getWorldName())) {
             return false;
         }
 
@@ -86,132 +108,204 @@ public class DungeonManager {
         }
 
         // Get configuration settings
-        boolean dungeonPerBiome = plugin.getConfig().getBoolean("settings.dungeon-per-biome", true);
-        int minDistance = plugin.getConfig().getInt("settings.min-distance-between-dungeons", 1000);
-
-        // Check minimum distance
-        for (BiomeArea existingArea : generatedDungeons.keySet()) {
-            if (existingArea.getWorldName().equals(area.getWorldName())) {
-                // If dungeonPerBiome is true, we allow one dungeon per biome regardless of distance
-                if (dungeonPerBiome && existingArea.getPrimaryBiome() == area.getPrimaryBiome()) {
-                    // Same biome - don't allow another dungeon
-                    return false;
-                }
+        boolean dungeonPerBiome = settings.isDungeonPerBiome();
+        int minDistance = settings.getMinDistanceBetweenDungeons();
 
-                // Check distance between dungeons
-                double distance = Math.sqrt(
-                        Math.pow(existingArea.getCenterX() - area.getCenterX(), 2) +
-                                Math.pow(existingArea.getCenterZ() - area.getCenterZ(), 2)
-                );
-
-                if (distance < minDistance) {
-                    return false;
-                }
-            }
+        // If dungeonPerBiome is true, we allow one dungeon per biome regardless of distance
+        if (dungeonPerBiome && (dungeonIndex.hasBiome(area.getWorldName(), area.getPrimaryBiome())
+                || reservedIndex.hasBiome(area.getWorldName(), area.getPrimaryBiome()))) {
+            return false;
         }
 
-        return true;
+        // Check minimum distance
+        return !dungeonIndex.hasAreaWithin(area.getWorldName(), area.getCenterX(), area.getCenterZ(), minDistance)
+                && !reservedIndex.hasAreaWithin(area.getWorldName(), area.getCenterX(), area.getCenterZ(), minDistance);
     }
     
     /**
      * Queue a dungeon for generation
      */
-    public void queueDungeonGeneration(BiomeArea area, Player discoverer) {
+    public boolean queueDungeonGeneration(BiomeArea area, Player discoverer) {
+        return queueDungeonGeneration(area, discoverer, GenerationTask.PRIORITY_NORMAL);
+    }
+
+    /**
+     * Queue a dungeon for generation with a specific priority
+     * @return false if the dungeon could not be queued
+     */
+    public boolean queueDungeonGeneration(BiomeArea area, Player discoverer, int priority) {
         if (!canGenerateDungeon(discoverer, area)) {
             plugin.getLogger().warning("Attempted to queue dungeon generation for " + area + " but conditions not met");
-            return;
+            return false;
+        }
+
+        GenerationTask task = new GenerationTask(area, discoverer.getUniqueId(), getGenerationSeed(area), priority);
+        
+        // Hold the area until the dungeon is registered or abandoned
+        reservations.put(area, task);
+        reservedIndex.add(area);
+
+        if (asyncGenerationEnabled) {
+            // Add to generation queue, rejecting if too many generations are waiting
+            if (!generationExecutor.submit(task, this::processGenerationTaskAsync)) {
+                plugin.getLogger().warning("Generation queue is full, rejected dungeon generation for " + area);
+                releaseReservation(task);
+                return false;
+            }
+        } else {
+            // If async is disabled, process immediately on the main thread
+            Bukkit.getScheduler().runTask(plugin, () -> processGenerationTask(task));
         }
 
         // Set cooldown for this player
         playerGenerationCooldown.put(discoverer.getUniqueId(), System.currentTimeMillis());
 
-        // Add to generation queue
-        GenerationTask task = new GenerationTask(area, discoverer.getUniqueId());
-        generationQueue.add(task);
-
         // Mark this biome as having a dungeon being generated
         plugin.getBiomeExplorationTracker().markDungeonGenerated(
                 discoverer.getWorld(),
                 area.getPrimaryBiome()
         );
 
-        // If async is disabled, process immediately on the main thread
-        if (!asyncGenerationEnabled) {
-            Bukkit.getScheduler().runTask(plugin, () -> processGenerationTask(task));
-        }
-
         plugin.getLogger().info("Queued dungeon generation in " + area.getPrimaryBiome() +
                 " at " + area.getCenterX() + "," + area.getCenterZ() +
                 " discovered by " + discoverer.getName());
+        return true;
     }
     
     /**
-     * Start the async processing task
+     * Get the generation seed for an area, derived from its world's seed
      */
-    private void startAsyncProcessing() {
-        int tasksPerTick = plugin.getConfig().getInt("generation.async.tasks-per-tick", 2);
-        
-        Bukkit.getScheduler().runTaskTimer(plugin, () -> {
-            // Skip if we're at max concurrent generations
-            if (activeGenerations.get() >= maxConcurrentGenerations) {
-                return;
+    public long getGenerationSeed(BiomeArea area) {
+        World world = Bukkit.getWorld(area.getWorldName());
+        long worldSeed = world != null ? world.getSeed() : 0L;
+        return DungeonGenerator.deriveSeed(worldSeed, area);
+    }
+    
+    /**
+     * Rebuild the layout of a dungeon from its seed off the main thread.
+     * Produces the same layout as the original generation as long as the
+     * theme and algorithm settings have not changed
+     * @param callback Receives the layout on the generating thread, or null if it could not be rebuilt
+     */
+    public void regenerateLayout(BiomeArea area, long seed, Consumer<DungeonLayout> callback) {
+        Runnable work = () -> {
+            try {
+                callback.accept(dungeonGenerator.generateDungeonAsync(area, seed));
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Error regenerating layout of " + area, e);
+                callback.accept(null);
             }
+        };
+        
+        // A player is near the dungeon, so its layout goes ahead of newly discovered dungeons.
+        // The dungeon waits for it, so unloading the world does not cancel it
+        GenerationTask task = new GenerationTask(area, null, seed, GenerationTask.PRIORITY_HIGH, false);
+        if (generationExecutor == null || !generationExecutor.submit(task, submitted -> {
+            generationExecutor.finish(submitted);
+            work.run();
+        })) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, work);
+        }
+    }
+    
+    /**
+     * Cancel a queued or running generation for an area
+     * @return true if a generation was cancelled
+     */
+    public boolean cancelGeneration(BiomeArea area) {
+        GenerationTask task = reservations.get(area);
+        if (generationExecutor == null || !generationExecutor.cancel(area)) {
+            return false;
+        }
+        
+        // Queued tasks never run, running ones find the reservation gone
+        if (task != null) {
+            releaseReservation(task);
+        }
+        return true;
+    }
+    
+    /**
+     * Cancel all queued and running generations in a world
+     * @return Number of generations cancelled
+     */
+    public int cancelGenerations(String worldName) {
+        if (generationExecutor == null) {
+            return 0;
+        }
+        
+        List<GenerationTask> cancelled = generationExecutor.cancelWorld(worldName);
+        for (GenerationTask task : cancelled) {
+            releaseReservation(task);
+        }
+        return cancelled.size();
+    }
+    
+    /**
+     * Stop placing dungeons in a world (must be called on main thread)
+     * @return Number of placements stopped
+     */
+    public int cancelPlacements(World world) {
+        return placementEngine.cancelWorld(world);
+    }
+    
+    /**
+     * Process a generation task on a generation thread
+     */
+    private void processGenerationTaskAsync(GenerationTask task) {
+        activeGenerations.incrementAndGet();
+        
+        try {
+            // Generate dungeon layout and plan its blocks asynchronously
+            DungeonLayout layout = dungeonGenerator.generateDungeonAsync(task.getArea(), task.getSeed());
+            DungeonManifest.Builder manifest = new DungeonManifest.Builder();
+            BlockPlacementQueue queue = layout.planPlacement(
+                    task.getArea().getCenterX(), task.getArea().getCenterZ(), manifest);
             
-            // Process up to tasksPerTick tasks
-            for (int i = 0; i < tasksPerTick; i++) {
-                GenerationTask task = generationQueue.poll();
-                if (task == null) {
-                    break;
+            // Schedule tick-budgeted placement in world
+            runOnMainThread(() -> {
+                generationExecutor.finish(task);
+                
+                if (task.isCancelled()) {
+                    plugin.getLogger().info("Dungeon generation for " + task.getArea() + " was cancelled");
+                    releaseReservation(task);
+                    activeGenerations.decrementAndGet();
+                    return;
                 }
                 
-                // Increment counter and process
-                activeGenerations.incrementAndGet();
-                processGenerationTaskAsync(task);
-            }
-        }, 20L, 10L); // Check queue every 10 ticks
+                try {
+                    placeDungeonInWorld(task, layout, queue, manifest, activeGenerations::decrementAndGet);
+                } catch (Exception e) {
+                    plugin.getLogger().severe("Error placing dungeon: " + e.getMessage());
+                    e.printStackTrace();
+                    releaseReservation(task);
+                    activeGenerations.decrementAndGet();
+                }
+            });
+        } catch (Exception e) {
+            plugin.getLogger().severe("Error generating dungeon: " + e.getMessage());
+            e.printStackTrace();
+            
+            // Decrement counter even if failed
+            generationExecutor.finish(task);
+            releaseReservation(task);
+            activeGenerations.decrementAndGet();
+        }
     }
     
     /**
-     * Process a generation task asynchronously
+     * Run an action on the main thread, or hold it for shutdown if the plugin is disabling
      */
-    private void processGenerationTaskAsync(GenerationTask task) {
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+    private void runOnMainThread(Runnable action) {
+        if (plugin.isEnabled()) {
             try {
-                // Generate dungeon layout asynchronously
-                DungeonLayout layout = dungeonGenerator.generateDungeonAsync(task.getArea());
-                
-                // Schedule synchronous placement in world
-                Bukkit.getScheduler().runTask(plugin, () -> {
-                    try {
-                        placeDungeonInWorld(layout, task.getArea());
-                        
-                        // Create dungeon data
-                        DungeonData dungeonData = new DungeonData(
-                                layout, 
-                                task.getDiscovererUUID(), 
-                                System.currentTimeMillis(),
-                                plugin
-                        );
-                        
-                        // Store in memory and persistent storage
-                        generatedDungeons.put(task.getArea(), dungeonData);
-                        dungeonStorage.saveDungeon(task.getArea(), dungeonData);
-                        
-                        // Notify discoverer if online
-                        notifyPlayer(task.getDiscovererUUID(), task.getArea());
-                    } finally {
-                        // Decrement counter when done
-                        activeGenerations.decrementAndGet();
-                    }
-                });
-            } catch (Exception e) {
-                plugin.getLogger().severe("Error generating dungeon: " + e.getMessage());
-                e.printStackTrace();
-                
-                // Decrement counter even if failed
-                activeGenerations.decrementAndGet();
+                Bukkit.getScheduler().runTask(plugin, action);
+                return;
+            } catch (IllegalPluginAccessException e) {
+                // Plugin was disabled in the meantime, fall through
             }
-        });
+        }
+        shutdownPlacements.add(action);
     }
     
     /**
@@ -220,52 +314,130 @@ public class DungeonManager {
     private void processGenerationTask(GenerationTask task) {
         try {
             // Generate dungeon layout on main thread
-            DungeonLayout layout = dungeonGenerator.generateDungeon(task.getArea());
+            DungeonLayout layout = dungeonGenerator.generateDungeon(task.getArea(), task.getSeed());
+            DungeonManifest.Builder manifest = new DungeonManifest.Builder();
+            BlockPlacementQueue queue = layout.planPlacement(
+                    task.getArea().getCenterX(), task.getArea().getCenterZ(), manifest);
             
             // Place dungeon in world
-            placeDungeonInWorld(layout, task.getArea());
-            
-            // Create dungeon data
-            DungeonData dungeonData = new DungeonData(
-                    layout,
-                    task.getDiscovererUUID(),
-                    System.currentTimeMillis(),
-                    plugin
-            );
-            
-            // Store in memory and persistent storage
-            generatedDungeons.put(task.getArea(), dungeonData);
-            dungeonStorage.saveDungeon(task.getArea(), dungeonData);
-            
-            // Notify discoverer if online
-            notifyPlayer(task.getDiscovererUUID(), task.getArea());
+            placeDungeonInWorld(task, layout, queue, manifest, () -> {});
         } catch (Exception e) {
             plugin.getLogger().severe("Error generating dungeon: " + e.getMessage());
             e.printStackTrace();
+            releaseReservation(task);
         }
     }
     
     /**
-     * Place a dungeon in the world (must be called on main thread)
+     * Hand a planned dungeon to the placement engine (must be called on main thread).
+     * The dungeon is registered, with the features recorded while planning it,
+     * once its last block has been placed.
      */
-    private void placeDungeonInWorld(DungeonLayout layout, BiomeArea area) {
+    private void placeDungeonInWorld(GenerationTask task, DungeonLayout layout, BlockPlacementQueue queue,
+                                     DungeonManifest.Builder manifest, Runnable onFinished) {
+        BiomeArea area = task.getArea();
+        
         // Get world
         World world = Bukkit.getWorld(area.getWorldName());
         if (world == null) {
             plugin.getLogger().warning("World not found: " + area.getWorldName());
+            releaseReservation(task);
+            onFinished.run();
             return;
         }
         
         // Find a suitable Y coordinate
         int baseY = findSuitableY(world, area.getCenterX(), area.getCenterZ());
-        Location baseLocation = new Location(world, area.getCenterX(), baseY, area.getCenterZ());
+        boolean debug = plugin.getConfig().getBoolean("settings.debug-mode", false);
         
-        // Place dungeon blocks
-        layout.placeInWorld(baseLocation);
+        placementEngine.submit(world, baseY, queue, new BlockPlacementEngine.PlacementListener() {
+            @Override
+            public void onProgress(int placed, int total) {
+                if (debug) {
+                    plugin.getLogger().info("Placing dungeon at " + area.getCenterX() + "," + area.getCenterZ() +
+                            ": " + placed + "/" + total + " blocks");
+                }
+            }
+            
+            @Override
+            public void onComplete() {
+                try {
+                    plugin.getLogger().info("Placed dungeon at " + area.getCenterX() + "," + baseY + "," +
+                            area.getCenterZ() + " in world " + world.getName() +
+                            " (" + queue.getTotal() + " blocks in " + queue.getChunkCount() + " chunks)");
+                    
+                    // Create dungeon data
+                    DungeonData dungeonData = new DungeonData(
+                            area,
+                            layout,
+                            manifest.build(baseY),
+                            task.getDiscovererUUID(),
+                            System.currentTimeMillis()
+                    );
+                    
+                    // Store in memory, taking over from the reservation, and in persistent storage
+                    addDungeon(area, dungeonData);
+                    if (reservations.remove(area, task)) {
+                        reservedIndex.remove(area);
+                    }
+                    dungeonStorage.saveDungeon(area, dungeonData);
+                    
+                    // Notify discoverer if online
+                    notifyPlayer(task.getDiscovererUUID(), area);
+                } finally {
+                    onFinished.run();
+                }
+            }
+            
+            @Override
+            public void onFailure(Exception e) {
+                try {
+                    abandonPartialDungeon(task, world, baseY, queue);
+                } finally {
+                    onFinished.run();
+                }
+            }
+            
+            @Override
+            public void onCancelled() {
+                try {
+                    abandonPartialDungeon(task, world, baseY, queue);
+                } finally {
+                    onFinished.run();
+                }
+            }
+        });
+    }
+    
+    /**
+     * Give up on a dungeon whose placement stopped midway. Its blocks stay in the world
+     * but it is not registered, so the area is logged for admins to clean up
+     */
+    private void abandonPartialDungeon(GenerationTask task, World world, int baseY, BlockPlacementQueue queue) {
+        BiomeArea area = task.getArea();
+        if (queue.getPlaced() > 0) {
+            plugin.getLogger().warning("Dungeon at " + area.getCenterX() + "," + baseY + "," + area.getCenterZ() +
+                    " in world " + world.getName() + " was left partly placed (" + queue.getPlaced() + "/" +
+                    queue.getTotal() + " blocks within " + area.getRadius() + " blocks of its center)");
+        }
+        releaseReservation(task);
+    }
+    
+    /**
+     * Release the area of a dungeon that will not be registered, so its area and biome can get a dungeon again
+     */
+    private void releaseReservation(GenerationTask task) {
+        BiomeArea area = task.getArea();
+        if (!reservations.remove(area, task)) {
+            return;
+        }
+        reservedIndex.remove(area);
         
-        plugin.getLogger().info("Placed dungeon at " + baseLocation.getBlockX() + "," + 
-                baseLocation.getBlockY() + "," + baseLocation.getBlockZ() + 
-                " in world " + world.getName());
+        // The biome was marked when the dungeon was queued
+        if (!dungeonIndex.hasBiome(area.getWorldName(), area.getPrimaryBiome())
+                && !reservedIndex.hasBiome(area.getWorldName(), area.getPrimaryBiome())) {
+            plugin.getBiomeExplorationTracker().clearDungeonGenerated(area.getWorldName(), area.getPrimaryBiome());
+        }
     }
     
     /**
@@ -309,6 +481,25 @@ public class DungeonManager {
         }
     }
     
+    /**
+     * Stop generation and finish any dungeons that are still being placed (called from onDisable)
+     */
+    public void shutdown() {
+        // Let running generations finish, then hand their results to the placement engine
+        if (generationExecutor != null) {
+            long timeout = plugin.getConfig().getLong("generation.async.shutdown-timeout-seconds", 30);
+            generationExecutor.shutdown(timeout);
+        }
+        dungeonGenerator.shutdown();
+        
+        Runnable action;
+        while ((action = shutdownPlacements.poll()) != null) {
+            action.run();
+        }
+        
+        placementEngine.shutdown();
+    }
+    
     /**
      * Get a dungeon by area
      */
@@ -317,24 +508,50 @@ public class DungeonManager {
     }
     
     /**
-     * Add a pre-loaded dungeon to the manager
+     * Get a dungeon by its unique ID (worldName:x:z)
+     * @return The dungeon, or null if there is none with this ID
+     */
+    public DungeonData getDungeonById(String dungeonId) {
+        return dungeonsById.get(dungeonId);
+    }
+    
+    /**
+     * Add a placed or pre-loaded dungeon to the manager
      */
     public void addDungeon(BiomeArea area, DungeonData data) {
-        generatedDungeons.put(area, data);
+        if (generatedDungeons.put(area, data) == null) {
+            dungeonsById.put(area.getUniqueId(), data);
+            dungeonIndex.add(area);
+            
+            // Dungeons placed before features were recorded fall back to reading blocks
+            DungeonManifest manifest = data.getManifest();
+            if (manifest != null) {
+                trapIndex.addArea(area, manifest.getTraps());
+            } else {
+                trapIndex.addUnrecordedArea(area);
+            }
+        }
     }
     
     /**
-     * Get the map of all dungeons
+     * Get the index of dungeon chunks and their pressure plates
+     */
+    public DungeonTrapIndex getTrapIndex() {
+        return trapIndex;
+    }
+    
+    /**
+     * Get a read-only view of all dungeons
      */
     public Map<BiomeArea, DungeonData> getAllDungeons() {
-        return generatedDungeons;
+        return Collections.unmodifiableMap(generatedDungeons);
     }
     
     /**
      * Get queue size
      */
     public int getQueueSize() {
-        return generationQueue.size();
+        return generationExecutor != null ? generationExecutor.getQueueSize() : 0;
     }
     
     /**
@@ -344,23 +561,23 @@ public class DungeonManager {
         return activeGenerations.get();
     }
 
-        public BiomeArea getDungeonAreaAtLocation(Location location) {
-        // Get all dungeons
-        Map<BiomeArea, DungeonData> dungeons = getAllDungeons();
-        
-        for (BiomeArea area : dungeons.keySet()) {
-            if (area.getWorldName().equals(location.getWorld().getName())) {
-                double distance = Math.sqrt(
-                        Math.pow(area.getCenterX() - location.getBlockX(), 2) +
-                        Math.pow(area.getCenterZ() - location.getBlockZ(), 2)
-                );
-                
-                if (distance <= area.getRadius()) {
-                    return area;
-                }
-            }
+    /**
+     * Get the dungeon area containing a location
+     * @return The area, or null if the location is not inside a dungeon
+     */
+    public BiomeArea getDungeonAreaAtLocation(Location location) {
+        World world = location.getWorld();
+        if (world == null) {
+            return null;
         }
         
-        return null;
+        return dungeonIndex.getAreaAt(world.getName(), location.getBlockX(), location.getBlockZ());
+    }
+    
+    /**
+     * Get the dungeon areas overlapping a chunk
+     */
+    public List<BiomeArea> getDungeonAreasInChunk(String worldName, int chunkX, int chunkZ) {
+        return dungeonIndex.getAreasInChunk(worldName, chunkX, chunkZ);
     }
 }
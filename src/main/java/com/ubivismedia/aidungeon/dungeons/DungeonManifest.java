@@ -0,0 +1,221 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import org.bukkit.Material;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The features a dungeon placed in the world: chests, spawners, trap pressure
+ * plates and the center of every room with its type (including the boss room).
+ * Recorded while the dungeon is planned and stored with it, so handlers can look
+ * features up instead of scanning blocks. Positions are absolute x, y, z triples;
+ * spawners are also indexed by chunk. Immutable once built.
+ */
+public final class DungeonManifest {
+
+    private static final RoomType[] ROOM_TYPES = RoomType.values();
+    private static final int[] NONE = new int[0];
+
+    private final int floorY;
+    private final int[] chests;
+    private final int[] spawners;
+    private final int[] traps;
+
+    // Room centers as sorted packed x/z keys, with the type of each room
+    private final long[] roomKeys;
+    private final RoomType[] roomTypes;
+
+    // Spawner positions by chunk
+    private final Map<Long, int[]> spawnersByChunk;
+
+    /**
+     * Create a manifest
+     * @param floorY The Y of the dungeon floor
+     * @param rooms Room centers and type ordinals as x, z, type triples
+     */
+    public DungeonManifest(int floorY, int[] chests, int[] spawners, int[] traps, int[] rooms) {
+        this.floorY = floorY;
+        this.chests = chests;
+        this.spawners = spawners;
+        this.traps = traps;
+
+        // Sort the rooms by key, keeping the type next to the key while sorting
+        int roomCount = rooms.length / 3;
+        long[] entries = new long[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            entries[i] = key(rooms[i * 3], rooms[i * 3 + 1]);
+        }
+        Integer[] order = new Integer[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(entries[a], entries[b]));
+
+        this.roomKeys = new long[roomCount];
+        this.roomTypes = new RoomType[roomCount];
+        for (int i = 0; i < roomCount; i++) {
+            roomKeys[i] = entries[order[i]];
+            roomTypes[i] = ROOM_TYPES[rooms[order[i] * 3 + 2]];
+        }
+
+        this.spawnersByChunk = indexByChunk(spawners);
+    }
+
+    /**
+     * Get the Y of the dungeon floor
+     */
+    public int getFloorY() {
+        return floorY;
+    }
+
+    /**
+     * Get the positions of all treasure chests
+     */
+    public int[] getChests() {
+        return chests.clone();
+    }
+
+    /**
+     * Get the positions of all spawners
+     */
+    public int[] getSpawners() {
+        return spawners.clone();
+    }
+
+    /**
+     * Get the positions of all trap pressure plates
+     */
+    public int[] getTraps() {
+        return traps.clone();
+    }
+
+    /**
+     * Get the positions of the spawners in a chunk
+     */
+    public int[] getSpawnersInChunk(int chunkX, int chunkZ) {
+        return spawnersByChunk.getOrDefault(key(chunkX, chunkZ), NONE);
+    }
+
+    /**
+     * Get the room centers and types as x, z, type ordinal triples
+     */
+    public int[] getRooms() {
+        int[] rooms = new int[roomKeys.length * 3];
+        for (int i = 0; i < roomKeys.length; i++) {
+            rooms[i * 3] = (int) (roomKeys[i] >> 32);
+            rooms[i * 3 + 1] = (int) roomKeys[i];
+            rooms[i * 3 + 2] = roomTypes[i].ordinal();
+        }
+        return rooms;
+    }
+
+    /**
+     * Get the type of the room centered on a block column
+     * @return The room type, or {@link RoomType#EMPTY} if no room is centered there
+     */
+    public RoomType getRoomTypeAt(int x, int z) {
+        int index = Arrays.binarySearch(roomKeys, key(x, z));
+        return index >= 0 ? roomTypes[index] : RoomType.EMPTY;
+    }
+
+    private static Map<Long, int[]> indexByChunk(int[] positions) {
+        Map<Long, int[]> byChunk = new HashMap<>();
+        for (int i = 0; i + 2 < positions.length; i += 3) {
+            long chunk = key(positions[i] >> 4, positions[i + 2] >> 4);
+            int[] current = byChunk.getOrDefault(chunk, NONE);
+            int[] grown = Arrays.copyOf(current, current.length + 3);
+            System.arraycopy(positions, i, grown, current.length, 3);
+            byChunk.put(chunk, grown);
+        }
+        return byChunk;
+    }
+
+    private static long key(int x, int z) {
+        return ((long) x << 32) | (z & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Collects features while a dungeon is planned, with Y relative to the floor
+     * like the {@link BlockPlacementQueue} it accompanies
+     */
+    public static class Builder {
+        private int[] chests = new int[12];
+        private int chestCount;
+        private int[] spawners = new int[12];
+        private int spawnerCount;
+        private int[] traps = new int[48];
+        private int trapCount;
+        private int[] rooms = new int[96];
+        private int roomCount;
+
+        public void addChest(int x, int relativeY, int z) {
+            chests = append(chests, chestCount, x, relativeY, z);
+            chestCount += 3;
+        }
+
+        public void addSpawner(int x, int relativeY, int z) {
+            spawners = append(spawners, spawnerCount, x, relativeY, z);
+            spawnerCount += 3;
+        }
+
+        public void addTrap(int x, int relativeY, int z) {
+            traps = append(traps, trapCount, x, relativeY, z);
+            trapCount += 3;
+        }
+
+        public void addRoom(int centerX, int centerZ, RoomType type) {
+            rooms = append(rooms, roomCount, centerX, centerZ, type.ordinal());
+            roomCount += 3;
+        }
+
+        /**
+         * Drop features that a later write in the queue replaces, so only blocks
+         * that actually end up in the world are recorded
+         */
+        void retainPlaced(BlockPlacementQueue queue) {
+            chestCount = retain(chests, chestCount, queue, Material.CHEST);
+            spawnerCount = retain(spawners, spawnerCount, queue, Material.SPAWNER);
+            trapCount = retain(traps, trapCount, queue, Material.STONE_PRESSURE_PLATE);
+        }
+
+        /**
+         * Build the manifest once the floor height is known
+         */
+        public DungeonManifest build(int floorY) {
+            return new DungeonManifest(floorY, toAbsolute(chests, chestCount, floorY),
+                    toAbsolute(spawners, spawnerCount, floorY), toAbsolute(traps, trapCount, floorY),
+                    Arrays.copyOf(rooms, roomCount));
+        }
+
+        private static int[] append(int[] array, int count, int a, int b, int c) {
+            if (count + 3 > array.length) {
+                array = Arrays.copyOf(array, array.length * 2);
+            }
+            array[count] = a;
+            array[count + 1] = b;
+            array[count + 2] = c;
+            return array;
+        }
+
+        private static int retain(int[] positions, int count, BlockPlacementQueue queue, Material material) {
+            int kept = 0;
+            for (int i = 0; i < count; i += 3) {
+                if (queue.getQueuedMaterial(positions[i], positions[i + 1], positions[i + 2]) == material) {
+                    System.arraycopy(positions, i, positions, kept, 3);
+                    kept += 3;
+                }
+            }
+            return kept;
+        }
+
+        private static int[] toAbsolute(int[] positions, int count, int floorY) {
+            int[] absolute = Arrays.copyOf(positions, count);
+            for (int i = 1; i < count; i += 3) {
+                absolute[i] += floorY;
+            }
+            return absolute;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import org.bukkit.block.Biome;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-world hash grid of dungeon areas, so location lookups only test the
+ * dungeons near a position instead of scanning every dungeon.
+ * Cells are 16x16 chunks. Buckets are replaced rather than modified, so
+ * lookups can run on any thread while dungeons are being added or removed.
+ */
+public class DungeonSpatialIndex {
+
+    // Cells are 256 blocks (16 chunks) wide
+    private static final int CELL_SHIFT = 8;
+
+    private static final BiomeArea[] NO_AREAS = new BiomeArea[0];
+
+    private final Map<String, WorldIndex> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Add a dungeon area to the index
+     */
+    public void add(BiomeArea area) {
+        worlds.computeIfAbsent(area.getWorldName(), name -> new WorldIndex()).add(area);
+    }
+
+    /**
+     * Remove a dungeon area from the index
+     */
+    public void remove(BiomeArea area) {
+        WorldIndex index = worlds.get(area.getWorldName());
+        if (index != null) {
+            index.remove(area);
+        }
+    }
+
+    /**
+     * Check whether an area is in the index
+     */
+    public boolean contains(BiomeArea area) {
+        WorldIndex index = worlds.get(area.getWorldName());
+        return index != null && index.contains(area);
+    }
+
+    /**
+     * Get the dungeon area whose radius contains the given block position
+     * @return The area, or null if the position is not inside a dungeon
+     */
+    public BiomeArea getAreaAt(String worldName, int x, int z) {
+        WorldIndex index = worlds.get(worldName);
+        if (index == null) {
+            return null;
+        }
+
+        for (BiomeArea area : index.coverage.getOrDefault(cellKey(x >> CELL_SHIFT, z >> CELL_SHIFT), NO_AREAS)) {
+            long dx = area.getCenterX() - x;
+            long dz = area.getCenterZ() - z;
+            long radius = area.getRadius();
+            if (dx * dx + dz * dz <= radius * radius) {
+                return area;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the dungeon areas whose bounding square overlaps a chunk
+     */
+    public List<BiomeArea> getAreasInChunk(String worldName, int chunkX, int chunkZ) {
+        WorldIndex index = worlds.get(worldName);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+
+        // Cells are chunk aligned, so a chunk lies in exactly one cell
+        BiomeArea[] bucket = index.coverage.get(cellKey(chunkX >> (CELL_SHIFT - 4), chunkZ >> (CELL_SHIFT - 4)));
+        if (bucket == null) {
+            return Collections.emptyList();
+        }
+
+        List<BiomeArea> areas = new ArrayList<>(1);
+        for (BiomeArea area : bucket) {
+            int radius = area.getRadius();
+            if ((area.getCenterX() - radius) >> 4 <= chunkX && (area.getCenterX() + radius) >> 4 >= chunkX
+                    && (area.getCenterZ() - radius) >> 4 <= chunkZ && (area.getCenterZ() + radius) >> 4 >= chunkZ) {
+                areas.add(area);
+            }
+        }
+        return areas;
+    }
+
+    /**
+     * Check whether any dungeon center lies closer than the given distance to a position
+     */
+    public boolean hasAreaWithin(String worldName, int x, int z, int distance) {
+        WorldIndex index = worlds.get(worldName);
+        if (index == null || distance <= 0) {
+            return false;
+        }
+
+        long limit = (long) distance * distance;
+        int minCellX = (x - distance) >> CELL_SHIFT;
+        int maxCellX = (x + distance) >> CELL_SHIFT;
+        int minCellZ = (z - distance) >> CELL_SHIFT;
+        int maxCellZ = (z + distance) >> CELL_SHIFT;
+
+        // With few dungeons and a large distance, scanning the world is cheaper than the cells
+        long cells = (long) (maxCellX - minCellX + 1) * (maxCellZ - minCellZ + 1);
+        if (cells > index.centers.size()) {
+            for (BiomeArea[] bucket : index.centers.values()) {
+                if (anyWithin(bucket, x, z, limit)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                BiomeArea[] bucket = index.centers.get(cellKey(cellX, cellZ));
+                if (bucket != null && anyWithin(bucket, x, z, limit)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Check whether a world already has a dungeon for the given biome
+     */
+    public boolean hasBiome(String worldName, Biome biome) {
+        WorldIndex index = worlds.get(worldName);
+        return index != null && index.biomeCounts.getOrDefault(biome, 0) > 0;
+    }
+
+    private static boolean anyWithin(BiomeArea[] bucket, int x, int z, long limit) {
+        for (BiomeArea area : bucket) {
+            long dx = area.getCenterX() - x;
+            long dz = area.getCenterZ() - z;
+            if (dx * dx + dz * dz < limit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long cellKey(int cellX, int cellZ) {
+        return ((long) cellX << 32) | (cellZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Index of a single world
+     */
+    private static class WorldIndex {
+        // Areas by every cell their radius overlaps
+        final Map<Long, BiomeArea[]> coverage = new ConcurrentHashMap<>();
+        // Areas by the cell holding their center
+        final Map<Long, BiomeArea[]> centers = new ConcurrentHashMap<>();
+        final Map<Biome, Integer> biomeCounts = new ConcurrentHashMap<>();
+
+        void add(BiomeArea area) {
+            int radius = area.getRadius();
+            int minCellX = (area.getCenterX() - radius) >> CELL_SHIFT;
+            int maxCellX = (area.getCenterX() + radius) >> CELL_SHIFT;
+            int minCellZ = (area.getCenterZ() - radius) >> CELL_SHIFT;
+            int maxCellZ = (area.getCenterZ() + radius) >> CELL_SHIFT;
+
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    coverage.compute(cellKey(cellX, cellZ), (key, bucket) -> with(bucket, area));
+                }
+            }
+
+            centers.compute(cellKey(area.getCenterX() >> CELL_SHIFT, area.getCenterZ() >> CELL_SHIFT),
+                    (key, bucket) -> with(bucket, area));
+            biomeCounts.merge(area.getPrimaryBiome(), 1, Integer::sum);
+        }
+
+        void remove(BiomeArea area) {
+            if (!contains(area)) {
+                return;
+            }
+
+            int radius = area.getRadius();
+            int minCellX = (area.getCenterX() - radius) >> CELL_SHIFT;
+            int maxCellX = (area.getCenterX() + radius) >> CELL_SHIFT;
+            int minCellZ = (area.getCenterZ() - radius) >> CELL_SHIFT;
+            int maxCellZ = (area.getCenterZ() + radius) >> CELL_SHIFT;
+
+            for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+                for (int cellZ = minCellZ; cellZ <= maxCellZ; cellZ++) {
+                    coverage.computeIfPresent(cellKey(cellX, cellZ), (key, bucket) -> without(bucket, area));
+                }
+            }
+
+            centers.computeIfPresent(cellKey(area.getCenterX() >> CELL_SHIFT, area.getCenterZ() >> CELL_SHIFT),
+                    (key, bucket) -> without(bucket, area));
+            biomeCounts.computeIfPresent(area.getPrimaryBiome(), (biome, count) -> count > 1 ? count - 1 : null);
+        }
+
+        boolean contains(BiomeArea area) {
+            BiomeArea[] bucket = centers.get(cellKey(area.getCenterX() >> CELL_SHIFT, area.getCenterZ() >> CELL_SHIFT));
+            if (bucket != null) {
+                for (BiomeArea existing : bucket) {
+                    if (existing.equals(area)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private static BiomeArea[] with(BiomeArea[] bucket, BiomeArea area) {
+            if (bucket == null) {
+                return new BiomeArea[] {area};
+            }
+            for (BiomeArea existing : bucket) {
+                if (existing.equals(area)) {
+                    return bucket;
+                }
+            }
+            BiomeArea[] grown = Arrays.copyOf(bucket, bucket.length + 1);
+            grown[bucket.length] = area;
+            return grown;
+        }
+
+        /**
+         * Get a bucket without an area, or null if it would be empty
+         */
+        private static BiomeArea[] without(BiomeArea[] bucket, BiomeArea area) {
+            for (int i = 0; i < bucket.length; i++) {
+                if (bucket[i].equals(area)) {
+                    if (bucket.length == 1) {
+                        return null;
+                    }
+                    BiomeArea[] shrunk = new BiomeArea[bucket.length - 1];
+                    System.arraycopy(bucket, 0, shrunk, 0, i);
+                    System.arraycopy(bucket, i + 1, shrunk, i, bucket.length - i - 1);
+                    return shrunk;
+                }
+            }
+            return bucket;
+        }
+    }
+}
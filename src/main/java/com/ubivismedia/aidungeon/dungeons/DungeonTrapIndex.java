@@ -0,0 +1,230 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Per-world index of the chunks covered by dungeons and the pressure plates placed
+ * in them, so movement checks can skip everything outside dungeon chunks with a
+ * single lookup and match plates without reading blocks.
+ * Plate positions are packed into ints per chunk; chunks of dungeons whose plates
+ * were not recorded (e.g. loaded from storage) are marked as unknown.
+ * Chunks are kept in open-addressing tables of primitive keys, so lookups do not
+ * allocate. Adding a dungeon publishes a new table for its world, so lookups never lock.
+ */
+public class DungeonTrapIndex {
+
+    /**
+     * Result of a plate lookup in a chunk whose plates were never recorded
+     */
+    public static final int UNKNOWN = -1;
+
+    private static final int[] NO_PLATES = new int[0];
+
+    // Keeps packed Y values positive for worlds with negative build heights
+    private static final int Y_OFFSET = 2048;
+
+    private final Map<String, ChunkTable> worlds = new ConcurrentHashMap<>();
+
+    /**
+     * Add a dungeon whose pressure plates were not recorded; movement in its chunks
+     * has to fall back to reading blocks
+     */
+    public synchronized void addUnrecordedArea(BiomeArea area) {
+        ChunkTable chunks = copyWorld(area, 0);
+        forEachChunk(area, chunks, ChunkTraps::markUnrecorded);
+        worlds.put(area.getWorldName(), chunks);
+    }
+
+    /**
+     * Add a placed dungeon with the pressure plates placed for it
+     * @param plates Absolute block positions as x, y, z triples
+     */
+    public synchronized void addArea(BiomeArea area, int[] plates) {
+        ChunkTable chunks = copyWorld(area, plates.length / 3);
+        forEachChunk(area, chunks, chunk -> {});
+
+        for (int i = 0; i + 2 < plates.length; i += 3) {
+            int x = plates[i];
+            int y = plates[i + 1];
+            int z = plates[i + 2];
+            chunks.getOrCreate(chunkKey(x >> 4, z >> 4)).add(pack(x, y, z));
+        }
+        worlds.put(area.getWorldName(), chunks);
+    }
+
+    /**
+     * Check whether a block column lies in a chunk covered by a dungeon
+     */
+    public boolean isDungeonChunk(String worldName, int x, int z) {
+        return getChunk(worldName, x, z) != null;
+    }
+
+    /**
+     * Check whether a pressure plate was recorded at a block
+     * @return 1 if there is a plate, 0 if not, {@link #UNKNOWN} if the chunk's plates were not recorded
+     */
+    public int hasPressurePlate(String worldName, int x, int y, int z) {
+        ChunkTraps chunk = getChunk(worldName, x, z);
+        if (chunk == null) {
+            return 0;
+        }
+
+        if (chunk.unrecorded) {
+            return UNKNOWN;
+        }
+        return Arrays.binarySearch(chunk.plates, pack(x, y, z)) >= 0 ? 1 : 0;
+    }
+
+    /**
+     * Create the entries of every chunk overlapped by an area and apply an action to them
+     */
+    private static void forEachChunk(BiomeArea area, ChunkTable chunks, Consumer<ChunkTraps> action) {
+        int radius = area.getRadius();
+        int minChunkX = (area.getCenterX() - radius) >> 4;
+        int maxChunkX = (area.getCenterX() + radius) >> 4;
+        int minChunkZ = (area.getCenterZ() - radius) >> 4;
+        int maxChunkZ = (area.getCenterZ() + radius) >> 4;
+
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                action.accept(chunks.getOrCreate(chunkKey(chunkX, chunkZ)));
+            }
+        }
+    }
+
+    private ChunkTraps getChunk(String worldName, int x, int z) {
+        ChunkTable chunks = worlds.get(worldName);
+        return chunks != null ? chunks.get(chunkKey(x >> 4, z >> 4)) : null;
+    }
+
+    /**
+     * Copy the chunk table of an area's world with room for the area's chunks and extra ones
+     */
+    private ChunkTable copyWorld(BiomeArea area, int extraChunks) {
+        int radius = area.getRadius();
+        int chunksAcross = ((area.getCenterX() + radius) >> 4) - ((area.getCenterX() - radius) >> 4) + 1;
+        int areaChunks = chunksAcross * (((area.getCenterZ() + radius) >> 4) - ((area.getCenterZ() - radius) >> 4) + 1);
+
+        ChunkTable current = worlds.get(area.getWorldName());
+        return current != null ? current.copy(areaChunks + extraChunks) : new ChunkTable(areaChunks + extraChunks);
+    }
+
+    private static int pack(int x, int y, int z) {
+        return ((y + Y_OFFSET) << 8) | ((x & 15) << 4) | (z & 15);
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Linear-probing table of chunk keys to their plates. Only modified before it is
+     * published, afterwards it is only read.
+     */
+    private static class ChunkTable {
+        // Would be chunk X -2^31, far outside any world border
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private final long[] keys;
+        private final ChunkTraps[] values;
+        private int size;
+
+        /**
+         * Create an empty table that holds the given number of chunks without growing
+         */
+        ChunkTable(int expectedChunks) {
+            int capacity = Integer.highestOneBit(Math.max(expectedChunks, 16) * 2 - 1) << 1;
+            keys = new long[capacity];
+            values = new ChunkTraps[capacity];
+            Arrays.fill(keys, EMPTY);
+        }
+
+        ChunkTraps get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Get the entry of a chunk, adding it if it is missing. The table must have room for it.
+         */
+        ChunkTraps getOrCreate(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+
+            keys[i] = key;
+            values[i] = new ChunkTraps();
+            size++;
+            return values[i];
+        }
+
+        /**
+         * Copy the table with room for more chunks; the chunk entries themselves are shared
+         */
+        ChunkTable copy(int extraChunks) {
+            ChunkTable copy = new ChunkTable(size + extraChunks);
+            int mask = copy.keys.length - 1;
+            for (int n = 0; n < keys.length; n++) {
+                if (keys[n] != EMPTY) {
+                    int i = hash(keys[n]) & mask;
+                    while (copy.keys[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    copy.keys[i] = keys[n];
+                    copy.values[i] = values[n];
+                }
+            }
+            copy.size = size;
+            return copy;
+        }
+
+        private static int hash(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+
+    /**
+     * Pressure plates of one chunk. The sorted array is replaced rather than
+     * modified, so lookups can run while plates are added.
+     */
+    private static class ChunkTraps {
+        // Sorted packed plate positions
+        volatile int[] plates = NO_PLATES;
+        // Whether an older dungeon without recorded plates overlaps this chunk
+        volatile boolean unrecorded;
+
+        void markUnrecorded() {
+            unrecorded = true;
+        }
+
+        synchronized void add(int packed) {
+            int[] current = plates;
+            int index = Arrays.binarySearch(current, packed);
+            if (index >= 0) {
+                return;
+            }
+
+            int insert = -index - 1;
+            int[] grown = new int[current.length + 1];
+            System.arraycopy(current, 0, grown, 0, insert);
+            grown[insert] = packed;
+            System.arraycopy(current, insert, grown, insert + 1, current.length - insert);
+            plates = grown;
+        }
+    }
+}
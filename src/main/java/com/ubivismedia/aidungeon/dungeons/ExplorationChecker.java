@@ -116,6 +116,8 @@ public class ExplorationChecker {
         double explorationPercentage = plugin.getBiomeExplorationTracker().recordExploredChunk(
                 player,
                 playerWorld,
+                player.getLocation().getBlockX() >> 4,
+                player.getLocation().getBlockZ() >> 4,
                 currentBiome
         );
 
@@ -0,0 +1,111 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import com.ubivismedia.aidungeon.storage.ExplorationFile;
+import org.bukkit.block.Biome;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The explored chunks of one world, tiled into regions of 32x32 chunks with one
+ * bitmap each, so memory grows with the explored area rather than with the world.
+ * Chunks explored since the last save are queued with their biome.
+ * Only used from the main thread.
+ */
+public class ExploredChunkMap {
+
+    private static final int REGION_SHIFT = ExplorationFile.REGION_SHIFT;
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final int WORDS_PER_REGION = (1 << (REGION_SHIFT * 2)) / 64;
+
+    // Explored bits by packed region coordinates
+    private final Map<Long, long[]> regions = new HashMap<>();
+    private int size;
+
+    // Explored chunks waiting to be saved
+    private long[] pendingChunks = new long[64];
+    private Biome[] pendingBiomes = new Biome[64];
+    private int pendingCount;
+
+    /**
+     * Record a newly explored chunk and queue it for saving
+     * @return true if the chunk had not been explored before
+     */
+    public boolean add(int chunkX, int chunkZ, Biome biome) {
+        if (!mark(chunkX, chunkZ)) {
+            return false;
+        }
+
+        if (pendingCount == pendingChunks.length) {
+            pendingChunks = Arrays.copyOf(pendingChunks, pendingCount * 2);
+            pendingBiomes = Arrays.copyOf(pendingBiomes, pendingCount * 2);
+        }
+        pendingChunks[pendingCount] = ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        pendingBiomes[pendingCount++] = biome;
+        return true;
+    }
+
+    /**
+     * Mark a chunk as explored without queuing it, e.g. when loading it from storage
+     * @return true if the chunk had not been explored before
+     */
+    public boolean mark(int chunkX, int chunkZ) {
+        long[] bits = regions.computeIfAbsent(regionKey(chunkX, chunkZ), key -> new long[WORDS_PER_REGION]);
+
+        int index = localIndex(chunkX, chunkZ);
+        long mask = 1L << index;
+        if ((bits[index >>> 6] & mask) != 0) {
+            return false;
+        }
+
+        bits[index >>> 6] |= mask;
+        size++;
+        return true;
+    }
+
+    /**
+     * Check whether a chunk has been explored
+     */
+    public boolean contains(int chunkX, int chunkZ) {
+        long[] bits = regions.get(regionKey(chunkX, chunkZ));
+        if (bits == null) {
+            return false;
+        }
+
+        int index = localIndex(chunkX, chunkZ);
+        return (bits[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * Get the number of explored chunks
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Encode the chunks explored since the last call and clear the queue
+     * @return Record payloads for the world's exploration file
+     */
+    public List<byte[]> drainPending() {
+        if (pendingCount == 0) {
+            return Collections.emptyList();
+        }
+
+        List<byte[]> payloads = ExplorationFile.encode(pendingChunks, pendingBiomes, pendingCount);
+        Arrays.fill(pendingBiomes, 0, pendingCount, null);
+        pendingCount = 0;
+        return payloads;
+    }
+
+    private static long regionKey(int chunkX, int chunkZ) {
+        return ((long) (chunkX >> REGION_SHIFT) << 32) | ((chunkZ >> REGION_SHIFT) & 0xFFFFFFFFL);
+    }
+
+    private static int localIndex(int chunkX, int chunkZ) {
+        return ((chunkZ & REGION_MASK) << REGION_SHIFT) | (chunkX & REGION_MASK);
+    }
+}
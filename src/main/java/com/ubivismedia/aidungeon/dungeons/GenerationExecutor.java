@@ -0,0 +1,194 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import com.ubivismedia.aidungeon.AIDungeonGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Dedicated thread pool for dungeon generation, so layout generation does not
+ * compete with other plugins for Bukkit's shared async scheduler threads.
+ * Waiting tasks are ordered by priority and then by submission order.
+ */
+public class GenerationExecutor {
+
+    private final AIDungeonGenerator plugin;
+    private final ThreadPoolExecutor executor;
+    private final int maxQueuedTasks;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<BiomeArea, GenerationTask> submittedTasks = new ConcurrentHashMap<>();
+
+    /**
+     * Create a new generation executor
+     * @param threads Number of generation threads
+     * @param maxQueuedTasks Maximum number of tasks waiting for a thread
+     */
+    public GenerationExecutor(AIDungeonGenerator plugin, int threads, int maxQueuedTasks) {
+        this.plugin = plugin;
+        this.maxQueuedTasks = maxQueuedTasks;
+
+        ThreadFactory threadFactory = new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "AIDungeon-Generator-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            }
+        };
+
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Submit a task for generation
+     * @param task The task to run
+     * @param work The generation work, run on a generation thread
+     * @return false if the queue is full or the executor is shutting down
+     */
+    public boolean submit(GenerationTask task, Consumer<GenerationTask> work) {
+        if (executor.isShutdown() || isFull()) {
+            return false;
+        }
+
+        submittedTasks.put(task.getArea(), task);
+        executor.execute(new PrioritizedJob(task, work, sequence.getAndIncrement()));
+        return true;
+    }
+
+    /**
+     * Check whether the waiting queue has reached its limit
+     */
+    public boolean isFull() {
+        return executor.getQueue().size() >= maxQueuedTasks;
+    }
+
+    /**
+     * Cancel a queued or running task for an area. Tasks that are not cancellable keep running
+     * @return true if a task was cancelled
+     */
+    public boolean cancel(BiomeArea area) {
+        GenerationTask task = submittedTasks.get(area);
+        if (task == null || !task.isCancellable() || !submittedTasks.remove(area, task)) {
+            return false;
+        }
+
+        task.cancel();
+        executor.getQueue().removeIf(job -> ((PrioritizedJob) job).task == task);
+        return true;
+    }
+
+    /**
+     * Cancel all queued and running tasks in a world
+     * @return The cancelled tasks
+     */
+    public List<GenerationTask> cancelWorld(String worldName) {
+        List<GenerationTask> cancelled = new ArrayList<>();
+        for (Map.Entry<BiomeArea, GenerationTask> entry : submittedTasks.entrySet()) {
+            if (entry.getKey().getWorldName().equals(worldName) && cancel(entry.getKey())) {
+                cancelled.add(entry.getValue());
+            }
+        }
+        return cancelled;
+    }
+
+    /**
+     * Mark a task as finished so it can no longer be cancelled
+     */
+    public void finish(GenerationTask task) {
+        submittedTasks.remove(task.getArea(), task);
+    }
+
+    /**
+     * Get the number of tasks waiting for a thread
+     */
+    public int getQueueSize() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Get the number of tasks currently generating
+     */
+    public int getRunningCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Drop waiting tasks and wait for running generations to finish
+     * @param timeoutSeconds How long to wait before interrupting running tasks
+     */
+    public void shutdown(long timeoutSeconds) {
+        List<Runnable> dropped = new ArrayList<>();
+        executor.getQueue().drainTo(dropped);
+        for (Runnable job : dropped) {
+            ((PrioritizedJob) job).task.cancel();
+        }
+
+        executor.shutdown();
+
+        try {
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("Dungeon generation did not finish in time, interrupting " +
+                        executor.getActiveCount() + " running task(s)");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        if (!dropped.isEmpty()) {
+            plugin.getLogger().info("Discarded " + dropped.size() + " queued dungeon generation(s)");
+        }
+    }
+
+    /**
+     * Runnable wrapper ordered by task priority, then submission order
+     */
+    private class PrioritizedJob implements Runnable, Comparable<PrioritizedJob> {
+        final GenerationTask task;
+        final Consumer<GenerationTask> work;
+        final long sequence;
+
+        PrioritizedJob(GenerationTask task, Consumer<GenerationTask> work, long sequence) {
+            this.task = task;
+            this.work = work;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public void run() {
+            if (task.isCancelled()) {
+                return;
+            }
+
+            try {
+                work.accept(task);
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.SEVERE, "Error generating dungeon", e);
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedJob other) {
+            if (task.getPriority() != other.task.getPriority()) {
+                return Integer.compare(other.task.getPriority(), task.getPriority());
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
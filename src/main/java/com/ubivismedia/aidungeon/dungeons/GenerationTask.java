@@ -6,38 +6,106 @@ import java.util.UUID;
  * Represents a task for generating a dungeon
  */
 public class GenerationTask {
-    
+
+    /**
+     * Priority for dungeons discovered through exploration
+     */
+    public static final int PRIORITY_NORMAL = 0;
+
+    /**
+     * Priority for dungeons requested directly by an admin
+     */
+    public static final int PRIORITY_HIGH = 10;
+
     private final BiomeArea area;
     private final UUID discovererUUID;
     private final long timestamp;
-    
+    private final long seed;
+    private final int priority;
+    private final boolean cancellable;
+    private volatile boolean cancelled;
+
+    /**
+     * Create a new generation task
+     */
+    public GenerationTask(BiomeArea area, UUID discovererUUID, long seed) {
+        this(area, discovererUUID, seed, PRIORITY_NORMAL);
+    }
+
+    /**
+     * Create a new generation task with a specific priority
+     */
+    public GenerationTask(BiomeArea area, UUID discovererUUID, long seed, int priority) {
+        this(area, discovererUUID, seed, priority, true);
+    }
+
     /**
      * Create a new generation task
+     * @param cancellable false for tasks that an existing dungeon waits for, such as layout rebuilds
      */
-    public GenerationTask(BiomeArea area, UUID discovererUUID) {
+    public GenerationTask(BiomeArea area, UUID discovererUUID, long seed, int priority, boolean cancellable) {
         this.area = area;
         this.discovererUUID = discovererUUID;
         this.timestamp = System.currentTimeMillis();
+        this.seed = seed;
+        this.priority = priority;
+        this.cancellable = cancellable;
     }
-    
+
     /**
      * Get the biome area for this task
      */
     public BiomeArea getArea() {
         return area;
     }
-    
+
     /**
      * Get the UUID of the player who discovered this dungeon
      */
     public UUID getDiscovererUUID() {
         return discovererUUID;
     }
-    
+
     /**
      * Get the timestamp when this task was created
      */
     public long getTimestamp() {
         return timestamp;
     }
+
+    /**
+     * Get the seed the dungeon will be generated from
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the priority of this task (higher runs first)
+     */
+    public int getPriority() {
+        return priority;
+    }
+
+    /**
+     * Check if this task may be cancelled before the executor shuts down
+     */
+    public boolean isCancellable() {
+        return cancellable;
+    }
+
+    /**
+     * Cancel this task. A task that is already generating finishes its
+     * current stage but is not placed in the world
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Check if this task has been cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
 }
@@ -3,10 +3,11 @@ package com.ubivismedia.aidungeon.handlers;
 import com.ubivismedia.aidungeon.AIDungeonGenerator;
 import com.ubivismedia.aidungeon.config.DungeonTheme;
 import com.ubivismedia.aidungeon.dungeons.BiomeArea;
-import com.ubivismedia.aidungeon.dungeons.DungeonManager;
+import com.ubivismedia.aidungeon.dungeons.DungeonManifest;
 import com.ubivismedia.aidungeon.dungeons.RoomType;
 import com.ubivismedia.aidungeon.storage.DungeonData;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
@@ -106,8 +107,44 @@ public class MobHandler implements Listener {
     
     @EventHandler
     public void onChunkLoad(ChunkLoadEvent event) {
-        // Check spawners in the chunk and update them
-        for (BlockState state : event.getChunk().getTileEntities()) {
+        Chunk chunk = event.getChunk();
+        boolean unrecorded = false;
+        
+        // Spawners of dungeons in this chunk are looked up in their manifests
+        for (BiomeArea dungeonArea : plugin.getDungeonManager().getDungeonAreasInChunk(
+                chunk.getWorld().getName(), chunk.getX(), chunk.getZ())) {
+            DungeonData dungeonData = plugin.getDungeonManager().getDungeon(dungeonArea);
+            if (dungeonData == null) {
+                continue;
+            }
+            
+            DungeonManifest manifest = dungeonData.getManifest();
+            if (manifest == null) {
+                unrecorded = true;
+                continue;
+            }
+            
+            int[] spawners = manifest.getSpawnersInChunk(chunk.getX(), chunk.getZ());
+            for (int i = 0; i < spawners.length; i += 3) {
+                BlockState state = chunk.getBlock(spawners[i] & 15, spawners[i + 1], spawners[i + 2] & 15).getState();
+                if (state instanceof CreatureSpawner) {
+                    // Set spawner type based on theme
+                    updateSpawnerForTheme((CreatureSpawner) state, dungeonData.getTheme().getName());
+                }
+            }
+        }
+        
+        // Dungeons placed before features were recorded still need the chunk's tile entities checked
+        if (unrecorded) {
+            updateUnrecordedSpawners(chunk);
+        }
+    }
+    
+    /**
+     * Find spawners of dungeons without a manifest among a chunk's tile entities and update them
+     */
+    private void updateUnrecordedSpawners(Chunk chunk) {
+        for (BlockState state : chunk.getTileEntities()) {
             if (state instanceof CreatureSpawner) {
                 CreatureSpawner spawner = (CreatureSpawner) state;
                 Location loc = spawner.getLocation();
@@ -117,7 +154,7 @@ public class MobHandler implements Listener {
                 if (dungeonArea != null) {
                     // Get dungeon data
                     DungeonData dungeonData = plugin.getDungeonManager().getDungeon(dungeonArea);
-                    if (dungeonData != null) {
+                    if (dungeonData != null && dungeonData.getManifest() == null) {
                         // Set spawner type based on theme
                         updateSpawnerForTheme(spawner, dungeonData.getTheme().getName());
                     }
@@ -598,23 +635,7 @@ public class MobHandler implements Listener {
      * Get the dungeon area at a specific location
      */
     private BiomeArea getDungeonAreaAtLocation(Location location) {
-        DungeonManager dungeonManager = plugin.getDungeonManager();
-        Map<BiomeArea, DungeonData> dungeons = dungeonManager.getAllDungeons();
-        
-        for (BiomeArea area : dungeons.keySet()) {
-            if (area.getWorldName().equals(location.getWorld().getName())) {
-                double distance = Math.sqrt(
-                        Math.pow(area.getCenterX() - location.getBlockX(), 2) +
-                        Math.pow(area.getCenterZ() - location.getBlockZ(), 2)
-                );
-                
-                if (distance <= area.getRadius()) {
-                    return area;
-                }
-            }
-        }
-        
-        return null;
+        return plugin.getDungeonManager().getDungeonAreaAtLocation(location);
     }
     
     /**
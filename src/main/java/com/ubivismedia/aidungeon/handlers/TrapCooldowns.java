@@ -0,0 +1,216 @@
+package com.ubivismedia.aidungeon.handlers;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cooldowns of triggered trap blocks, keyed by packed block coordinates per world.
+ * Entries are held in an open-addressing table of primitives and expired through a
+ * time wheel of one-second slots, so checks do not allocate and expiring only
+ * touches the entries that are due. Only used from the main thread.
+ */
+class TrapCooldowns {
+
+    // One-second slots; must be a power of two
+    private static final int SLOTS = 128;
+
+    private final long cooldownMillis;
+    private final Map<String, WorldCooldowns> worlds = new HashMap<>();
+    private long lastSecond;
+
+    /**
+     * Create an empty cooldown table
+     */
+    TrapCooldowns(long cooldownMillis) {
+        this.cooldownMillis = cooldownMillis;
+        this.lastSecond = System.currentTimeMillis() / 1000;
+    }
+
+    /**
+     * Start the cooldown of a block unless it is already cooling down
+     * @return true if the block was still on cooldown
+     */
+    boolean checkAndTrigger(String worldName, int x, int y, int z, long now) {
+        expire(now);
+
+        WorldCooldowns cooldowns = worlds.get(worldName);
+        if (cooldowns == null) {
+            cooldowns = new WorldCooldowns();
+            worlds.put(worldName, cooldowns);
+        }
+
+        long key = pack(x, y, z);
+        long expiry = cooldowns.get(key);
+        if (expiry > now) {
+            return true;
+        }
+
+        expiry = now + cooldownMillis;
+        cooldowns.put(key, expiry);
+        cooldowns.schedule(key, expiry);
+        return false;
+    }
+
+    /**
+     * Remove the cooldowns that ran out, visiting only the wheel slots passed since the last call
+     */
+    void expire(long now) {
+        long second = now / 1000;
+        if (second <= lastSecond) {
+            return;
+        }
+
+        // After a long pause every slot is due once
+        long first = Math.max(lastSecond + 1, second - SLOTS + 1);
+        for (long s = first; s <= second; s++) {
+            int slot = (int) (s & (SLOTS - 1));
+            for (WorldCooldowns cooldowns : worlds.values()) {
+                cooldowns.expireSlot(slot, now);
+            }
+        }
+        lastSecond = second;
+    }
+
+    private static long pack(int x, int y, int z) {
+        return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+    }
+
+    /**
+     * Wheel slot processed once an expiry time has passed
+     */
+    private static int slotOf(long expiry) {
+        return (int) ((expiry / 1000 + 1) & (SLOTS - 1));
+    }
+
+    /**
+     * Linear-probing table of packed block keys to expiry times plus its wheel.
+     * An expiry of 0 marks an empty table slot.
+     */
+    private static class WorldCooldowns {
+        private long[] keys = new long[64];
+        private long[] expiries = new long[64];
+        private int size;
+
+        // Keys scheduled per wheel slot; entries whose cooldown was renewed are dropped when visited
+        private final long[][] wheel = new long[SLOTS][];
+        private final int[] wheelSizes = new int[SLOTS];
+
+        long get(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; expiries[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return expiries[i];
+                }
+            }
+            return 0;
+        }
+
+        void put(long key, long expiry) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (; expiries[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    expiries[i] = expiry;
+                    return;
+                }
+            }
+
+            keys[i] = key;
+            expiries[i] = expiry;
+            if (++size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+        }
+
+        void schedule(long key, long expiry) {
+            int slot = slotOf(expiry);
+            long[] entries = wheel[slot];
+            if (entries == null) {
+                entries = wheel[slot] = new long[16];
+            } else if (wheelSizes[slot] == entries.length) {
+                entries = wheel[slot] = Arrays.copyOf(entries, entries.length * 2);
+            }
+            entries[wheelSizes[slot]++] = key;
+        }
+
+        void expireSlot(int slot, long now) {
+            long[] entries = wheel[slot];
+            int count = wheelSizes[slot];
+            int kept = 0;
+
+            for (int n = 0; n < count; n++) {
+                long key = entries[n];
+                int index = indexOf(key);
+                if (index < 0) {
+                    continue;
+                }
+
+                long expiry = expiries[index];
+                if (expiry <= now) {
+                    removeAt(index);
+                } else if (slotOf(expiry) == slot) {
+                    // Due in a later turn of the wheel
+                    entries[kept++] = key;
+                }
+            }
+
+            wheelSizes[slot] = kept;
+        }
+
+        private int indexOf(long key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; expiries[i] != 0; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Remove an entry, shifting later entries of its probe run back so lookups need no tombstones
+         */
+        private void removeAt(int index) {
+            int mask = keys.length - 1;
+            int hole = index;
+            for (int i = (index + 1) & mask; expiries[i] != 0; i = (i + 1) & mask) {
+                int home = hash(keys[i]) & mask;
+                boolean reachable = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+                if (!reachable) {
+                    keys[hole] = keys[i];
+                    expiries[hole] = expiries[i];
+                    hole = i;
+                }
+            }
+            expiries[hole] = 0;
+            size--;
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            long[] oldExpiries = expiries;
+            keys = new long[capacity];
+            expiries = new long[capacity];
+
+            int mask = capacity - 1;
+            for (int n = 0; n < oldKeys.length; n++) {
+                if (oldExpiries[n] != 0) {
+                    int i = hash(oldKeys[n]) & mask;
+                    while (expiries[i] != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[n];
+                    expiries[i] = oldExpiries[n];
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+}
@@ -2,7 +2,7 @@ package com.ubivismedia.aidungeon.handlers;
 
 import com.ubivismedia.aidungeon.AIDungeonGenerator;
 import com.ubivismedia.aidungeon.dungeons.BiomeArea;
-import com.ubivismedia.aidungeon.dungeons.DungeonManager;
+import com.ubivismedia.aidungeon.dungeons.DungeonTrapIndex;
 import com.ubivismedia.aidungeon.localization.LanguageManager;
 import com.ubivismedia.aidungeon.storage.DungeonData;
 import org.bukkit.*;
@@ -27,7 +27,6 @@ import org.bukkit.persistence.PersistentDataContainer;
 import org.bukkit.persistence.PersistentDataType;
 
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Handles trap mechanics in dungeons
@@ -37,11 +36,11 @@ public class TrapHandler implements Listener {
     private final AIDungeonGenerator plugin;
     private final Random random = new Random();
     
-    // Cache triggered traps to prevent multiple activations
-    private final Map<Location, Long> triggeredTraps = new ConcurrentHashMap<>();
-    
     // Trap cooldown (in milliseconds)
     private static final long TRAP_COOLDOWN = 60000; // 1 minute
+    
+    // Cache triggered traps to prevent multiple activations
+    private final TrapCooldowns triggeredTraps = new TrapCooldowns(TRAP_COOLDOWN);
 
     // Defines trap types available in the plugin
     public enum TrapType {
@@ -60,16 +59,13 @@ public class TrapHandler implements Listener {
     public TrapHandler(AIDungeonGenerator plugin) {
         this.plugin = plugin;
         
-        // Clean up old trap triggers periodically
+        // Clean up old trap triggers periodically, only expired entries are visited
         new BukkitRunnable() {
             @Override
             public void run() {
-                long currentTime = System.currentTimeMillis();
-                triggeredTraps.entrySet().removeIf(entry -> 
-                    currentTime - entry.getValue() > TRAP_COOLDOWN
-                );
+                triggeredTraps.expire(System.currentTimeMillis());
             }
-        }.runTaskTimer(plugin, 1200L, 1200L); // Run every minute
+        }.runTaskTimer(plugin, 20L, 20L); // Run every second
     }
     
     @EventHandler
@@ -81,12 +77,22 @@ public class TrapHandler implements Listener {
             return;
         }
         
+        Location location = event.getTo();
+        String worldName = location.getWorld().getName();
+        int x = location.getBlockX();
+        int y = location.getBlockY();
+        int z = location.getBlockZ();
+        
+        // Traps only exist in dungeon chunks, everything else is a single lookup
+        DungeonTrapIndex trapIndex = plugin.getDungeonManager().getTrapIndex();
+        if (!trapIndex.isDungeonChunk(worldName, x, z)) {
+            return;
+        }
+        
         Player player = event.getPlayer();
-        Location location = player.getLocation();
-        Block block = location.getBlock();
         
         // Check if player is standing on a pressure plate
-        if (isPressurePlate(block.getRelative(BlockFace.DOWN).getType())) {
+        if (isOnPressurePlate(trapIndex, location, worldName, x, y, z)) {
             // Check if this is in a dungeon
             if (isInDungeon(location)) {
                 // Check if this trap has been triggered recently
@@ -97,18 +103,32 @@ public class TrapHandler implements Listener {
             }
         }
         
-        // Check for hidden floor traps (if player is moving on certain blocks)
-        Material standingOn = location.getBlock().getRelative(BlockFace.DOWN).getType();
-        if ((standingOn == Material.STONE_BRICKS || standingOn == Material.CRACKED_STONE_BRICKS 
-                || standingOn == Material.MOSSY_STONE_BRICKS) && random.nextInt(100) < 5) {
-            
-            // 5% chance to trigger hidden trap
-            if (isInDungeon(location) && !hasBeenTriggeredRecently(location)) {
+        // Check for hidden floor traps (5% chance if player is moving on certain blocks)
+        if (random.nextInt(100) < 5) {
+            Material standingOn = location.getBlock().getRelative(BlockFace.DOWN).getType();
+            if ((standingOn == Material.STONE_BRICKS || standingOn == Material.CRACKED_STONE_BRICKS 
+                    || standingOn == Material.MOSSY_STONE_BRICKS)
+                    && isInDungeon(location) && !hasBeenTriggeredRecently(location)) {
                 triggerHiddenTrap(player, location);
             }
         }
     }
     
+    /**
+     * Check whether a position in a dungeon chunk is on a pressure plate, using the
+     * recorded plates and only reading blocks for dungeons that have none recorded
+     */
+    private boolean isOnPressurePlate(DungeonTrapIndex trapIndex, Location location,
+                                      String worldName, int x, int y, int z) {
+        // A plate is the block the player stands in; the block below is accepted as well
+        int atFeet = trapIndex.hasPressurePlate(worldName, x, y, z);
+        if (atFeet == DungeonTrapIndex.UNKNOWN) {
+            Block block = location.getBlock();
+            return isPressurePlate(block.getType()) || isPressurePlate(block.getRelative(BlockFace.DOWN).getType());
+        }
+        return atFeet == 1 || trapIndex.hasPressurePlate(worldName, x, y - 1, z) == 1;
+    }
+    
     @EventHandler
     public void onPlayerInteract(PlayerInteractEvent event) {
         // Check for tripwire or button activation
@@ -151,48 +171,17 @@ public class TrapHandler implements Listener {
      * Check if a location is within a generated dungeon
      */
     private boolean isInDungeon(Location location) {
-        DungeonManager dungeonManager = plugin.getDungeonManager();
-        
-        // Get all dungeons
-        Map<BiomeArea, DungeonData> dungeons = dungeonManager.getAllDungeons();
-        
-        // Check each dungeon
-        for (BiomeArea area : dungeons.keySet()) {
-            if (area.getWorldName().equals(location.getWorld().getName())) {
-                // Calculate distance from dungeon center
-                double distance = Math.sqrt(
-                        Math.pow(area.getCenterX() - location.getBlockX(), 2) +
-                        Math.pow(area.getCenterZ() - location.getBlockZ(), 2)
-                );
-                
-                // If within radius, consider it in the dungeon
-                if (distance <= area.getRadius()) {
-                    return true;
-                }
-            }
-        }
-        
-        return false;
+        return plugin.getDungeonManager().getDungeonAreaAtLocation(location) != null;
     }
     
     /**
      * Check if a trap at this location has been triggered recently
      */
     private boolean hasBeenTriggeredRecently(Location location) {
-        // Round location to block center to avoid slight variations
-        Location blockLoc = location.getBlock().getLocation().add(0.5, 0, 0.5);
-        
-        // Check if in cache and not expired
-        if (triggeredTraps.containsKey(blockLoc)) {
-            long triggerTime = triggeredTraps.get(blockLoc);
-            if (System.currentTimeMillis() - triggerTime < TRAP_COOLDOWN) {
-                return true;
-            }
-        }
-        
-        // Mark as triggered
-        triggeredTraps.put(blockLoc, System.currentTimeMillis());
-        return false;
+        // Check the block coordinates and mark as triggered if not on cooldown
+        return triggeredTraps.checkAndTrigger(location.getWorld().getName(),
+                location.getBlockX(), location.getBlockY(), location.getBlockZ(),
+                System.currentTimeMillis());
     }
     
     /**
@@ -692,24 +681,8 @@ public class TrapHandler implements Listener {
         location.getWorld().spawnParticle(Particle.PORTAL, location, 100, 0.5, 1, 0.5, 0.1);
         
         // Find a random room in the dungeon to teleport to
-        DungeonManager dungeonManager = plugin.getDungeonManager();
-        Map<BiomeArea, DungeonData> dungeons = dungeonManager.getAllDungeons();
-        
         // Get current dungeon
-        BiomeArea currentDungeon = null;
-        for (BiomeArea area : dungeons.keySet()) {
-            if (area.getWorldName().equals(location.getWorld().getName())) {
-                double distance = Math.sqrt(
-                        Math.pow(area.getCenterX() - location.getBlockX(), 2) +
-                        Math.pow(area.getCenterZ() - location.getBlockZ(), 2)
-                );
-                
-                if (distance <= area.getRadius()) {
-                    currentDungeon = area;
-                    break;
-                }
-            }
-        }
+        BiomeArea currentDungeon = getDungeonAreaAtLocation(location);
         
         if (currentDungeon != null) {
             // Calculate a random point in the dungeon
@@ -933,23 +906,7 @@ public class TrapHandler implements Listener {
      * Get the dungeon area at a specific location
      */
     private BiomeArea getDungeonAreaAtLocation(Location location) {
-        DungeonManager dungeonManager = plugin.getDungeonManager();
-        Map<BiomeArea, DungeonData> dungeons = dungeonManager.getAllDungeons();
-        
-        for (BiomeArea area : dungeons.keySet()) {
-            if (area.getWorldName().equals(location.getWorld().getName())) {
-                double distance = Math.sqrt(
-                        Math.pow(area.getCenterX() - location.getBlockX(), 2) +
-                        Math.pow(area.getCenterZ() - location.getBlockZ(), 2)
-                );
-                
-                if (distance <= area.getRadius()) {
-                    return area;
-                }
-            }
-        }
-        
-        return null;
+        return plugin.getDungeonManager().getDungeonAreaAtLocation(location);
     }
     
     /**
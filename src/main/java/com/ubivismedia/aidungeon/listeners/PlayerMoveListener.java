@@ -18,10 +18,12 @@ import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.player.PlayerMoveEvent;
 import org.bukkit.event.player.PlayerQuitEvent;
 
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.UUID;
 
 /**
  * Listens for player movement to detect biome changes
@@ -29,13 +31,31 @@ import java.util.Set;
  */
 public class PlayerMoveListener implements Listener {
 
+    // Ticks between runs of the biome sampling task
+    private static final long SAMPLE_INTERVAL = 5L;
+
+    // Chunks a player is remembered to have visited before the set is started over
+    private static final int MAX_VISITED_CHUNKS = 4096;
+
+    // Heights sampled per chunk, common heights first
+    private static final int[] SAMPLE_HEIGHTS = {60, 80, 100, 120, 40, 20};
+
     private final AIDungeonGenerator plugin;
     private final BiomeTracker biomeTracker;
     private final DungeonManager dungeonManager;
     private final QuestSystem questSystem;
 
-    // Track chunks that have been recorded to avoid redundant processing
-    private final Set<String> recordedChunks = new HashSet<>();
+    // Chunk visit state by player, only used on the main thread
+    private final Map<UUID, ExplorationState> explorationStates = new HashMap<>();
+
+    // Players with chunks waiting to be sampled, in the order they were queued
+    private final Deque<UUID> pendingPlayers = new ArrayDeque<>();
+
+    // Scratch space for the biome vote of one chunk
+    private final Biome[] sampledBiomes = new Biome[SAMPLE_HEIGHTS.length];
+    private final int[] sampledCounts = new int[SAMPLE_HEIGHTS.length];
+
+    private final int samplesPerRun;
 
     public PlayerMoveListener(AIDungeonGenerator plugin, BiomeTracker biomeTracker,
                               DungeonManager dungeonManager, QuestSystem questSystem) {
@@ -43,17 +63,40 @@ public class PlayerMoveListener implements Listener {
         this.biomeTracker = biomeTracker;
         this.dungeonManager = dungeonManager;
         this.questSystem = questSystem;
+        this.samplesPerRun = Math.max(1, plugin.getConfig().getInt("discovery.chunk-samples-per-run", 64));
+
+        // Sample the biomes of newly entered chunks in batches instead of in the move event
+        Bukkit.getScheduler().runTaskTimer(plugin, this::samplePendingChunks, SAMPLE_INTERVAL, SAMPLE_INTERVAL);
     }
 
     @EventHandler
     public void onPlayerMove(PlayerMoveEvent event) {
+        Location from = event.getFrom();
+        Location to = event.getTo();
+
         // Skip if only pitch/yaw changed
-        if (event.getFrom().getBlockX() == event.getTo().getBlockX()
-                && event.getFrom().getBlockZ() == event.getTo().getBlockZ()) {
+        if (to == null || (from.getBlockX() == to.getBlockX() && from.getBlockZ() == to.getBlockZ())) {
+            return;
+        }
+
+        World world = to.getWorld();
+        if (world == null) {
             return;
         }
 
         Player player = event.getPlayer();
+        ExplorationState state = explorationStates.get(player.getUniqueId());
+        if (state == null) {
+            state = new ExplorationState();
+            explorationStates.put(player.getUniqueId(), state);
+        }
+
+        // Everything below only needs to run when the player enters another chunk
+        int chunkX = to.getBlockX() >> 4;
+        int chunkZ = to.getBlockZ() >> 4;
+        if (!state.enterChunk(world.getName(), chunkKey(chunkX, chunkZ))) {
+            return;
+        }
 
         // Skip if player doesn't have permission
         if (!player.hasPermission("aidungeon.discover")) {
@@ -61,7 +104,7 @@ public class PlayerMoveListener implements Listener {
         }
 
         // Track exploration in the current chunk
-        trackExplorationAtLocation(player, player.getLocation());
+        queueChunksAround(player, state, chunkX, chunkZ);
 
         // Check if player has entered a new biome area - primarily for quest generation
         BiomeArea newArea = biomeTracker.checkPlayerBiomeChange(player);
@@ -69,7 +112,7 @@ public class PlayerMoveListener implements Listener {
         // If a new biome area was detected
         if (newArea != null) {
             // Check if entering an existing dungeon (for quest generation)
-            BiomeArea existingDungeon = dungeonManager.getDungeonAreaAtLocation(player.getLocation());
+            BiomeArea existingDungeon = dungeonManager.getDungeonAreaAtLocation(to);
             if (existingDungeon != null) {
                 // Generate quest when entering a dungeon
                 questSystem.generateQuestForPlayer(player, existingDungeon);
@@ -78,78 +121,120 @@ public class PlayerMoveListener implements Listener {
     }
 
     /**
-     * Track exploration at the given location and surrounding chunks
+     * Queue the current chunk and its neighbours for sampling if the player has not visited them yet
      */
-    private void trackExplorationAtLocation(Player player, Location location) {
-        World world = location.getWorld();
-        if (world == null) return;
-
-        // Get current chunk coordinates
-        int chunkX = location.getBlockX() >> 4;
-        int chunkZ = location.getBlockZ() >> 4;
-
-        // Track exploration in current chunk and surrounding chunks
-        int radius = 1; // Track current chunk and immediate neighbors
+    private void queueChunksAround(Player player, ExplorationState state, int chunkX, int chunkZ) {
+        // Track current chunk and immediate neighbors
+        int radius = 1;
+        boolean queued = false;
 
         for (int x = -radius; x <= radius; x++) {
             for (int z = -radius; z <= radius; z++) {
-                // Calculate chunk coordinates
-                int targetChunkX = chunkX + x;
-                int targetChunkZ = chunkZ + z;
-
-                // Create unique key for this chunk
-                String chunkKey = world.getName() + ":" + targetChunkX + ":" + targetChunkZ;
-
-                // Skip if we've already recorded this chunk recently
-                if (recordedChunks.contains(chunkKey)) {
-                    continue;
+                long key = chunkKey(chunkX + x, chunkZ + z);
+                if (state.visited.add(key)) {
+                    state.queue(key);
+                    queued = true;
                 }
+            }
+        }
+
+        if (queued && !state.scheduled) {
+            state.scheduled = true;
+            pendingPlayers.add(player.getUniqueId());
+        }
+    }
 
-                // Add to recorded chunks
-                recordedChunks.add(chunkKey);
+    /**
+     * Sample and record the queued chunks, up to the configured number per run
+     */
+    private void samplePendingChunks() {
+        int budget = samplesPerRun;
+
+        while (budget > 0 && !pendingPlayers.isEmpty()) {
+            UUID playerId = pendingPlayers.poll();
+            ExplorationState state = explorationStates.get(playerId);
+            Player player = Bukkit.getPlayer(playerId);
+            if (state == null || player == null) {
+                continue;
+            }
 
-                // Keep recorded chunks set from growing too large
-                if (recordedChunks.size() > 1000) {
-                    recordedChunks.clear();
-                }
+            World world = player.getWorld();
+            if (!world.getName().equals(state.worldName)) {
+                // Chunks queued in a world the player has since left; queue the player again on their next chunk
+                state.clearPending();
+                state.scheduled = false;
+                continue;
+            }
 
-                // Get center block position of this chunk
-                int blockX = targetChunkX << 4;
-                int blockZ = targetChunkZ << 4;
+            while (budget > 0 && state.pendingCount > 0) {
+                long key = state.pending[--state.pendingCount];
+                int chunkX = (int) (key >> 32);
+                int chunkZ = (int) key;
 
-                // Sample the biome at multiple Y levels to handle overlapping biomes
-                Biome primaryBiome = null;
-                Map<Biome, Integer> biomeCounts = new HashMap<>();
+                if (!world.isChunkLoaded(chunkX, chunkZ)) {
+                    // Don't load chunks just to sample them, try again when the player comes back
+                    state.visited.remove(key);
+                    continue;
+                }
 
-                // Check multiple Y levels - ensure we capture the right biome
-                int[] yLevels = {60, 80, 100, 120, 40, 20}; // Check common heights first
+                Biome biome = samplePrimaryBiome(world, chunkX, chunkZ);
+                if (biome != null) {
+                    plugin.getBiomeExplorationTracker().recordExploredChunk(player, world, chunkX, chunkZ, biome);
+                }
+                budget--;
+            }
 
-                for (int y : yLevels) {
-                    // Skip if out of world bounds
-                    if (y < world.getMinHeight() || y > world.getMaxHeight()) {
-                        continue;
-                    }
+            if (state.pendingCount > 0) {
+                // Continue with this player in a later run
+                pendingPlayers.add(playerId);
+            } else {
+                state.scheduled = false;
+            }
+        }
+    }
 
-                    Biome biome = world.getBiome(blockX, y, blockZ);
-                    biomeCounts.put(biome, biomeCounts.getOrDefault(biome, 0) + 1);
+    /**
+     * Get the biome seen most at the sampled heights of a chunk's corner column
+     */
+    private Biome samplePrimaryBiome(World world, int chunkX, int chunkZ) {
+        // Get corner block position of this chunk
+        int blockX = chunkX << 4;
+        int blockZ = chunkZ << 4;
+
+        int distinct = 0;
+        int primary = -1;
+
+        // Sample the biome at multiple Y levels to handle overlapping biomes
+        for (int y : SAMPLE_HEIGHTS) {
+            // Skip if out of world bounds
+            if (y < world.getMinHeight() || y > world.getMaxHeight()) {
+                continue;
+            }
 
-                    // If this is the first Y level or if this biome is seen more often
-                    if (primaryBiome == null ||
-                            biomeCounts.get(biome) > biomeCounts.get(primaryBiome)) {
-                        primaryBiome = biome;
-                    }
-                }
+            Biome biome = world.getBiome(blockX, y, blockZ);
+            int index = 0;
+            while (index < distinct && sampledBiomes[index] != biome) {
+                index++;
+            }
+            if (index == distinct) {
+                sampledBiomes[distinct] = biome;
+                sampledCounts[distinct++] = 0;
+            }
+            sampledCounts[index]++;
 
-                // If we found a biome, record exploration
-                if (primaryBiome != null) {
-                    plugin.getBiomeExplorationTracker().recordExploredChunk(
-                            player,
-                            world,
-                            primaryBiome
-                    );
-                }
+            // If this is the first Y level or if this biome is seen more often
+            if (primary < 0 || sampledCounts[index] > sampledCounts[primary]) {
+                primary = index;
             }
         }
+
+        Biome result = primary >= 0 ? sampledBiomes[primary] : null;
+        Arrays.fill(sampledBiomes, 0, distinct, null);
+        return result;
+    }
+
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
     }
 
     /**
@@ -190,6 +275,7 @@ public class PlayerMoveListener implements Listener {
         // Clear any tracking data for this player
         // This will force a new biome check on their first movement
         biomeTracker.clearPlayer(event.getPlayer().getUniqueId());
+        explorationStates.remove(event.getPlayer().getUniqueId());
 
         // Also clear exploration checker data
         plugin.getExplorationChecker().clearPlayer(event.getPlayer().getUniqueId());
@@ -199,7 +285,154 @@ public class PlayerMoveListener implements Listener {
     public void onPlayerQuit(PlayerQuitEvent event) {
         // Clear tracking data to save memory
         biomeTracker.clearPlayer(event.getPlayer().getUniqueId());
+        explorationStates.remove(event.getPlayer().getUniqueId());
         plugin.getBiomeExplorationTracker().resetPlayerData(event.getPlayer().getUniqueId());
         plugin.getExplorationChecker().clearPlayer(event.getPlayer().getUniqueId());
     }
-}
\ No newline at end of file
+
+    /**
+     * Chunk visit state of one player
+     */
+    private static class ExplorationState {
+        String worldName;
+        long currentChunk;
+
+        // Chunks already queued or sampled for this player in the current world
+        final ChunkSet visited = new ChunkSet();
+
+        // Chunks waiting to be sampled, taken from the end
+        long[] pending = new long[16];
+        int pendingCount;
+
+        // Whether the player is in the queue of the sampling task
+        boolean scheduled;
+
+        /**
+         * Move the player to a chunk
+         * @return true if it is a different chunk than before
+         */
+        boolean enterChunk(String world, long chunk) {
+            if (world.equals(worldName)) {
+                if (chunk == currentChunk) {
+                    return false;
+                }
+            } else {
+                worldName = world;
+                visited.clear();
+                clearPending();
+            }
+
+            currentChunk = chunk;
+            if (visited.size() >= MAX_VISITED_CHUNKS) {
+                visited.clear();
+            }
+            return true;
+        }
+
+        void queue(long chunk) {
+            if (pendingCount == pending.length) {
+                pending = Arrays.copyOf(pending, pendingCount * 2);
+            }
+            pending[pendingCount++] = chunk;
+        }
+
+        void clearPending() {
+            pendingCount = 0;
+        }
+    }
+
+    /**
+     * Open-addressing set of packed chunk keys
+     */
+    private static class ChunkSet {
+        // Would be chunk X -2^31, far outside any world border
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        private long[] keys = newTable(64);
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * @return true if the key was not in the set yet
+         */
+        boolean add(long key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            for (; keys[i] != EMPTY; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return false;
+                }
+            }
+
+            keys[i] = key;
+            if (++size * 2 > keys.length) {
+                resize(keys.length * 2);
+            }
+            return true;
+        }
+
+        /**
+         * Remove a key, shifting later keys of its probe run back so lookups need no tombstones
+         */
+        void remove(long key) {
+            int mask = keys.length - 1;
+            int hole = hash(key) & mask;
+            while (keys[hole] != key) {
+                if (keys[hole] == EMPTY) {
+                    return;
+                }
+                hole = (hole + 1) & mask;
+            }
+
+            for (int i = (hole + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+                int home = hash(keys[i]) & mask;
+                boolean reachable = hole <= i ? (hole < home && home <= i) : (hole < home || home <= i);
+                if (!reachable) {
+                    keys[hole] = keys[i];
+                    hole = i;
+                }
+            }
+            keys[hole] = EMPTY;
+            size--;
+        }
+
+        void clear() {
+            if (size > 0) {
+                Arrays.fill(keys, EMPTY);
+                size = 0;
+            }
+        }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            keys = newTable(capacity);
+
+            int mask = capacity - 1;
+            for (long key : oldKeys) {
+                if (key != EMPTY) {
+                    int i = hash(key) & mask;
+                    while (keys[i] != EMPTY) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = key;
+                }
+            }
+        }
+
+        private static long[] newTable(int capacity) {
+            long[] table = new long[capacity];
+            Arrays.fill(table, EMPTY);
+            return table;
+        }
+
+        private static int hash(long key) {
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            return (int) key;
+        }
+    }
+}
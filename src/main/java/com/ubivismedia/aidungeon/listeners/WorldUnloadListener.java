@@ -0,0 +1,34 @@
+package com.ubivismedia.aidungeon.listeners;
+
+import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import com.ubivismedia.aidungeon.dungeons.DungeonManager;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.WorldUnloadEvent;
+
+/**
+ * Cancels dungeon generations and placements for worlds that are unloaded,
+ * so their dungeons are not generated and placed into a world that is gone
+ */
+public class WorldUnloadListener implements Listener {
+
+    private final AIDungeonGenerator plugin;
+    private final DungeonManager dungeonManager;
+
+    public WorldUnloadListener(AIDungeonGenerator plugin, DungeonManager dungeonManager) {
+        this.plugin = plugin;
+        this.dungeonManager = dungeonManager;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onWorldUnload(WorldUnloadEvent event) {
+        String worldName = event.getWorld().getName();
+        int generations = dungeonManager.cancelGenerations(worldName);
+        int placements = dungeonManager.cancelPlacements(event.getWorld());
+        if (generations > 0 || placements > 0) {
+            plugin.getLogger().info("Cancelled " + generations + " dungeon generation(s) and " + placements +
+                    " placement(s) in unloaded world " + worldName);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.ubivismedia.aidungeon.quests;
+
+import com.ubivismedia.aidungeon.dungeons.BiomeArea;
+import org.bukkit.ChunkSnapshot;
+import org.bukkit.Material;
+import org.bukkit.World;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Finds quest chests and marker spots in a dungeon by scanning snapshots of its
+ * loaded chunks, so the block scan itself can run off the main thread.
+ * Positions are returned as x, y, z triples.
+ */
+final class DungeonBlockScanner {
+
+    // Vertical range searched for dungeon blocks
+    private static final int MIN_Y = 40;
+    private static final int MAX_Y = 120;
+
+    // Columns between marker candidates
+    private static final int MARKER_STEP = 4;
+
+    private final List<ChunkSnapshot> snapshots;
+    private final int centerX;
+    private final int centerZ;
+    private final int minY;
+    private final int maxY;
+
+    private DungeonBlockScanner(List<ChunkSnapshot> snapshots, int centerX, int centerZ, int minY, int maxY) {
+        this.snapshots = snapshots;
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    /**
+     * Take snapshots of the loaded chunks of a dungeon. Must be called on the main thread.
+     */
+    static DungeonBlockScanner snapshot(World world, BiomeArea area) {
+        int radius = area.getRadius();
+        int minChunkX = (area.getCenterX() - radius) >> 4;
+        int maxChunkX = (area.getCenterX() + radius) >> 4;
+        int minChunkZ = (area.getCenterZ() - radius) >> 4;
+        int maxChunkZ = (area.getCenterZ() + radius) >> 4;
+
+        List<ChunkSnapshot> snapshots = new ArrayList<>();
+        for (int chunkX = minChunkX; chunkX <= maxChunkX; chunkX++) {
+            for (int chunkZ = minChunkZ; chunkZ <= maxChunkZ; chunkZ++) {
+                if (world.isChunkLoaded(chunkX, chunkZ)) {
+                    snapshots.add(world.getChunkAt(chunkX, chunkZ).getChunkSnapshot(false, false, false));
+                }
+            }
+        }
+
+        return new DungeonBlockScanner(snapshots, area.getCenterX(), area.getCenterZ(),
+                Math.max(MIN_Y, world.getMinHeight() + 1), Math.min(MAX_Y, world.getMaxHeight() - 1));
+    }
+
+    /**
+     * Find all chests within a radius of the dungeon center
+     */
+    int[] findChests(int radius) {
+        int[] found = new int[48];
+        int count = 0;
+        long radiusSquared = (long) radius * radius;
+
+        for (ChunkSnapshot snapshot : snapshots) {
+            int baseX = snapshot.getX() << 4;
+            int baseZ = snapshot.getZ() << 4;
+
+            for (int x = 0; x < 16; x++) {
+                for (int z = 0; z < 16; z++) {
+                    if (distanceSquared(baseX + x, baseZ + z) > radiusSquared) {
+                        continue;
+                    }
+
+                    for (int y = minY; y < maxY; y++) {
+                        if (snapshot.getBlockType(x, y, z) == Material.CHEST) {
+                            if (count + 3 > found.length) {
+                                found = Arrays.copyOf(found, found.length * 2);
+                            }
+                            found[count++] = baseX + x;
+                            found[count++] = y;
+                            found[count++] = baseZ + z;
+                        }
+                    }
+                }
+            }
+        }
+
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Find marker spots within a radius of the dungeon center: the lowest air block
+     * with air above and solid ground below, in every fourth column
+     */
+    int[] findMarkerSpots(double radius) {
+        int[] found = new int[48];
+        int count = 0;
+        double radiusSquared = radius * radius;
+
+        for (ChunkSnapshot snapshot : snapshots) {
+            int baseX = snapshot.getX() << 4;
+            int baseZ = snapshot.getZ() << 4;
+
+            for (int x = 0; x < 16; x += MARKER_STEP) {
+                for (int z = 0; z < 16; z += MARKER_STEP) {
+                    if (distanceSquared(baseX + x, baseZ + z) > radiusSquared) {
+                        continue;
+                    }
+
+                    for (int y = minY; y < maxY; y++) {
+                        if (isMarkerSpot(snapshot, x, y, z)) {
+                            if (count + 3 > found.length) {
+                                found = Arrays.copyOf(found, found.length * 2);
+                            }
+                            found[count++] = baseX + x;
+                            found[count++] = y;
+                            found[count++] = baseZ + z;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        return Arrays.copyOf(found, count);
+    }
+
+    /**
+     * Check whether a spot can hold a marker: solid below, air in and above it
+     */
+    static boolean isMarkerSpot(Material below, Material block, Material above) {
+        return below.isSolid() && block == Material.AIR && above == Material.AIR;
+    }
+
+    private static boolean isMarkerSpot(ChunkSnapshot snapshot, int x, int y, int z) {
+        return isMarkerSpot(snapshot.getBlockType(x, y - 1, z),
+                snapshot.getBlockType(x, y, z),
+                snapshot.getBlockType(x, y + 1, z));
+    }
+
+    private long distanceSquared(int x, int z) {
+        long dx = x - centerX;
+        long dz = z - centerZ;
+        return dx * dx + dz * dz;
+    }
+}
@@ -30,6 +30,20 @@ public class QuestDisplayManager {
     // Map of player UUIDs to their active quest boss bars
     private final Map<UUID, Map<String, BossBar>> playerQuestBars = new ConcurrentHashMap<>();
 
+    // Players whose quests changed since the last display update
+    private final Set<UUID> dirtyPlayers = ConcurrentHashMap.newKeySet();
+
+    // Reused by display updates, which only run on the main thread
+    private final List<Quest> displayScratch = new ArrayList<>();
+
+    // Completed quests first, then by progress percentage (descending)
+    private static final Comparator<Quest> DISPLAY_ORDER = (a, b) -> {
+        if (a.isCompleted() != b.isCompleted()) {
+            return a.isCompleted() ? -1 : 1;
+        }
+        return Integer.compare(b.getCompletionPercentage(), a.getCompletionPercentage());
+    };
+
     // Configuration for display settings
     private final boolean displayEnabled;
     private final int actionBarDuration;
@@ -66,15 +80,37 @@ public class QuestDisplayManager {
      */
     private void startUpdateTask() {
         // Run every 20 ticks (1 second)
-        Bukkit.getScheduler().runTaskTimer(plugin, this::updateAllPlayerDisplays, 20L, 20L);
+        Bukkit.getScheduler().runTaskTimer(plugin, this::updateDirtyPlayerDisplays, 20L, 20L);
+    }
+
+    /**
+     * Mark a player's quest display as changed, so it is refreshed on the next update pass.
+     * Safe to call from any thread.
+     */
+    public void markDirty(UUID playerUuid) {
+        if (displayEnabled && bossBarEnabled) {
+            dirtyPlayers.add(playerUuid);
+        }
     }
 
     /**
-     * Update quest displays for all online players
+     * Update quest displays of the players whose quests changed since the last pass
      */
-    private void updateAllPlayerDisplays() {
-        for (Player player : Bukkit.getOnlinePlayers()) {
-            updatePlayerDisplay(player);
+    private void updateDirtyPlayerDisplays() {
+        if (dirtyPlayers.isEmpty()) {
+            return;
+        }
+
+        Iterator<UUID> iterator = dirtyPlayers.iterator();
+        while (iterator.hasNext()) {
+            UUID playerUuid = iterator.next();
+            iterator.remove();
+
+            // Offline players get their display rebuilt when they join again
+            Player player = Bukkit.getPlayer(playerUuid);
+            if (player != null) {
+                updatePlayerDisplay(player);
+            }
         }
     }
 
@@ -82,63 +118,55 @@ public class QuestDisplayManager {
      * Update quest display for a specific player
      */
     public void updatePlayerDisplay(Player player) {
-        // Skip if display is disabled
-        if (!displayEnabled) {
+        // Skip if display or boss bars are disabled, nothing else is shown persistently
+        if (!displayEnabled || !bossBarEnabled) {
             return;
         }
 
         UUID playerUuid = player.getUniqueId();
+        dirtyPlayers.remove(playerUuid);
 
-        // Get player's active quests
-        List<Quest> quests = questSystem.getPlayerQuests(playerUuid);
-
-        // Filter to show only non-claimed quests
-        List<Quest> activeQuests = new ArrayList<>();
-        for (Quest quest : quests) {
+        // Filter to show only non-claimed quests, reusing the list between updates
+        List<Quest> displayedQuests = displayScratch;
+        displayedQuests.clear();
+        for (Quest quest : questSystem.getPlayerQuests(playerUuid)) {
             if (!quest.isRewardClaimed()) {
                 // If configured to not show completed quests, skip completed ones
                 if (!showCompletedQuests && quest.isCompleted()) {
                     continue;
                 }
-                activeQuests.add(quest);
+                displayedQuests.add(quest);
             }
         }
 
-        // Sort quests by completion status and progress
-        activeQuests.sort((a, b) -> {
-            // Completed quests first
-            if (a.isCompleted() && !b.isCompleted()) return -1;
-            if (!a.isCompleted() && b.isCompleted()) return 1;
-
-            // Then by progress percentage (descending)
-            return Integer.compare(b.getCompletionPercentage(), a.getCompletionPercentage());
-        });
-
-        // Limit the number of displayed quests
-        List<Quest> displayedQuests = activeQuests.size() <= maxDisplayedQuests ?
-                activeQuests : activeQuests.subList(0, maxDisplayedQuests);
-
-        // Skip boss bar updates if disabled
-        if (!bossBarEnabled) {
-            return;
+        // Sort quests by completion status and progress, then limit the number of displayed quests
+        displayedQuests.sort(DISPLAY_ORDER);
+        while (displayedQuests.size() > maxDisplayedQuests) {
+            displayedQuests.remove(displayedQuests.size() - 1);
         }
 
         // Get existing boss bars for this player
         Map<String, BossBar> questBars = playerQuestBars.computeIfAbsent(playerUuid, k -> new HashMap<>());
 
-        // Create a set of quest IDs to track which ones to keep
-        Set<String> activeQuestIds = new HashSet<>();
+        // Remove boss bars for quests that are no longer active or displayed
+        Iterator<Map.Entry<String, BossBar>> bars = questBars.entrySet().iterator();
+        while (bars.hasNext()) {
+            Map.Entry<String, BossBar> entry = bars.next();
+            if (!isDisplayed(displayedQuests, entry.getKey())) {
+                BossBar bar = entry.getValue();
+                bar.removePlayer(player);
+                bar.setVisible(false);
+                bars.remove();
+            }
+        }
 
         // Update or create boss bars for displayed quests
         for (Quest quest : displayedQuests) {
-            String questId = quest.getId();
-            activeQuestIds.add(questId);
-
-            BossBar bar = questBars.get(questId);
+            BossBar bar = questBars.get(quest.getId());
             if (bar == null) {
                 // Create new boss bar for this quest
                 bar = createQuestBossBar(quest);
-                questBars.put(questId, bar);
+                questBars.put(quest.getId(), bar);
                 bar.addPlayer(player);
             } else {
                 // Update existing boss bar
@@ -146,29 +174,25 @@ public class QuestDisplayManager {
             }
         }
 
-        // Remove boss bars for quests that are no longer active or displayed
-        List<String> barsToRemove = new ArrayList<>();
-        for (String questId : questBars.keySet()) {
-            if (!activeQuestIds.contains(questId)) {
-                BossBar bar = questBars.get(questId);
-                bar.removePlayer(player);
-                bar.setVisible(false);
-                barsToRemove.add(questId);
-            }
-        }
+        displayedQuests.clear();
+    }
 
-        // Clean up removed bars
-        for (String questId : barsToRemove) {
-            questBars.remove(questId);
+    /**
+     * Check whether a quest is in the (short) list of displayed quests
+     */
+    private static boolean isDisplayed(List<Quest> displayedQuests, String questId) {
+        for (Quest quest : displayedQuests) {
+            if (quest.getId().equals(questId)) {
+                return true;
+            }
         }
+        return false;
     }
 
     /**
      * Create a new boss bar for a quest
      */
     private BossBar createQuestBossBar(Quest quest) {
-        QuestTemplate template = quest.getTemplate();
-
         // Determine color based on quest type and completion
         BarColor color = getBarColorForQuest(quest);
 
@@ -179,25 +203,39 @@ public class QuestDisplayManager {
         BossBar bar = Bukkit.createBossBar(title, color, BarStyle.SOLID);
 
         // Set progress
-        double progress = quest.getCompletionPercentage() / 100.0;
-        bar.setProgress(Math.max(0.0, Math.min(1.0, progress)));
+        bar.setProgress(getBarProgress(quest));
 
         return bar;
     }
 
     /**
-     * Update an existing boss bar for a quest
+     * Update an existing boss bar for a quest, only touching the fields that changed
      */
     private void updateQuestBossBar(BossBar bar, Quest quest) {
         // Update title
-        bar.setTitle(createQuestBarTitle(quest));
+        String title = createQuestBarTitle(quest);
+        if (!title.equals(bar.getTitle())) {
+            bar.setTitle(title);
+        }
 
         // Update color
-        bar.setColor(getBarColorForQuest(quest));
+        BarColor color = getBarColorForQuest(quest);
+        if (bar.getColor() != color) {
+            bar.setColor(color);
+        }
 
         // Update progress
-        double progress = quest.getCompletionPercentage() / 100.0;
-        bar.setProgress(Math.max(0.0, Math.min(1.0, progress)));
+        double progress = getBarProgress(quest);
+        if (bar.getProgress() != progress) {
+            bar.setProgress(progress);
+        }
+    }
+
+    /**
+     * Get the boss bar progress of a quest, clamped to the range a bar accepts
+     */
+    private double getBarProgress(Quest quest) {
+        return Math.max(0.0, Math.min(1.0, quest.getCompletionPercentage() / 100.0));
     }
 
     /**
@@ -280,6 +318,7 @@ public class QuestDisplayManager {
      * Clean up quest displays for a player
      */
     public void cleanupPlayerDisplay(UUID playerUuid) {
+        dirtyPlayers.remove(playerUuid);
         Map<String, BossBar> questBars = playerQuestBars.remove(playerUuid);
 
         if (questBars != null) {
@@ -310,6 +349,7 @@ public class QuestDisplayManager {
         }
 
         playerQuestBars.clear();
+        dirtyPlayers.clear();
     }
 
     /**
@@ -476,30 +516,7 @@ public class QuestDisplayManager {
      * Get dungeon area from an ID
      */
     private BiomeArea getDungeonAreaFromId(String dungeonId) {
-        String[] parts = dungeonId.split(":");
-        if (parts.length < 3) {
-            return null;
-        }
-
-        try {
-            String worldName = parts[0];
-            int x = Integer.parseInt(parts[1]);
-            int z = Integer.parseInt(parts[2]);
-
-            // Get all dungeons
-            Map<BiomeArea, DungeonData> dungeons = plugin.getDungeonManager().getAllDungeons();
-
-            for (BiomeArea area : dungeons.keySet()) {
-                if (area.getWorldName().equals(worldName) &&
-                        area.getCenterX() == x &&
-                        area.getCenterZ() == z) {
-                    return area;
-                }
-            }
-        } catch (Exception e) {
-            plugin.getLogger().warning("Failed to parse dungeon ID: " + dungeonId);
-        }
-
-        return null;
+        DungeonData dungeonData = plugin.getDungeonManager().getDungeonById(dungeonId);
+        return dungeonData != null ? dungeonData.getArea() : null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.ubivismedia.aidungeon.quests;
+
+import java.util.*;
+
+/**
+ * Index of the quests of online players that can still make progress, by quest type
+ * and target, so a kill or interaction only looks at the quests it advances.
+ * Only used from the main thread.
+ */
+public class QuestProgressIndex {
+
+    // Explore quests progress on any marker, so they are all indexed under one target
+    private static final String ANY_TARGET = "";
+
+    private final Map<UUID, EnumMap<QuestType, Map<String, List<Quest>>>> playerIndex = new HashMap<>();
+
+    /**
+     * Replace the indexed quests of a player
+     */
+    public void indexPlayer(UUID playerUuid, Collection<Quest> quests) {
+        playerIndex.remove(playerUuid);
+        for (Quest quest : quests) {
+            add(playerUuid, quest);
+        }
+    }
+
+    /**
+     * Drop all indexed quests of a player
+     */
+    public void removePlayer(UUID playerUuid) {
+        playerIndex.remove(playerUuid);
+    }
+
+    /**
+     * Index a quest if it can still make progress
+     */
+    public void add(UUID playerUuid, Quest quest) {
+        if (quest.isCompleted() || quest.isRewardClaimed()) {
+            return;
+        }
+
+        QuestType type = quest.getTemplate().getType();
+        playerIndex.computeIfAbsent(playerUuid, k -> new EnumMap<>(QuestType.class))
+                .computeIfAbsent(type, k -> new HashMap<>())
+                .computeIfAbsent(getTarget(quest), k -> new ArrayList<>(1))
+                .add(quest);
+    }
+
+    /**
+     * Remove a quest from the index, e.g. when it is completed or abandoned
+     */
+    public void remove(UUID playerUuid, Quest quest) {
+        EnumMap<QuestType, Map<String, List<Quest>>> byType = playerIndex.get(playerUuid);
+        if (byType == null) {
+            return;
+        }
+
+        Map<String, List<Quest>> byTarget = byType.get(quest.getTemplate().getType());
+        if (byTarget == null) {
+            return;
+        }
+
+        String target = getTarget(quest);
+        List<Quest> quests = byTarget.get(target);
+        if (quests != null && quests.remove(quest) && quests.isEmpty()) {
+            byTarget.remove(target);
+        }
+    }
+
+    /**
+     * Get the quests of a player that progress on the given target.
+     * The returned list is live; remove quests through {@link #remove(UUID, Quest)}
+     * only while iterating it backwards.
+     */
+    public List<Quest> getQuests(UUID playerUuid, QuestType type, String targetId) {
+        EnumMap<QuestType, Map<String, List<Quest>>> byType = playerIndex.get(playerUuid);
+        if (byType == null) {
+            return Collections.emptyList();
+        }
+
+        Map<String, List<Quest>> byTarget = byType.get(type);
+        if (byTarget == null) {
+            return Collections.emptyList();
+        }
+
+        List<Quest> quests = byTarget.get(type == QuestType.EXPLORE ? ANY_TARGET : targetId);
+        return quests != null ? quests : Collections.emptyList();
+    }
+
+    /**
+     * Get the target a quest is indexed under
+     */
+    private static String getTarget(Quest quest) {
+        QuestTemplate template = quest.getTemplate();
+        String target;
+
+        switch (template.getType()) {
+            case KILL:
+                target = template.getTargetEntity();
+                break;
+            case COLLECT:
+                target = template.getTargetItem();
+                break;
+            default:
+                target = ANY_TARGET;
+                break;
+        }
+
+        return target != null ? target : ANY_TARGET;
+    }
+}
@@ -0,0 +1,327 @@
+package com.ubivismedia.aidungeon.quests;
+
+import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Persistent storage of player quests, one YAML file per player.
+ * Quest changes only mark their player as dirty; dirty players are serialized on
+ * the main thread and written off it on an interval, when they quit and on disable.
+ */
+public class QuestStore {
+
+    private static final String FILE_EXTENSION = ".yml";
+    private static final String LEGACY_PATH = "quests.player_quests";
+
+    private final AIDungeonGenerator plugin;
+    private final File folder;
+
+    // Source of the live quests of a player, read when a player is serialized
+    private final Function<UUID, Map<String, Quest>> questSource;
+
+    // Players whose quests changed since they were last serialized
+    private final Set<UUID> dirtyPlayers = ConcurrentHashMap.newKeySet();
+
+    // Players whose stored quests are being loaded; their files are not written until
+    // the loaded quests are in memory, or the write would drop them
+    private final Set<UUID> loadingPlayers = ConcurrentHashMap.newKeySet();
+
+    // Serialized quest files waiting to be written, flushed off the main thread
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    private BukkitTask flushTask;
+
+    /**
+     * Create a new quest store
+     * @param questSource Looks up the loaded quests of a player, or null if none are loaded
+     */
+    public QuestStore(AIDungeonGenerator plugin, Function<UUID, Map<String, Quest>> questSource) {
+        this.plugin = plugin;
+        this.folder = new File(plugin.getDataFolder(), "quests");
+        this.questSource = questSource;
+    }
+
+    /**
+     * Create the storage folder, move quests kept in config.yml by older versions
+     * and start writing changes periodically
+     */
+    public void initialize() {
+        if (!folder.exists() && !folder.mkdirs()) {
+            plugin.getLogger().severe("Could not create quest storage folder " + folder.getPath());
+        }
+
+        migrateLegacyStorage();
+
+        long interval = Math.max(1, plugin.getConfig().getInt("quests.storage.save_interval", 10)) * 20L;
+        flushTask = Bukkit.getScheduler().runTaskTimer(plugin, this::flushDirty, interval, interval);
+    }
+
+    /**
+     * Stop the periodic flush and write every pending change before returning
+     */
+    public void shutdown() {
+        if (flushTask != null) {
+            flushTask.cancel();
+            flushTask = null;
+        }
+
+        snapshotDirty();
+        writePending();
+    }
+
+    /**
+     * Hold back writes of a player's quests while they are loaded
+     */
+    public void startLoading(UUID playerUuid) {
+        loadingPlayers.add(playerUuid);
+    }
+
+    /**
+     * Allow writes of a player's quests again once the loaded quests are in memory
+     */
+    public void finishLoading(UUID playerUuid) {
+        loadingPlayers.remove(playerUuid);
+    }
+
+    /**
+     * Check whether a player's stored quests are still being loaded
+     */
+    public boolean isLoading(UUID playerUuid) {
+        return loadingPlayers.contains(playerUuid);
+    }
+
+    /**
+     * Mark a player's quests as changed, so they are written with the next flush
+     */
+    public void markDirty(UUID playerUuid) {
+        dirtyPlayers.add(playerUuid);
+    }
+
+    /**
+     * Write a player's quests now if they changed, e.g. when the player leaves
+     */
+    public void flush(UUID playerUuid) {
+        flush(playerUuid, questSource.apply(playerUuid));
+    }
+
+    /**
+     * Write the given quests of a player now if they changed, e.g. when they are
+     * dropped from memory and can no longer be looked up
+     */
+    public void flush(UUID playerUuid, Map<String, Quest> quests) {
+        if (!loadingPlayers.contains(playerUuid) && dirtyPlayers.remove(playerUuid)) {
+            pendingWrites.add(snapshot(playerUuid, quests));
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * Write the quests of all players that changed since the last flush.
+     * Must be called on the main thread, which owns the quest objects.
+     */
+    public void flushDirty() {
+        if (snapshotDirty()) {
+            scheduleWrite();
+        }
+    }
+
+    /**
+     * Serialize all dirty players into the pending writes
+     * @return true if anything was queued
+     */
+    private boolean snapshotDirty() {
+        boolean queued = false;
+
+        Iterator<UUID> iterator = dirtyPlayers.iterator();
+        while (iterator.hasNext()) {
+            UUID playerUuid = iterator.next();
+            if (loadingPlayers.contains(playerUuid)) {
+                // Stays dirty until loading finished
+                continue;
+            }
+            iterator.remove();
+            pendingWrites.add(snapshot(playerUuid, questSource.apply(playerUuid)));
+            queued = true;
+        }
+
+        return queued;
+    }
+
+    /**
+     * Serialize the current quests of a player
+     */
+    private PendingWrite snapshot(UUID playerUuid, Map<String, Quest> quests) {
+        if (quests == null || quests.isEmpty()) {
+            return new PendingWrite(playerUuid, null);
+        }
+
+        YamlConfiguration data = new YamlConfiguration();
+        for (Quest quest : quests.values()) {
+            String basePath = quest.getId() + ".";
+
+            data.set(basePath + "template_id", quest.getTemplate().getId());
+            data.set(basePath + "dungeon_id", quest.getDungeonId());
+            data.set(basePath + "progress", quest.getProgress());
+            data.set(basePath + "completed", quest.isCompleted());
+            data.set(basePath + "reward_claimed", quest.isRewardClaimed());
+        }
+
+        return new PendingWrite(playerUuid, data.saveToString());
+    }
+
+    private void scheduleWrite() {
+        // Write asynchronously (tasks can't be scheduled while disabling)
+        if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, this::writePending);
+        } else {
+            writePending();
+        }
+    }
+
+    /**
+     * Write all pending quest files; only the newest snapshot of each player is written
+     */
+    private synchronized void writePending() {
+        Map<UUID, String> latest = new LinkedHashMap<>();
+        PendingWrite write;
+        while ((write = pendingWrites.poll()) != null) {
+            latest.put(write.playerUuid, write.contents);
+        }
+
+        for (Map.Entry<UUID, String> entry : latest.entrySet()) {
+            File file = getFile(entry.getKey());
+            try {
+                if (entry.getValue() == null) {
+                    Files.deleteIfExists(file.toPath());
+                } else {
+                    writeAtomically(file, entry.getValue());
+                }
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not save quests of player " + entry.getKey(), e);
+            }
+        }
+    }
+
+    private void writeAtomically(File file, String contents) throws IOException {
+        File temp = new File(folder, file.getName() + ".tmp");
+        Files.write(temp.toPath(), contents.getBytes(StandardCharsets.UTF_8));
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Load the stored quests of a player. Safe to call off the main thread.
+     * @param templates Resolves template IDs; quests of unknown templates are skipped
+     * @return The quests by ID, or null if the player has none stored
+     */
+    public Map<String, Quest> load(UUID playerUuid, Function<String, QuestTemplate> templates) {
+        File file = getFile(playerUuid);
+        if (!file.exists()) {
+            return null;
+        }
+
+        YamlConfiguration data = new YamlConfiguration();
+        try {
+            data.loadFromString(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8));
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().log(Level.WARNING, "Error loading quests of player " + playerUuid, e);
+            return null;
+        }
+
+        Map<String, Quest> quests = new HashMap<>();
+        for (String questId : data.getKeys(false)) {
+            ConfigurationSection section = data.getConfigurationSection(questId);
+            if (section == null) continue;
+
+            QuestTemplate template = templates.apply(section.getString("template_id"));
+            if (template != null) {
+                quests.put(questId, new Quest(
+                        questId,
+                        template,
+                        section.getString("dungeon_id"),
+                        section.getInt("progress", 0),
+                        section.getBoolean("completed", false),
+                        section.getBoolean("reward_claimed", false)
+                ));
+            }
+        }
+
+        return quests;
+    }
+
+    private File getFile(UUID playerUuid) {
+        return new File(folder, playerUuid + FILE_EXTENSION);
+    }
+
+    /**
+     * Move player quests that older versions kept in config.yml into quest files
+     */
+    private void migrateLegacyStorage() {
+        ConfigurationSection legacy = plugin.getConfig().getConfigurationSection(LEGACY_PATH);
+        if (legacy == null) {
+            return;
+        }
+
+        int migrated = 0;
+        for (String uuidStr : legacy.getKeys(false)) {
+            ConfigurationSection playerSection = legacy.getConfigurationSection(uuidStr);
+            if (playerSection == null) continue;
+
+            try {
+                UUID playerUuid = UUID.fromString(uuidStr);
+                File file = getFile(playerUuid);
+                if (file.exists()) {
+                    // Already migrated by an earlier start that could not clean up config.yml
+                    continue;
+                }
+
+                YamlConfiguration data = new YamlConfiguration();
+                for (String questId : playerSection.getKeys(false)) {
+                    ConfigurationSection questSection = playerSection.getConfigurationSection(questId);
+                    if (questSection == null) continue;
+
+                    for (String key : questSection.getKeys(false)) {
+                        data.set(questId + "." + key, questSection.get(key));
+                    }
+                }
+
+                writeAtomically(file, data.saveToString());
+                migrated++;
+            } catch (IllegalArgumentException | IOException e) {
+                plugin.getLogger().log(Level.WARNING, "Error migrating quests of player " + uuidStr, e);
+                return;
+            }
+        }
+
+        plugin.getConfig().set(LEGACY_PATH, null);
+        plugin.saveConfig();
+        plugin.getLogger().info("Migrated quests of " + migrated + " player(s) from config.yml to quest files");
+    }
+
+    /**
+     * Serialized quests of a player waiting to be written; null contents delete the file
+     */
+    private static class PendingWrite {
+        final UUID playerUuid;
+        final String contents;
+
+        PendingWrite(UUID playerUuid, String contents) {
+            this.playerUuid = playerUuid;
+            this.contents = contents;
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.ubivismedia.aidungeon.quests;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.ubivismedia.aidungeon.AIDungeonGenerator;
 import com.ubivismedia.aidungeon.dungeons.BiomeArea;
+import com.ubivismedia.aidungeon.dungeons.DungeonManifest;
 import com.ubivismedia.aidungeon.config.DungeonTheme;
 import com.ubivismedia.aidungeon.storage.DungeonData;
 import com.ubivismedia.aidungeon.localization.LanguageManager;
@@ -12,6 +16,7 @@ import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.Sound;
 import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
 import org.bukkit.block.Chest;
 import org.bukkit.block.Sign;
 import org.bukkit.block.data.BlockData;
@@ -31,6 +36,7 @@ import org.bukkit.persistence.PersistentDataType;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
@@ -45,15 +51,25 @@ public class QuestSystem implements Listener {
     private final NamespacedKey questItemKey;
     private final NamespacedKey questKillKey;
     private final NamespacedKey questChestKey;
+    private final NamespacedKey dungeonBossKey;
     
-    // Active quests per player
+    // Quests of online players, loaded when they join
     private final Map<UUID, Map<String, Quest>> playerQuests = new ConcurrentHashMap<>();
     
+    // Quests of players that left recently, kept until they rejoin or are evicted
+    private final Cache<UUID, Map<String, Quest>> offlinePlayerQuests;
+    
+    // Quests of online players that can still progress, by type and target
+    private final QuestProgressIndex progressIndex = new QuestProgressIndex();
+    
     // Quest templates
     private final List<QuestTemplate> questTemplates = new ArrayList<>();
 
     // Quest Display Manager
     private QuestDisplayManager displayManager;
+
+    // Persistent storage of player quests
+    private final QuestStore questStore;
     
     public QuestSystem(AIDungeonGenerator plugin) {
         this.plugin = plugin;
@@ -62,6 +78,7 @@ public class QuestSystem implements Listener {
         this.questItemKey = new NamespacedKey(plugin, "quest_item");
         this.questKillKey = new NamespacedKey(plugin, "quest_kill");
         this.questChestKey = new NamespacedKey(plugin, "quest_chest");
+        this.dungeonBossKey = new NamespacedKey(plugin, "dungeon_boss");
         
         // Load quest templates
         loadQuestTemplates();
@@ -69,8 +86,30 @@ public class QuestSystem implements Listener {
         // Initialize display manager
         this.displayManager = new QuestDisplayManager(plugin, this);
 
-        // Load player quests from storage
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, this::loadPlayerQuests);
+        // Initialize player quest storage
+        this.questStore = new QuestStore(plugin, this::getLoadedQuests);
+        questStore.initialize();
+        
+        // Evicted players are written if they changed while offline; removal runs on
+        // the thread touching the cache, so quests are never serialized concurrently
+        this.offlinePlayerQuests = Caffeine.newBuilder()
+                .expireAfterWrite(plugin.getConfig().getInt("quests.storage.offline_grace_period", 300), TimeUnit.SECONDS)
+                .maximumSize(plugin.getConfig().getInt("quests.storage.max_offline_players", 500))
+                .executor(Runnable::run)
+                .removalListener((UUID playerUuid, Map<String, Quest> quests, RemovalCause cause) -> {
+                    if (cause.wasEvicted() && playerUuid != null) {
+                        questStore.flush(playerUuid, quests);
+                    }
+                })
+                .build();
+        
+        // Expired players are only evicted on cache activity, so clean up periodically
+        Bukkit.getScheduler().runTaskTimer(plugin, offlinePlayerQuests::cleanUp, 1200L, 1200L);
+        
+        // Load quests of players that are already online (e.g. after a reload)
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            loadPlayerQuests(player.getUniqueId(), false);
+        }
     }
     
     /**
@@ -205,82 +244,64 @@ public class QuestSystem implements Listener {
     }
     
     /**
-     * Load player quests from storage
+     * Get the loaded quests of a player, online or recently left
+     * @return The quests by ID, or null if they are not in memory
      */
-    private void loadPlayerQuests() {
-        playerQuests.clear();
-        
-        if (!plugin.getConfig().isConfigurationSection("quests.player_quests")) {
-            return;
-        }
+    private Map<String, Quest> getLoadedQuests(UUID playerUuid) {
+        Map<String, Quest> quests = playerQuests.get(playerUuid);
+        return quests != null ? quests : offlinePlayerQuests.getIfPresent(playerUuid);
+    }
+    
+    /**
+     * Load a player's quests from storage off the main thread and make them active
+     * @param greet Whether to tell the player about their open quests
+     */
+    private void loadPlayerQuests(UUID playerUuid, boolean greet) {
+        // No quests are given or written until the stored ones are merged
+        questStore.startLoading(playerUuid);
         
-        // Load each player's quests
-        for (String uuidStr : plugin.getConfig().getConfigurationSection("quests.player_quests").getKeys(false)) {
-            try {
-                UUID playerUuid = UUID.fromString(uuidStr);
-                Map<String, Quest> quests = new HashMap<>();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            Map<String, Quest> loaded = questStore.load(playerUuid, this::getQuestTemplate);
+            if (loaded == null) {
+                questStore.finishLoading(playerUuid);
+                return;
+            }
+            
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                questStore.finishLoading(playerUuid);
                 
-                String basePath = "quests.player_quests." + uuidStr + ".";
+                // Keep quests that reached memory some other way while loading
+                Map<String, Quest> quests = getLoadedQuests(playerUuid);
+                if (quests != null) {
+                    loaded.putAll(quests);
+                    questStore.markDirty(playerUuid);
+                }
                 
-                for (String questId : plugin.getConfig().getConfigurationSection(basePath).getKeys(false)) {
-                    String questPath = basePath + questId + ".";
-                    
-                    // Load quest data
-                    String templateId = plugin.getConfig().getString(questPath + "template_id");
-                    QuestTemplate template = getQuestTemplate(templateId);
-                    
-                    if (template != null) {
-                        String dungeonId = plugin.getConfig().getString(questPath + "dungeon_id");
-                        int progress = plugin.getConfig().getInt(questPath + "progress", 0);
-                        boolean completed = plugin.getConfig().getBoolean(questPath + "completed", false);
-                        boolean rewardClaimed = plugin.getConfig().getBoolean(questPath + "reward_claimed", false);
-                        
-                        // Create quest
-                        Quest quest = new Quest(
-                                questId,
-                                template,
-                                dungeonId,
-                                progress,
-                                completed,
-                                rewardClaimed
-                        );
-                        
-                        quests.put(questId, quest);
+                Player player = Bukkit.getPlayer(playerUuid);
+                if (player == null) {
+                    // Left before loading finished
+                    if (quests != null) {
+                        offlinePlayerQuests.put(playerUuid, loaded);
                     }
+                    return;
                 }
+                playerQuests.put(playerUuid, loaded);
+                progressIndex.indexPlayer(playerUuid, loaded.values());
                 
-                playerQuests.put(playerUuid, quests);
-                
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Error loading player quests: " + uuidStr, e);
-            }
-        }
+                if (greet) {
+                    showLoadedQuests(player, loaded);
+                } else {
+                    displayManager.markDirty(playerUuid);
+                }
+            });
+        });
     }
     
     /**
-     * Save player quests to storage
+     * Write all changed player quests to storage, blocking until they are written
      */
-    public void savePlayerQuests() {
-        // Clear existing data
-        plugin.getConfig().set("quests.player_quests", null);
-        
-        // Save each player's quests
-        for (Map.Entry<UUID, Map<String, Quest>> entry : playerQuests.entrySet()) {
-            UUID playerUuid = entry.getKey();
-            Map<String, Quest> quests = entry.getValue();
-            
-            for (Quest quest : quests.values()) {
-                String basePath = "quests.player_quests." + playerUuid.toString() + "." + quest.getId() + ".";
-                
-                plugin.getConfig().set(basePath + "template_id", quest.getTemplate().getId());
-                plugin.getConfig().set(basePath + "dungeon_id", quest.getDungeonId());
-                plugin.getConfig().set(basePath + "progress", quest.getProgress());
-                plugin.getConfig().set(basePath + "completed", quest.isCompleted());
-                plugin.getConfig().set(basePath + "reward_claimed", quest.isRewardClaimed());
-            }
-        }
-        
-        plugin.saveConfig();
+    public void shutdown() {
+        questStore.shutdown();
     }
     
     /**
@@ -300,7 +321,12 @@ public class QuestSystem implements Listener {
      */
     public void generateQuestForPlayer(Player player, BiomeArea dungeonArea) {
         // Skip if quests are disabled
-        if (!plugin.getConfig().getBoolean("quests.enabled", true)) {
+        if (!plugin.getConfigManager().getSettings().isQuestsEnabled()) {
+            return;
+        }
+
+        // Wait until the player's stored quests are loaded, they count towards the limit
+        if (questStore.isLoading(player.getUniqueId())) {
             return;
         }
 
@@ -365,9 +391,10 @@ public class QuestSystem implements Listener {
 
         // Add to player quests
         quests.put(questId, quest);
+        progressIndex.add(player.getUniqueId(), quest);
 
-        // Save to storage
-        savePlayerQuests();
+        // Queue the change for storage
+        questStore.markDirty(player.getUniqueId());
 
         // Notify player
         player.sendMessage(ChatColor.GOLD + "New Quest: " + ChatColor.WHITE + template.getName());
@@ -443,44 +470,48 @@ public class QuestSystem implements Listener {
      * Spawn collection items for a quest
      */
     private void spawnCollectionItems(Quest quest, BiomeArea dungeonArea) {
-        QuestTemplate template = quest.getTemplate();
-        
         // Get the world
         org.bukkit.World world = Bukkit.getWorld(dungeonArea.getWorldName());
         if (world == null) {
             return;
         }
         
-        // Find chest blocks in the dungeon area
-        int centerX = dungeonArea.getCenterX();
-        int centerZ = dungeonArea.getCenterZ();
+        // Recorded chests need no search
+        DungeonManifest manifest = getManifest(dungeonArea);
+        if (manifest != null) {
+            fillQuestChests(quest, world, manifest.getChests());
+            return;
+        }
+        
+        // Find chest blocks in the loaded dungeon chunks off the main thread, then fill them on it
+        DungeonBlockScanner scanner = DungeonBlockScanner.snapshot(world, dungeonArea);
         int radius = dungeonArea.getRadius();
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            int[] chests = scanner.findChests(radius);
+            if (chests.length > 0 && plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> fillQuestChests(quest, world, chests));
+            }
+        });
+    }
+    
+    /**
+     * Put the items of a collection quest into random chests of its dungeon
+     * @param positions Chest positions as x, y, z triples
+     */
+    private void fillQuestChests(Quest quest, org.bukkit.World world, int[] positions) {
+        QuestTemplate template = quest.getTemplate();
         
-        // List to store found chests
+        // List to store chests that are still there, skipping unloaded chunks
         List<Chest> chests = new ArrayList<>();
-        
-        // Scan loaded chunks for chests (more efficient than scanning all blocks)
-        for (int cx = centerX - radius; cx <= centerX + radius; cx += 16) {
-            for (int cz = centerZ - radius; cz <= centerZ + radius; cz += 16) {
-                if (world.isChunkLoaded(cx >> 4, cz >> 4)) {
-                    for (int bx = cx; bx < cx + 16; bx++) {
-                        for (int bz = cz; bz < cz + 16; bz++) {
-                            // Skip if outside radius
-                            if (Math.sqrt(Math.pow(bx - centerX, 2) + Math.pow(bz - centerZ, 2)) > radius) {
-                                continue;
-                            }
-                            
-                            // Scan vertical slice for chests
-                            for (int y = 40; y < 120; y++) {
-                                Block block = world.getBlockAt(bx, y, bz);
-                                if (block.getType() == Material.CHEST) {
-                                    if (block.getState() instanceof Chest) {
-                                        chests.add((Chest) block.getState());
-                                    }
-                                }
-                            }
-                        }
-                    }
+        for (int i = 0; i + 2 < positions.length; i += 3) {
+            if (!world.isChunkLoaded(positions[i] >> 4, positions[i + 2] >> 4)) {
+                continue;
+            }
+            Block block = world.getBlockAt(positions[i], positions[i + 1], positions[i + 2]);
+            if (block.getType() == Material.CHEST) {
+                BlockState state = block.getState();
+                if (state instanceof Chest) {
+                    chests.add((Chest) state);
                 }
             }
         }
@@ -532,53 +563,87 @@ public class QuestSystem implements Listener {
      * Spawn exploration markers for a quest
      */
     private void spawnExplorerMarkers(Quest quest, BiomeArea dungeonArea) {
-        QuestTemplate template = quest.getTemplate();
-        
         // Get the world
         org.bukkit.World world = Bukkit.getWorld(dungeonArea.getWorldName());
         if (world == null) {
             return;
         }
         
-        // Get dungeon center and radius
-        int centerX = dungeonArea.getCenterX();
-        int centerZ = dungeonArea.getCenterZ();
-        int radius = dungeonArea.getRadius();
+        double radius = dungeonArea.getRadius() * 0.8;
+        
+        // Markers of recorded dungeons go into its rooms
+        DungeonManifest manifest = getManifest(dungeonArea);
+        if (manifest != null) {
+            placeExplorerMarkers(quest, world, findRoomSpots(world, dungeonArea, manifest, radius));
+            return;
+        }
+        
+        // Find suitable locations in the loaded dungeon chunks off the main thread, then place markers on it
+        DungeonBlockScanner scanner = DungeonBlockScanner.snapshot(world, dungeonArea);
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            int[] spots = scanner.findMarkerSpots(radius);
+            if (spots.length > 0 && plugin.isEnabled()) {
+                Bukkit.getScheduler().runTask(plugin, () -> placeExplorerMarkers(quest, world, spots));
+            }
+        });
+    }
+    
+    /**
+     * Get the spots just above the floor at the recorded room centers of a dungeon
+     * that lie in loaded chunks within a radius of its center
+     * @return Spots as x, y, z triples
+     */
+    private int[] findRoomSpots(org.bukkit.World world, BiomeArea dungeonArea, DungeonManifest manifest, double radius) {
+        int[] rooms = manifest.getRooms();
+        int[] spots = new int[rooms.length];
+        int count = 0;
+        double radiusSquared = radius * radius;
+        
+        for (int i = 0; i + 2 < rooms.length; i += 3) {
+            int x = rooms[i];
+            int z = rooms[i + 1];
+            double dx = x - dungeonArea.getCenterX();
+            double dz = z - dungeonArea.getCenterZ();
+            if (dx * dx + dz * dz > radiusSquared || !world.isChunkLoaded(x >> 4, z >> 4)) {
+                continue;
+            }
+            spots[count++] = x;
+            spots[count++] = manifest.getFloorY() + 1;
+            spots[count++] = z;
+        }
+        
+        return Arrays.copyOf(spots, count);
+    }
+    
+    /**
+     * Get the features recorded for a dungeon
+     * @return The manifest, or null if the dungeon has none
+     */
+    private DungeonManifest getManifest(BiomeArea dungeonArea) {
+        DungeonData dungeonData = plugin.getDungeonManager().getDungeon(dungeonArea);
+        return dungeonData != null ? dungeonData.getManifest() : null;
+    }
+    
+    /**
+     * Place the markers of an explorer quest at random spots of its dungeon
+     * @param spots Marker spots as x, y, z triples
+     */
+    private void placeExplorerMarkers(Quest quest, org.bukkit.World world, int[] spots) {
+        QuestTemplate template = quest.getTemplate();
         
         // Number of marker points to create
         int markerCount = template.getRequiredAmount();
         
-        // List to store potential marker locations
+        // List to store spots that are still suitable, skipping chunks unloaded since the spots were found
         List<Location> potentialLocations = new ArrayList<>();
-        
-        // Scan loaded chunks for suitable locations
-        for (int cx = centerX - radius; cx <= centerX + radius; cx += 16) {
-            for (int cz = centerZ - radius; cz <= centerZ + radius; cz += 16) {
-                if (world.isChunkLoaded(cx >> 4, cz >> 4)) {
-                    for (int bx = cx; bx < cx + 16; bx += 4) {
-                        for (int bz = cz; bz < cz + 16; bz += 4) {
-                            // Skip if outside radius
-                            if (Math.sqrt(Math.pow(bx - centerX, 2) + Math.pow(bz - centerZ, 2)) > radius * 0.8) {
-                                continue;
-                            }
-                            
-                            // Find a suitable Y level
-                            for (int y = 40; y < 120; y++) {
-                                Block block = world.getBlockAt(bx, y, bz);
-                                Block above = world.getBlockAt(bx, y + 1, bz);
-                                Block below = world.getBlockAt(bx, y - 1, bz);
-                                
-                                if (below.getType().isSolid() && 
-                                    block.getType() == Material.AIR && 
-                                    above.getType() == Material.AIR) {
-                                    
-                                    potentialLocations.add(new Location(world, bx, y, bz));
-                                    break;
-                                }
-                            }
-                        }
-                    }
-                }
+        for (int i = 0; i + 2 < spots.length; i += 3) {
+            if (!world.isChunkLoaded(spots[i] >> 4, spots[i + 2] >> 4)) {
+                continue;
+            }
+            Block block = world.getBlockAt(spots[i], spots[i + 1], spots[i + 2]);
+            if (DungeonBlockScanner.isMarkerSpot(block.getRelative(0, -1, 0).getType(), block.getType(),
+                    block.getRelative(0, 1, 0).getType())) {
+                potentialLocations.add(block.getLocation());
             }
         }
         
@@ -629,81 +694,50 @@ public class QuestSystem implements Listener {
      */
     public void processQuestProgress(Player player, QuestType type, String targetId) {
         // Skip if quests are disabled
-        if (!plugin.getConfig().getBoolean("quests.enabled", true)) {
+        if (!plugin.getConfigManager().getSettings().isQuestsEnabled()) {
             return;
         }
 
         UUID playerUuid = player.getUniqueId();
-        Map<String, Quest> quests = playerQuests.get(playerUuid);
-
-        if (quests == null || quests.isEmpty()) {
-            return;
-        }
-
-        // Find active quests matching this type and target
-        for (Quest quest : quests.values()) {
-            if (quest.isCompleted() || quest.isRewardClaimed()) {
-                continue;
-            }
 
+        // Active quests matching this type and target, walked backwards so completed ones can be dropped
+        List<Quest> quests = progressIndex.getQuests(playerUuid, type, targetId);
+        for (int i = quests.size() - 1; i >= 0; i--) {
+            Quest quest = quests.get(i);
             QuestTemplate template = quest.getTemplate();
 
-            // Check if quest type matches
-            if (template.getType() != type) {
-                continue;
-            }
+            // Update progress
+            int newProgress = quest.getProgress() + 1;
+            quest.setProgress(newProgress);
 
-            // Check target specifics based on quest type
-            boolean matches = false;
+            // Check if completed
+            boolean completed = newProgress >= template.getRequiredAmount();
+            if (completed) {
+                quest.setCompleted(true);
+                progressIndex.remove(playerUuid, quest);
 
-            switch (type) {
-                case KILL:
-                    matches = template.getTargetEntity().equals(targetId) ||
-                            (targetId.equals("BOSS") && template.getTargetEntity().equals("BOSS"));
-                    break;
+                // Notify player
+                player.sendMessage(ChatColor.GREEN + "Quest Completed: " + ChatColor.WHITE + template.getName());
+                player.sendMessage(ChatColor.YELLOW + "Return to the Dungeon Gate to claim your reward!");
+                player.playSound(player.getLocation(), Sound.UI_TOAST_CHALLENGE_COMPLETE, 1.0f, 1.0f);
 
-                case COLLECT:
-                    matches = template.getTargetItem().equals(targetId);
-                    break;
+                // Show quest completion in action bar (add this line)
+                displayManager.showQuestUpdateInActionBar(player, quest, true);
+            } else {
+                // Progress notification
+                player.sendMessage(ChatColor.YELLOW + "Quest Progress: " + newProgress + "/" + template.getRequiredAmount() +
+                        " - " + template.getName());
+                player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 0.5f, 1.0f);
 
-                case EXPLORE:
-                    matches = true; // Explorer quests don't have specific targets
-                    break;
+                // Show quest progress in action bar (add this line)
+                displayManager.showQuestUpdateInActionBar(player, quest, false);
             }
 
-            // Update progress if matched
-            if (matches) {
-                int newProgress = quest.getProgress() + 1;
-                quest.setProgress(newProgress);
-
-                // Check if completed
-                boolean completed = newProgress >= template.getRequiredAmount();
-                if (completed) {
-                    quest.setCompleted(true);
+            // Refresh the quest display on the next update pass
+            displayManager.markDirty(playerUuid);
 
-                    // Notify player
-                    player.sendMessage(ChatColor.GREEN + "Quest Completed: " + ChatColor.WHITE + template.getName());
-                    player.sendMessage(ChatColor.YELLOW + "Return to the Dungeon Gate to claim your reward!");
-                    player.playSound(player.getLocation(), Sound.UI_TOAST_CHALLENGE_COMPLETE, 1.0f, 1.0f);
-
-                    // Show quest completion in action bar (add this line)
-                    displayManager.showQuestUpdateInActionBar(player, quest, true);
-                } else {
-                    // Progress notification
-                    player.sendMessage(ChatColor.YELLOW + "Quest Progress: " + newProgress + "/" + template.getRequiredAmount() +
-                            " - " + template.getName());
-                    player.playSound(player.getLocation(), Sound.ENTITY_EXPERIENCE_ORB_PICKUP, 0.5f, 1.0f);
-
-                    // Show quest progress in action bar (add this line)
-                    displayManager.showQuestUpdateInActionBar(player, quest, false);
-                }
-
-                // Update the quest display (add this line)
-                displayManager.updatePlayerDisplay(player);
-
-                // Save to storage
-                savePlayerQuests();
-            }
+            // Queue the change for storage
+            questStore.markDirty(playerUuid);
         }
     }
     
@@ -729,9 +763,10 @@ public class QuestSystem implements Listener {
         
         // Mark as claimed
         quest.setRewardClaimed(true);
+        displayManager.markDirty(playerUuid);
         
-        // Save to storage
-        savePlayerQuests();
+        // Queue the change for storage
+        questStore.markDirty(playerUuid);
         
         // Award XP and items
         // Execute reward commands
@@ -771,87 +806,72 @@ public class QuestSystem implements Listener {
     
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
-        // Load player quests (if not already loaded)
-        UUID playerUuid = event.getPlayer().getUniqueId();
-        if (!playerQuests.containsKey(playerUuid)) {
-            Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
-                // Load from storage
-                if (plugin.getConfig().isConfigurationSection("quests.player_quests." + playerUuid.toString())) {
-                    Map<String, Quest> quests = new HashMap<>();
-
-                    String basePath = "quests.player_quests." + playerUuid.toString() + ".";
-
-                    for (String questId : plugin.getConfig().getConfigurationSection(basePath).getKeys(false)) {
-                        String questPath = basePath + questId + ".";
-
-                        // Load quest data
-                        String templateId = plugin.getConfig().getString(questPath + "template_id");
-                        QuestTemplate template = getQuestTemplate(templateId);
-
-                        if (template != null) {
-                            String dungeonId = plugin.getConfig().getString(questPath + "dungeon_id");
-                            int progress = plugin.getConfig().getInt(questPath + "progress", 0);
-                            boolean completed = plugin.getConfig().getBoolean(questPath + "completed", false);
-                            boolean rewardClaimed = plugin.getConfig().getBoolean(questPath + "reward_claimed", false);
-
-                            // Create quest
-                            Quest quest = new Quest(
-                                    questId,
-                                    template,
-                                    dungeonId,
-                                    progress,
-                                    completed,
-                                    rewardClaimed
-                            );
-
-                            quests.put(questId, quest);
-                        }
-                    }
-
-                    playerQuests.put(playerUuid, quests);
-
-                    // Show active quest status to player
-                    Bukkit.getScheduler().runTask(plugin, () -> {
-                        Player player = event.getPlayer();
-
-                        // Show uncompleted quests
-                        boolean hasActiveQuests = false;
-                        for (Quest quest : quests.values()) {
-                            if (!quest.isRewardClaimed()) {
-                                hasActiveQuests = true;
-                                QuestTemplate template = quest.getTemplate();
+        Player player = event.getPlayer();
+        UUID playerUuid = player.getUniqueId();
+        
+        // Players rejoining within the grace period still have their quests in memory
+        Map<String, Quest> quests = offlinePlayerQuests.asMap().remove(playerUuid);
+        if (quests != null) {
+            playerQuests.put(playerUuid, quests);
+            progressIndex.indexPlayer(playerUuid, quests.values());
+        }
+        
+        if (playerQuests.containsKey(playerUuid)) {
+            // If the quests are already loaded, just update the display
+            displayManager.updatePlayerDisplay(player);
+        } else if (!questStore.isLoading(playerUuid)) {
+            // A load that is still running picks the player up when it finishes
+            loadPlayerQuests(playerUuid, true);
+        }
+    }
+    
+    /**
+     * Tell a player about their open quests after they were loaded
+     */
+    private void showLoadedQuests(Player player, Map<String, Quest> quests) {
+        // Show uncompleted quests
+        boolean hasActiveQuests = false;
+        for (Quest quest : quests.values()) {
+            if (!quest.isRewardClaimed()) {
+                hasActiveQuests = true;
+                QuestTemplate template = quest.getTemplate();
 
-                                if (quest.isCompleted()) {
-                                    player.sendMessage(ChatColor.GREEN + "Completed Quest: " + ChatColor.WHITE +
-                                            template.getName() + ChatColor.YELLOW + " (Reward Available)");
-                                } else {
-                                    player.sendMessage(ChatColor.YELLOW + "Active Quest: " + ChatColor.WHITE +
-                                            template.getName() + ChatColor.GRAY + " (" + quest.getProgress() +
-                                            "/" + template.getRequiredAmount() + ")");
-                                }
-                            }
-                        }
+                if (quest.isCompleted()) {
+                    player.sendMessage(ChatColor.GREEN + "Completed Quest: " + ChatColor.WHITE +
+                            template.getName() + ChatColor.YELLOW + " (Reward Available)");
+                } else {
+                    player.sendMessage(ChatColor.YELLOW + "Active Quest: " + ChatColor.WHITE +
+                            template.getName() + ChatColor.GRAY + " (" + quest.getProgress() +
+                            "/" + template.getRequiredAmount() + ")");
+                }
+            }
+        }
 
-                        if (hasActiveQuests) {
-                            player.sendMessage(ChatColor.GRAY + "Use " + ChatColor.WHITE + "/quests" +
-                                    ChatColor.GRAY + " to view your quests");
+        if (hasActiveQuests) {
+            player.sendMessage(ChatColor.GRAY + "Use " + ChatColor.WHITE + "/quests" +
+                    ChatColor.GRAY + " to view your quests");
 
-                            // Update the quest display (add this line)
-                            displayManager.updatePlayerDisplay(player);
-                        }
-                    });
-                }
-            });
-        } else {
-            // If the quests are already loaded, just update the display
-            displayManager.updatePlayerDisplay(event.getPlayer());
+            // Update the quest display (add this line)
+            displayManager.updatePlayerDisplay(player);
         }
     }
 
     @EventHandler
     public void onPlayerQuit(PlayerQuitEvent event) {
+        UUID playerUuid = event.getPlayer().getUniqueId();
+
         // Clean up the quest display
-        displayManager.cleanupPlayerDisplay(event.getPlayer().getUniqueId());
+        displayManager.cleanupPlayerDisplay(playerUuid);
+
+        // Keep the quests around for a while in case the player comes back
+        Map<String, Quest> quests = playerQuests.remove(playerUuid);
+        if (quests != null) {
+            offlinePlayerQuests.put(playerUuid, quests);
+        }
+        progressIndex.removePlayer(playerUuid);
+
+        // Write any unsaved quest changes of the leaving player
+        questStore.flush(playerUuid);
     }
     
     @EventHandler
@@ -867,7 +887,7 @@ public class QuestSystem implements Listener {
         // Check if entity has boss tag
         boolean isBoss = false;
         PersistentDataContainer container = entity.getPersistentDataContainer();
-        if (container.has(new NamespacedKey(plugin, "dungeon_boss"), PersistentDataType.BYTE)) {
+        if (container.has(dungeonBossKey, PersistentDataType.BYTE)) {
             isBoss = true;
         }
         
@@ -964,7 +984,7 @@ public class QuestSystem implements Listener {
      * Get active quests for a player
      */
     public List<Quest> getPlayerQuests(UUID playerUuid) {
-        Map<String, Quest> quests = playerQuests.get(playerUuid);
+        Map<String, Quest> quests = getLoadedQuests(playerUuid);
         if (quests == null) {
             return Collections.emptyList();
         }
@@ -1051,10 +1071,11 @@ public class QuestSystem implements Listener {
         }
 
         // Remove quest
-        quests.remove(questId);
+        Quest removed = quests.remove(questId);
+        progressIndex.remove(playerUuid, removed);
 
-        // Save to storage
-        savePlayerQuests();
+        // Queue the change for storage
+        questStore.markDirty(playerUuid);
 
         // Update the quest display (add this line)
         displayManager.updatePlayerDisplay(player);
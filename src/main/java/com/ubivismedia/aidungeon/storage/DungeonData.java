@@ -1,48 +1,142 @@
 package com.ubivismedia.aidungeon.storage;
 
-import com.ubivismedia.aidungeon.AIDungeonGenerator;
 import com.ubivismedia.aidungeon.config.DungeonTheme;
 import com.ubivismedia.aidungeon.dungeons.DungeonLayout;
+import com.ubivismedia.aidungeon.dungeons.DungeonManifest;
 import com.ubivismedia.aidungeon.dungeons.RoomType;
 import com.ubivismedia.aidungeon.dungeons.BiomeArea;
 
-import java.util.Map;
 import java.util.UUID;
+import java.util.function.Supplier;
 
 import org.bukkit.Location;
 
 /**
- * Represents the data for a generated dungeon
+ * Represents the data for a generated dungeon.
+ * Each dungeon knows its own area, and the offset from world to layout
+ * coordinates is computed once when its layout is set.
  */
 public class DungeonData {
     
-    private final DungeonLayout layout;
-    private final AIDungeonGenerator plugin;
+    private final BiomeArea area;
+    private volatile DungeonLayout layout;
+    private Supplier<DungeonLayout> layoutLoader;
+    private boolean layoutLoading;
+    private final DungeonTheme theme;
+    private final DungeonManifest manifest;
     private final UUID discovererUUID;
     private final long timestamp;
     
+    // World position of layout cell 0, 0; written before the layout is published
+    private int originX;
+    private int originZ;
+    
     /**
      * Create new dungeon data
+     * @param manifest The features recorded when the dungeon was placed, or null if unknown
+     */
+    public DungeonData(BiomeArea area, DungeonLayout layout, DungeonManifest manifest, UUID discovererUUID,
+                       long timestamp) {
+        this.area = area;
+        this.theme = layout.getTheme();
+        this.manifest = manifest;
+        this.discovererUUID = discovererUUID;
+        this.timestamp = timestamp;
+        setLayout(layout);
+    }
+    
+    /**
+     * Create dungeon data whose layout is only loaded when first needed
      */
-    public DungeonData(DungeonLayout layout, UUID discovererUUID, long timestamp, AIDungeonGenerator plugin) {
-        this.layout = layout;
+    public DungeonData(BiomeArea area, DungeonTheme theme, DungeonManifest manifest,
+                       Supplier<DungeonLayout> layoutLoader, UUID discovererUUID, long timestamp) {
+        this.area = area;
+        this.layoutLoader = layoutLoader;
+        this.theme = theme;
+        this.manifest = manifest;
         this.discovererUUID = discovererUUID;
         this.timestamp = timestamp;
-        this.plugin = plugin;
     }
     
     /**
      * Create new dungeon data with current timestamp
      */
-    public DungeonData(DungeonLayout layout, UUID discovererUUID) {
-        this(layout, discovererUUID, System.currentTimeMillis(), null);
+    public DungeonData(BiomeArea area, DungeonLayout layout, UUID discovererUUID) {
+        this(area, layout, null, discovererUUID, System.currentTimeMillis());
+    }
+    
+    /**
+     * Get the area this dungeon was generated for
+     */
+    public BiomeArea getArea() {
+        return area;
+    }
+    
+    /**
+     * Get the unique ID of this dungeon (worldName:x:z)
+     */
+    public String getDungeonId() {
+        return area.getUniqueId();
     }
     
     /**
      * Get the dungeon layout
+     * @return The layout, or null while it is being rebuilt from its seed
      */
     public DungeonLayout getLayout() {
-        return layout;
+        DungeonLayout loaded = layout;
+        if (loaded == null) {
+            synchronized (this) {
+                loaded = layout;
+                if (loaded == null && layoutLoader != null && !layoutLoading) {
+                    // A layout the loader rebuilds later is set through setLayout
+                    layoutLoading = true;
+                    try {
+                        loaded = layoutLoader.get();
+                    } catch (RuntimeException e) {
+                        layoutLoading = false;
+                        throw e;
+                    }
+                    if (loaded != null) {
+                        setLayout(loaded);
+                    }
+                }
+            }
+        }
+        return loaded;
+    }
+    
+    /**
+     * Publish a layout together with its origin, which is centered on the area like the placed blocks
+     */
+    synchronized void setLayout(DungeonLayout loaded) {
+        originX = area.getCenterX() - loaded.getSize() / 2;
+        originZ = area.getCenterZ() - loaded.getSize() / 2;
+        layout = loaded;
+        layoutLoader = null;
+        layoutLoading = false;
+    }
+    
+    /**
+     * Let the next call to {@link #getLayout()} run the loader again after a rebuild failed
+     */
+    synchronized void layoutLoadFailed() {
+        layoutLoading = false;
+    }
+    
+    /**
+     * Check whether the layout has been loaded
+     */
+    public boolean isLayoutLoaded() {
+        return layout != null;
+    }
+    
+    /**
+     * Get the features recorded when this dungeon was placed
+     * @return The manifest, or null for dungeons placed before features were recorded
+     */
+    public DungeonManifest getManifest() {
+        return manifest;
     }
     
     /**
@@ -63,7 +157,7 @@ public class DungeonData {
      * Get the theme of this dungeon
      */
     public DungeonTheme getTheme() {
-        return layout.getTheme();
+        return theme;
     }
     
     /**
@@ -75,78 +169,24 @@ public class DungeonData {
 
     public String getBossTypeAt(Location location) {
         // Convert world location to layout coordinates
-        int x = calculateXInLayout(location.getBlockX());
-        int z = calculateZInLayout(location.getBlockZ());
-        
-        return layout.getBossTypeAt(x, z);
-    }
-
-    public RoomType getRoomTypeAt(Location location) {
-        // Convert world location to layout coordinates
-        int x = convertToLayoutX(location.getBlockX());
-        int z = convertToLayoutZ(location.getBlockZ());
-        
-        return layout.getRoomType(x, z);
-    }
-
-    private int convertToLayoutX(int worldX) {
-        // Calculate X coordinate in layout
-        // Based on dungeon center and size
-        return worldX - (getCenterX() - layout.getSize()/2);
-    }
-
-    private int convertToLayoutZ(int worldZ) {
-        // Calculate Z coordinate in layout
-        return worldZ - (getCenterZ() - layout.getSize()/2);
-    }
-
-    private int getCenterX() {
-        // Get center X from BiomeArea
-        for (BiomeArea area : plugin.getDungeonManager().getAllDungeons().keySet()) {
-            if (getDungeonId().equals(area.getUniqueId())) {
-                return area.getCenterX();
-            }
+        DungeonLayout loaded = getLayout();
+        if (loaded == null) {
+            return null;
         }
-        return 0;
+        return loaded.getBossTypeAt(location.getBlockX() - originX, location.getBlockZ() - originZ);
     }
 
-    private int getCenterZ() {
-        // Get center Z from BiomeArea
-        for (BiomeArea area : plugin.getDungeonManager().getAllDungeons().keySet()) {
-            if (getDungeonId().equals(area.getUniqueId())) {
-                return area.getCenterZ();
-            }
-        }
-        return 0;
-    }
-
-    private int calculateXInLayout(int worldX) {
-        // Convert world X coordinate to layout X coordinate
-        // Based on dungeon center position and layout size
-        return worldX - (getArea().getCenterX() - layout.getSize()/2);
-    }
-
-    private int calculateZInLayout(int worldZ) {
-        // Convert world Z coordinate to layout Z coordinate
-        return worldZ - (getArea().getCenterZ() - layout.getSize()/2);
-    }
-
-    // Helper method to get the BiomeArea for this dungeon
-    private BiomeArea getArea() {
-        for (Map.Entry<BiomeArea, DungeonData> entry : plugin.getDungeonManager().getAllDungeons().entrySet()) {
-            if (entry.getValue() == this) {
-                return entry.getKey();
-            }
+    public RoomType getRoomTypeAt(Location location) {
+        // Recorded rooms are looked up directly, without loading the layout
+        if (manifest != null) {
+            return manifest.getRoomTypeAt(location.getBlockX(), location.getBlockZ());
         }
-        throw new IllegalStateException("Could not find BiomeArea for this DungeonData");
-    }
-
-    private String getDungeonId() {
-        for (Map.Entry<BiomeArea, DungeonData> entry : plugin.getDungeonManager().getAllDungeons().entrySet()) {
-            if (entry.getValue() == this) {
-                return entry.getKey().getUniqueId();
-            }
+        
+        // Convert world location to layout coordinates
+        DungeonLayout loaded = getLayout();
+        if (loaded == null) {
+            return null;
         }
-        return null;
+        return loaded.getRoomType(location.getBlockX() - originX, location.getBlockZ() - originZ);
     }
 }
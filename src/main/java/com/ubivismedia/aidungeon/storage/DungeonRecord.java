@@ -0,0 +1,315 @@
+package com.ubivismedia.aidungeon.storage;
+
+import com.ubivismedia.aidungeon.config.DungeonTheme;
+import com.ubivismedia.aidungeon.dungeons.BiomeArea;
+import com.ubivismedia.aidungeon.dungeons.DungeonLayout;
+import com.ubivismedia.aidungeon.dungeons.DungeonManifest;
+import com.ubivismedia.aidungeon.dungeons.RoomType;
+import org.bukkit.block.Biome;
+import org.bukkit.util.Vector;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One dungeon entry of a region file.
+ * The header fields and the feature manifest are read when the region is scanned;
+ * the layout grid stays in the (memory-mapped) file until {@link #readLayout(DungeonTheme)} is called.
+ * Version 2 added the optional manifest; version 1 records are still read.
+ */
+public class DungeonRecord {
+
+    static final byte RECORD_VERSION = 2;
+
+    private static final byte FLAG_LAYOUT = 1;
+    private static final byte FLAG_MANIFEST = 2;
+    private static final RoomType[] ROOM_TYPES = RoomType.values();
+
+    private final int centerX;
+    private final int centerZ;
+    private final int radius;
+    private final String biomeName;
+    private final String themeName;
+    private final UUID discovererUUID;
+    private final long timestamp;
+    private final long seed;
+    private final DungeonManifest manifest;
+    private final ByteBuffer layoutData;
+
+    private DungeonRecord(int centerX, int centerZ, int radius, String biomeName, String themeName,
+                          UUID discovererUUID, long timestamp, long seed, DungeonManifest manifest,
+                          ByteBuffer layoutData) {
+        this.centerX = centerX;
+        this.centerZ = centerZ;
+        this.radius = radius;
+        this.biomeName = biomeName;
+        this.themeName = themeName;
+        this.discovererUUID = discovererUUID;
+        this.timestamp = timestamp;
+        this.seed = seed;
+        this.manifest = manifest;
+        this.layoutData = layoutData;
+    }
+
+    /**
+     * Encode a dungeon as a record payload
+     * @param layout The layout grid to store, or null to only store the seed
+     * @param manifest The features placed for the dungeon, or null if they were not recorded
+     */
+    public static byte[] encode(BiomeArea area, String themeName, UUID discovererUUID, long timestamp,
+                                long seed, DungeonLayout layout, DungeonManifest manifest) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(RECORD_VERSION);
+            out.writeInt(area.getCenterX());
+            out.writeInt(area.getCenterZ());
+            out.writeInt(area.getRadius());
+            writeString(out, area.getPrimaryBiome().name());
+            writeString(out, themeName);
+            out.writeLong(discovererUUID.getMostSignificantBits());
+            out.writeLong(discovererUUID.getLeastSignificantBits());
+            out.writeLong(timestamp);
+            out.writeLong(seed);
+            out.writeByte((layout != null ? FLAG_LAYOUT : 0) | (manifest != null ? FLAG_MANIFEST : 0));
+
+            if (manifest != null) {
+                writeManifest(out, manifest, area.getCenterX(), area.getCenterZ());
+            }
+            if (layout != null) {
+                writeLayout(out, layout);
+            }
+        } catch (IOException e) {
+            // Writing to a byte array cannot fail
+            throw new IllegalStateException(e);
+        }
+
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Read the header of a record payload; the buffer is left positioned after the payload
+     * @param payload Buffer limited to exactly one payload
+     */
+    static DungeonRecord read(ByteBuffer payload) throws IOException {
+        byte version = payload.get();
+        if (version < 1 || version > RECORD_VERSION) {
+            throw new IOException("Unsupported dungeon record version " + version);
+        }
+
+        int centerX = payload.getInt();
+        int centerZ = payload.getInt();
+        int radius = payload.getInt();
+        String biomeName = readString(payload);
+        String themeName = readString(payload);
+        UUID discoverer = new UUID(payload.getLong(), payload.getLong());
+        long timestamp = payload.getLong();
+        long seed = payload.getLong();
+        byte flags = payload.get();
+
+        DungeonManifest manifest = null;
+        if ((flags & FLAG_MANIFEST) != 0) {
+            manifest = readManifest(payload, centerX, centerZ);
+        }
+
+        ByteBuffer layoutData = null;
+        if ((flags & FLAG_LAYOUT) != 0) {
+            layoutData = payload.slice();
+        }
+        payload.position(payload.limit());
+
+        return new DungeonRecord(centerX, centerZ, radius, biomeName, themeName,
+                discoverer, timestamp, seed, manifest, layoutData);
+    }
+
+    /**
+     * Check whether the layout grid is stored, rather than only its seed
+     */
+    public boolean hasLayout() {
+        return layoutData != null;
+    }
+
+    /**
+     * Decode the stored layout grid
+     */
+    public DungeonLayout readLayout(DungeonTheme theme) {
+        ByteBuffer in = layoutData.duplicate();
+
+        int size = in.getInt();
+        int entranceX = in.getInt();
+        int entranceY = in.getInt();
+
+        DungeonLayout layout = new DungeonLayout(size, theme, seed);
+        layout.setEntrancePosition(entranceX, entranceY);
+
+        // Room types are stored as 4-bit ordinals, two cells per byte
+        int cells = size * size;
+        int value = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            int ordinal;
+            if ((cell & 1) == 0) {
+                value = in.get() & 0xFF;
+                ordinal = value >>> 4;
+            } else {
+                ordinal = value & 0x0F;
+            }
+            layout.setRoomType(cell / size, cell % size, ROOM_TYPES[ordinal]);
+        }
+
+        int bossCount = in.getInt();
+        for (int i = 0; i < bossCount; i++) {
+            int x = in.getInt();
+            int y = in.getInt();
+            layout.setBossType(x, y, readString(in));
+        }
+
+        return layout;
+    }
+
+    private static void writeLayout(DataOutputStream out, DungeonLayout layout) throws IOException {
+        int size = layout.getSize();
+        out.writeInt(size);
+        out.writeInt(layout.getEntranceX());
+        out.writeInt(layout.getEntranceY());
+
+        int cells = size * size;
+        int value = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            int ordinal = layout.getRoomType(cell / size, cell % size).ordinal();
+            if ((cell & 1) == 0) {
+                value = ordinal << 4;
+                if (cell == cells - 1) {
+                    out.writeByte(value);
+                }
+            } else {
+                out.writeByte(value | ordinal);
+            }
+        }
+
+        Map<Vector, String> bossTypes = layout.getBossTypes();
+        out.writeInt(bossTypes.size());
+        for (Map.Entry<Vector, String> entry : bossTypes.entrySet()) {
+            out.writeInt(entry.getKey().getBlockX());
+            out.writeInt(entry.getKey().getBlockY());
+            writeString(out, entry.getValue());
+        }
+    }
+
+    /**
+     * Write a manifest with positions as shorts relative to the dungeon center and floor
+     */
+    private static void writeManifest(DataOutputStream out, DungeonManifest manifest,
+                                      int centerX, int centerZ) throws IOException {
+        int floorY = manifest.getFloorY();
+        out.writeInt(floorY);
+        writePositions(out, manifest.getChests(), centerX, floorY, centerZ);
+        writePositions(out, manifest.getSpawners(), centerX, floorY, centerZ);
+        writePositions(out, manifest.getTraps(), centerX, floorY, centerZ);
+
+        int[] rooms = manifest.getRooms();
+        out.writeInt(rooms.length / 3);
+        for (int i = 0; i < rooms.length; i += 3) {
+            out.writeShort(rooms[i] - centerX);
+            out.writeShort(rooms[i + 1] - centerZ);
+            out.writeByte(rooms[i + 2]);
+        }
+    }
+
+    private static DungeonManifest readManifest(ByteBuffer in, int centerX, int centerZ) {
+        int floorY = in.getInt();
+        int[] chests = readPositions(in, centerX, floorY, centerZ);
+        int[] spawners = readPositions(in, centerX, floorY, centerZ);
+        int[] traps = readPositions(in, centerX, floorY, centerZ);
+
+        int[] rooms = new int[in.getInt() * 3];
+        for (int i = 0; i < rooms.length; i += 3) {
+            rooms[i] = centerX + in.getShort();
+            rooms[i + 1] = centerZ + in.getShort();
+            rooms[i + 2] = in.get();
+        }
+
+        return new DungeonManifest(floorY, chests, spawners, traps, rooms);
+    }
+
+    private static void writePositions(DataOutputStream out, int[] positions,
+                                       int centerX, int floorY, int centerZ) throws IOException {
+        out.writeInt(positions.length / 3);
+        for (int i = 0; i < positions.length; i += 3) {
+            out.writeShort(positions[i] - centerX);
+            out.writeShort(positions[i + 1] - floorY);
+            out.writeShort(positions[i + 2] - centerZ);
+        }
+    }
+
+    private static int[] readPositions(ByteBuffer in, int centerX, int floorY, int centerZ) {
+        int[] positions = new int[in.getInt() * 3];
+        for (int i = 0; i < positions.length; i += 3) {
+            positions[i] = centerX + in.getShort();
+            positions[i + 1] = floorY + in.getShort();
+            positions[i + 2] = centerZ + in.getShort();
+        }
+        return positions;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Get the area of this dungeon in the given world
+     */
+    public BiomeArea toArea(String worldName) {
+        return new BiomeArea(worldName, centerX, centerZ, radius, Biome.valueOf(biomeName));
+    }
+
+    /**
+     * Get the key identifying this dungeon within its region file
+     */
+    public long getKey() {
+        return key(centerX, centerZ);
+    }
+
+    /**
+     * Get the key identifying a dungeon center within a region file
+     */
+    public static long key(int centerX, int centerZ) {
+        return ((long) centerX << 32) | (centerZ & 0xFFFFFFFFL);
+    }
+
+    public String getThemeName() {
+        return themeName;
+    }
+
+    public UUID getDiscovererUUID() {
+        return discovererUUID;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Get the features recorded for this dungeon
+     * @return The manifest, or null if the record has none
+     */
+    public DungeonManifest getManifest() {
+        return manifest;
+    }
+}
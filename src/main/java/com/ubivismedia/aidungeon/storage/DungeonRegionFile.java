@@ -0,0 +1,235 @@
+package com.ubivismedia.aidungeon.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Append-only binary file holding the dungeons of one world.
+ * Saving a dungeon appends a record; when a dungeon is saved again the newer
+ * record wins. Files are memory-mapped for loading and compacted once most of
+ * their records have been superseded.
+ *
+ * Format: int magic, short version, then records of int length + payload
+ */
+public class DungeonRegionFile {
+
+    static final int MAGIC = 0x41444E47; // "ADNG"
+    static final short VERSION = 1;
+
+    private static final int HEADER_SIZE = 6;
+    private static final int MIN_DEAD_RECORDS_TO_COMPACT = 16;
+
+    private final File file;
+    private final Logger logger;
+
+    // Where the next record goes if the file ends in bytes that could not be cut off, -1 for the end
+    private long appendOffset = -1;
+
+    public DungeonRegionFile(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    /**
+     * Get the file backing this region
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Append record payloads after the last valid record, creating the file if needed
+     */
+    public synchronized void append(List<byte[]> payloads) throws IOException {
+        if (!file.exists()) {
+            file.getParentFile().mkdirs();
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long position = appendOffset >= 0 ? appendOffset : channel.size();
+            boolean created = position == 0;
+
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                if (created) {
+                    out.writeInt(MAGIC);
+                    out.writeShort(VERSION);
+                }
+
+                for (byte[] payload : payloads) {
+                    out.writeInt(payload.length);
+                    out.write(payload);
+                }
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+
+            // Keep writing over the unusable tail until it could be cut off
+            if (appendOffset >= 0) {
+                appendOffset = position;
+            }
+        }
+    }
+
+    /**
+     * Load the latest record of every dungeon in this file.
+     * Layout data of the returned records points into a read-only mapping of the file.
+     */
+    public synchronized Map<Long, DungeonRecord> load() throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return new LinkedHashMap<>();
+        }
+
+        Scan scan = scan(map());
+
+        if (scan.truncated || (scan.deadRecords >= MIN_DEAD_RECORDS_TO_COMPACT
+                && scan.deadRecords > scan.records.size())) {
+            if (compact(scan)) {
+                scan = scan(map());
+            } else if (scan.truncated) {
+                // New records must not end up behind the incomplete one
+                cutOff(scan.validEnd);
+            }
+        }
+
+        return scan.records;
+    }
+
+    private MappedByteBuffer map() throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private Scan scan(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a dungeon region file: " + file.getName());
+        }
+
+        short version = buffer.getShort();
+        if (version > VERSION) {
+            throw new IOException("Region file " + file.getName() + " was written by a newer version (" + version + ")");
+        }
+
+        Scan scan = new Scan(buffer);
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+
+            if (length <= 0 || length > buffer.remaining()) {
+                // Interrupted write, everything from here on is discarded
+                logger.warning("Ignoring incomplete record at the end of " + file.getName());
+                buffer.position(start);
+                scan.truncated = true;
+                break;
+            }
+
+            ByteBuffer payload = buffer.slice();
+            payload.limit(length);
+            buffer.position(buffer.position() + length);
+
+            try {
+                DungeonRecord record = DungeonRecord.read(payload);
+                if (scan.records.put(record.getKey(), record) != null) {
+                    scan.deadRecords++;
+                }
+                scan.offsets.put(record.getKey(), new int[] {start, 4 + length});
+            } catch (IOException | RuntimeException e) {
+                logger.warning("Skipping unreadable record in " + file.getName() + ": " + e.getMessage());
+                scan.deadRecords++;
+            }
+        }
+
+        if (buffer.hasRemaining() && !scan.truncated) {
+            scan.truncated = true;
+        }
+        scan.validEnd = buffer.position();
+
+        return scan;
+    }
+
+    /**
+     * Rewrite the file with only the latest record of each dungeon
+     * @return true if the file was replaced
+     */
+    private boolean compact(Scan scan) {
+        File temp = new File(file.getParentFile(), file.getName() + ".tmp");
+
+        try {
+            try (FileChannel out = FileChannel.open(temp.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                header.putInt(MAGIC).putShort(VERSION).flip();
+                out.write(header);
+
+                List<int[]> ranges = new ArrayList<>(scan.offsets.values());
+                for (int[] range : ranges) {
+                    ByteBuffer record = scan.source.duplicate();
+                    record.limit(range[0] + range[1]).position(range[0]);
+                    while (record.hasRemaining()) {
+                        out.write(record);
+                    }
+                }
+                out.force(true);
+            }
+
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logger.info("Compacted " + file.getName() + ": dropped " + scan.deadRecords + " superseded record(s)");
+            return true;
+        } catch (IOException e) {
+            // The old file is left as it was, so compaction can simply be tried again next start
+            logger.warning("Could not compact " + file.getName() + ": " + e.getMessage());
+            temp.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Cut the file off after its last valid record. If that fails (e.g. because the
+     * file is still mapped), later records are written over the invalid tail instead.
+     */
+    private void cutOff(int validEnd) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            channel.truncate(validEnd);
+            appendOffset = -1;
+        } catch (IOException e) {
+            logger.warning("Could not cut off the incomplete record of " + file.getName() + ": " + e.getMessage());
+            appendOffset = validEnd;
+        }
+    }
+
+    /**
+     * Result of scanning a mapped region file
+     */
+    private static class Scan {
+        final ByteBuffer source;
+        final Map<Long, DungeonRecord> records = new LinkedHashMap<>();
+        // Latest record position and length by dungeon key
+        final Map<Long, int[]> offsets = new LinkedHashMap<>();
+        int deadRecords;
+        boolean truncated;
+        // End of the last complete record
+        int validEnd;
+
+        Scan(ByteBuffer source) {
+            this.source = source;
+        }
+    }
+}
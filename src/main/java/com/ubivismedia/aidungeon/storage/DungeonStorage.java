@@ -6,7 +6,6 @@ import com.ubivismedia.aidungeon.dungeons.BiomeArea;
 import com.ubivismedia.aidungeon.dungeons.DungeonLayout;
 import com.ubivismedia.aidungeon.dungeons.RoomType;
 import org.bukkit.Bukkit;
-import org.bukkit.World;
 import org.bukkit.block.Biome;
 import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
@@ -16,42 +15,48 @@ import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.logging.Level;
 
 /**
- * Handles persistent storage of dungeon data
+ * Handles persistent storage of dungeon data.
+ * Dungeons are kept in one binary region file per world (see {@link DungeonRegionFile});
+ * saving a dungeon appends a single record instead of rewriting everything.
  */
 public class DungeonStorage {
     
+    private static final String REGION_EXTENSION = ".dat";
+    
     private final AIDungeonGenerator plugin;
-    private final File storageFile;
-    private FileConfiguration storage;
+    private final File regionFolder;
+    private final File legacyFile;
+    
+    // Region files by world name
+    private final Map<String, DungeonRegionFile> regions = new ConcurrentHashMap<>();
+    
+    // Records waiting to be written, flushed off the main thread
+    private final Queue<PendingWrite> pendingWrites = new ConcurrentLinkedQueue<>();
     
     // In-memory cache of dungeon data
     private final Map<String, DungeonData> dungeonDataCache = new ConcurrentHashMap<>();
+    private final Map<String, BiomeArea> dungeonAreas = new ConcurrentHashMap<>();
     
     /**
      * Create a new dungeon storage manager
      */
     public DungeonStorage(AIDungeonGenerator plugin) {
         this.plugin = plugin;
-        this.storageFile = new File(plugin.getDataFolder(), "dungeons.yml");
+        this.regionFolder = new File(plugin.getDataFolder(), "dungeons");
+        this.legacyFile = new File(plugin.getDataFolder(), "dungeons.yml");
     }
     
     /**
      * Initialize the storage
      */
     public void initialize() {
-        if (!storageFile.exists()) {
-            try {
-                plugin.getDataFolder().mkdirs();
-                storageFile.createNewFile();
-            } catch (IOException e) {
-                plugin.getLogger().log(Level.SEVERE, "Could not create dungeons.yml", e);
-            }
+        if (!regionFolder.exists() && !regionFolder.mkdirs()) {
+            plugin.getLogger().severe("Could not create dungeon storage folder " + regionFolder.getPath());
         }
-        
-        this.storage = YamlConfiguration.loadConfiguration(storageFile);
     }
     
     /**
@@ -60,120 +65,208 @@ public class DungeonStorage {
     public void saveDungeon(BiomeArea area, DungeonData data) {
         String key = getStorageKey(area);
         dungeonDataCache.put(key, data);
+        dungeonAreas.put(key, area);
         
-        // Save to configuration
-        storage.set(key + ".biome", area.getPrimaryBiome().name());
-        storage.set(key + ".x", area.getCenterX());
-        storage.set(key + ".z", area.getCenterZ());
-        storage.set(key + ".radius", area.getRadius());
-        storage.set(key + ".discoverer", data.getDiscovererUUID().toString());
-        storage.set(key + ".timestamp", data.getTimestamp());
-        storage.set(key + ".theme", data.getTheme().getName());
+        DungeonLayout layout = data.getLayout();
+        byte[] payload = DungeonRecord.encode(area, data.getTheme().getName(), data.getDiscovererUUID(),
+                data.getTimestamp(), layout.getSeed(), layout, data.getManifest());
+        pendingWrites.add(new PendingWrite(area.getWorldName(), payload));
         
-        // Save layout data - only save essential information
-        // We'll regenerate the full layout when needed
-        saveLayoutData(key, data.getLayout());
+        // Write asynchronously (tasks can't be scheduled while disabling)
+        if (plugin.isEnabled()) {
+            Bukkit.getScheduler().runTaskAsynchronously(plugin, this::flushPendingWrites);
+        } else {
+            flushPendingWrites();
+        }
+    }
+    
+    /**
+     * Append all pending records to their region files
+     */
+    private synchronized void flushPendingWrites() {
+        Map<String, List<byte[]>> byWorld = new LinkedHashMap<>();
+        PendingWrite write;
+        while ((write = pendingWrites.poll()) != null) {
+            byWorld.computeIfAbsent(write.worldName, name -> new ArrayList<>()).add(write.payload);
+        }
         
-        // Save to file asynchronously
-        Bukkit.getScheduler().runTaskAsynchronously(plugin, this::saveStorageFile);
+        for (Map.Entry<String, List<byte[]>> entry : byWorld.entrySet()) {
+            try {
+                getRegion(entry.getKey()).append(entry.getValue());
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not save dungeons of world " + entry.getKey(), e);
+            }
+        }
+    }
+    
+    /**
+     * Get the region file of a world
+     */
+    private DungeonRegionFile getRegion(String worldName) {
+        return regions.computeIfAbsent(worldName, name ->
+                new DungeonRegionFile(new File(regionFolder, name + REGION_EXTENSION), plugin.getLogger()));
     }
     
     /**
-     * Save layout data to storage
+     * Load existing dungeons from storage. Only the dungeon index is read here;
+     * layouts are decoded when a dungeon is first used.
      */
-    private void saveLayoutData(String key, DungeonLayout layout) {
-        // Save entrance position
-        storage.set(key + ".layout.entrance.x", layout.getEntranceX());
-        storage.set(key + ".layout.entrance.y", layout.getEntranceY());
+    public void loadExistingDungeons() {
+        migrateLegacyStorage();
         
-        // Save special rooms
-        List<Map<String, Object>> specialRooms = new ArrayList<>();
+        dungeonDataCache.clear();
+        dungeonAreas.clear();
         
-        // Save each room type
-        for (RoomType type : RoomType.values()) {
-            if (type.isSpecial()) {
-                // Get positions for this type
-                List<org.bukkit.util.Vector> positions = layout.getRoomPositions(type);
-                
-                for (org.bukkit.util.Vector pos : positions) {
-                    Map<String, Object> room = new HashMap<>();
-                    room.put("type", type.name());
-                    room.put("x", pos.getBlockX());
-                    room.put("z", pos.getBlockZ());
-                    specialRooms.add(room);
+        File[] files = regionFolder.listFiles((dir, name) -> name.endsWith(REGION_EXTENSION));
+        if (files == null) {
+            return;
+        }
+        
+        for (File file : files) {
+            String worldName = file.getName().substring(0, file.getName().length() - REGION_EXTENSION.length());
+            if (Bukkit.getWorld(worldName) == null) {
+                plugin.getLogger().warning("World not found: " + worldName);
+                continue;
+            }
+            
+            Map<Long, DungeonRecord> records;
+            try {
+                records = getRegion(worldName).load();
+            } catch (IOException e) {
+                plugin.getLogger().log(Level.SEVERE, "Could not load dungeons of world " + worldName, e);
+                continue;
+            }
+            
+            for (DungeonRecord record : records.values()) {
+                try {
+                    BiomeArea area = record.toArea(worldName);
+                    DungeonTheme theme = resolveTheme(record.getThemeName(), area.getPrimaryBiome());
+                    
+                    DungeonData data = new DungeonData(area, theme, record.getManifest(),
+                            () -> loadLayout(record, area, theme),
+                            record.getDiscovererUUID(), record.getTimestamp());
+                    
+                    String key = getStorageKey(area);
+                    dungeonDataCache.put(key, data);
+                    dungeonAreas.put(key, area);
+                    plugin.getDungeonManager().addDungeon(area, data);
+                } catch (Exception e) {
+                    plugin.getLogger().log(Level.WARNING, "Error loading dungeon record in world " + worldName, e);
                 }
             }
         }
-        
-        // Save special rooms
-        storage.set(key + ".layout.special_rooms", specialRooms);
     }
     
     /**
-     * Save the storage file to disk
+     * Decode a stored layout. Layouts that were stored as a seed only, or are damaged,
+     * are rebuilt on a generation thread and set on the dungeon when done
+     * @return The layout, or null while it is being rebuilt
      */
-    private void saveStorageFile() {
-        try {
-            storage.save(storageFile);
-        } catch (IOException e) {
-            plugin.getLogger().log(Level.SEVERE, "Could not save dungeons.yml", e);
+    private DungeonLayout loadLayout(DungeonRecord record, BiomeArea area, DungeonTheme theme) {
+        if (record.hasLayout()) {
+            try {
+                return record.readLayout(theme);
+            } catch (RuntimeException e) {
+                plugin.getLogger().log(Level.WARNING, "Stored layout of " + area + " is damaged, regenerating it", e);
+            }
         }
+        
+        String key = getStorageKey(area);
+        plugin.getDungeonManager().regenerateLayout(area, record.getSeed(), layout -> {
+            DungeonData data = dungeonDataCache.get(key);
+            if (data == null) {
+                return;
+            }
+            if (layout != null) {
+                data.setLayout(layout);
+            } else {
+                // Try again the next time the layout is needed
+                data.layoutLoadFailed();
+            }
+        });
+        return null;
     }
     
     /**
-     * Load existing dungeons from storage
+     * Find a theme by name, falling back to the biome's theme
      */
-    public void loadExistingDungeons() {
-        if (!storageFile.exists()) {
+    private DungeonTheme resolveTheme(String themeName, Biome biome) {
+        DungeonTheme theme = plugin.getConfigManager().getThemeByName(themeName);
+        return theme != null ? theme : plugin.getConfigManager().getThemeForBiome(biome);
+    }
+    
+    /**
+     * Convert dungeons.yml from older versions into region files, then rename it
+     */
+    private void migrateLegacyStorage() {
+        if (!legacyFile.exists()) {
             return;
         }
-
-        dungeonDataCache.clear();
-
+        
+        FileConfiguration storage = YamlConfiguration.loadConfiguration(legacyFile);
+        Map<String, List<byte[]>> byWorld = new LinkedHashMap<>();
+        int migrated = 0;
+        
         // Iterate through world sections
         for (String worldName : storage.getKeys(false)) {
             ConfigurationSection worldSection = storage.getConfigurationSection(worldName);
             if (worldSection == null) continue;
-
+            
             // Iterate through coordinate sections
             for (String xCoord : worldSection.getKeys(false)) {
                 ConfigurationSection xSection = worldSection.getConfigurationSection(xCoord);
                 if (xSection == null) continue;
-
+                
                 for (String zCoord : xSection.getKeys(false)) {
                     try {
                         ConfigurationSection section = xSection.getConfigurationSection(zCoord);
                         if (section == null) continue;
-
-                        World world = Bukkit.getWorld(worldName);
-                        if (world == null) {
-                            plugin.getLogger().warning("World not found: " + worldName);
-                            continue;
-                        }
-
-                        // Rest of your existing loading logic remains the same
+                        
                         String biomeName = section.getString("biome");
                         if (biomeName == null) {
                             plugin.getLogger().warning("Skipping dungeon with null biome in world " + worldName);
                             continue;
                         }
-
+                        
                         Biome biome = Biome.valueOf(biomeName);
-                        int x = section.getInt("x");
-                        int z = section.getInt("z");
-                        int radius = section.getInt("radius");
-
-                        BiomeArea area = new BiomeArea(worldName, x, z, radius, biome);
-
-                        // Remaining loading logic...
-
+                        BiomeArea area = new BiomeArea(worldName, section.getInt("x"), section.getInt("z"),
+                                section.getInt("radius"), biome);
+                        
+                        String discoverer = section.getString("discoverer");
+                        UUID discovererUUID = discoverer != null ? UUID.fromString(discoverer) : new UUID(0L, 0L);
+                        long timestamp = section.getLong("timestamp", System.currentTimeMillis());
+                        DungeonTheme theme = resolveTheme(section.getString("theme", ""), biome);
+                        String themeName = section.getString("theme", theme != null ? theme.getName() : "");
+                        
+                        // dungeons.yml only kept the special rooms of a layout
+                        DungeonLayout layout = createBasicLayout(section, theme);
+                        byte[] payload = DungeonRecord.encode(area, themeName, discovererUUID, timestamp,
+                                layout.getSeed(), layout, null);
+                        
+                        byWorld.computeIfAbsent(worldName, name -> new ArrayList<>()).add(payload);
+                        migrated++;
                     } catch (Exception e) {
                         plugin.getLogger().log(Level.WARNING,
-                                "Error loading dungeon data for " + worldName + ":" + xCoord + ":" + zCoord, e);
+                                "Error migrating dungeon data for " + worldName + ":" + xCoord + ":" + zCoord, e);
                     }
                 }
             }
         }
+        
+        try {
+            for (Map.Entry<String, List<byte[]>> entry : byWorld.entrySet()) {
+                getRegion(entry.getKey()).append(entry.getValue());
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.SEVERE, "Could not migrate dungeons.yml, it will be retried on next start", e);
+            return;
+        }
+        
+        File backup = new File(plugin.getDataFolder(), "dungeons.yml.migrated");
+        if (!legacyFile.renameTo(backup)) {
+            plugin.getLogger().warning("Could not rename dungeons.yml after migration, delete it to avoid migrating twice");
+        }
+        plugin.getLogger().info("Migrated " + migrated + " dungeon(s) from dungeons.yml to region files");
     }
     
     /**
@@ -238,26 +331,10 @@ public class DungeonStorage {
     public Map<BiomeArea, DungeonData> getAllDungeons() {
         Map<BiomeArea, DungeonData> dungeons = new HashMap<>();
         
-        for (String key : dungeonDataCache.keySet()) {
-            try {
-                String[] parts = key.split("\\.");
-                
-                String worldName = parts[0];
-                World world = Bukkit.getWorld(worldName);
-                
-                if (world == null) continue;
-                
-                // Get data from configuration
-                int x = storage.getInt(key + ".x");
-                int z = storage.getInt(key + ".z");
-                int radius = storage.getInt(key + ".radius");
-                Biome biome = Biome.valueOf(storage.getString(key + ".biome"));
-                
-                BiomeArea area = new BiomeArea(worldName, x, z, radius, biome);
-                
-                dungeons.put(area, dungeonDataCache.get(key));
-            } catch (Exception e) {
-                plugin.getLogger().log(Level.WARNING, "Error parsing dungeon data for " + key, e);
+        for (Map.Entry<String, BiomeArea> entry : dungeonAreas.entrySet()) {
+            DungeonData data = dungeonDataCache.get(entry.getKey());
+            if (data != null) {
+                dungeons.put(entry.getValue(), data);
             }
         }
         
@@ -272,9 +349,22 @@ public class DungeonStorage {
     }
     
     /**
-     * Save all dungeons to disk
+     * Write any dungeons that have not been saved yet
      */
     public void saveAllDungeons() {
-        saveStorageFile();
+        flushPendingWrites();
+    }
+    
+    /**
+     * A record waiting to be appended to a region file
+     */
+    private static class PendingWrite {
+        final String worldName;
+        final byte[] payload;
+        
+        PendingWrite(String worldName, byte[] payload) {
+            this.worldName = worldName;
+            this.payload = payload;
+        }
     }
 }
@@ -0,0 +1,189 @@
+package com.ubivismedia.aidungeon.storage;
+
+import org.bukkit.block.Biome;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Append-only binary file holding the explored chunks of one world.
+ * Each record lists the chunks of one region (32x32 chunks) that were first explored
+ * in one biome. A chunk is only ever written once, so the file never needs compacting.
+ *
+ * Format: int magic, short version, then records of int length + payload
+ */
+public class ExplorationFile {
+
+    static final int MAGIC = 0x41455850; // "AEXP"
+    static final short VERSION = 1;
+
+    /**
+     * Chunks per region side, as a shift
+     */
+    public static final int REGION_SHIFT = 5;
+
+    private static final int REGION_MASK = (1 << REGION_SHIFT) - 1;
+    private static final int HEADER_SIZE = 6;
+
+    /**
+     * Receives the chunks read from a file
+     */
+    public interface ChunkVisitor {
+        void visit(String biomeName, int chunkX, int chunkZ);
+    }
+
+    private final File file;
+    private final Logger logger;
+
+    public ExplorationFile(File file, Logger logger) {
+        this.file = file;
+        this.logger = logger;
+    }
+
+    /**
+     * Append record payloads to the end of the file, creating it if needed
+     */
+    public synchronized void append(List<byte[]> payloads) throws IOException {
+        boolean created = !file.exists() || file.length() == 0;
+        if (created) {
+            file.getParentFile().mkdirs();
+        }
+
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(file, true)))) {
+            if (created) {
+                out.writeInt(MAGIC);
+                out.writeShort(VERSION);
+            }
+
+            for (byte[] payload : payloads) {
+                out.writeInt(payload.length);
+                out.write(payload);
+            }
+        }
+    }
+
+    /**
+     * Read every chunk stored in this file. An incomplete record left by an
+     * interrupted write is cut off, so later appends start on a record boundary.
+     */
+    public synchronized void load(ChunkVisitor visitor) throws IOException {
+        if (!file.exists() || file.length() == 0) {
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not an exploration file: " + file.getName());
+        }
+
+        short version = buffer.getShort();
+        if (version > VERSION) {
+            throw new IOException("Exploration file " + file.getName() + " was written by a newer version (" + version + ")");
+        }
+
+        while (buffer.remaining() >= 4) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+
+            if (length <= 0 || length > buffer.remaining()) {
+                buffer.position(start);
+                break;
+            }
+
+            ByteBuffer payload = buffer.slice();
+            payload.limit(length);
+            buffer.position(buffer.position() + length);
+
+            try {
+                read(payload, visitor);
+            } catch (RuntimeException e) {
+                logger.warning("Skipping unreadable record in " + file.getName() + ": " + e.getMessage());
+            }
+        }
+
+        if (buffer.hasRemaining()) {
+            logger.warning("Discarding incomplete record at the end of " + file.getName());
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                channel.truncate(buffer.position());
+            }
+        }
+    }
+
+    private static void read(ByteBuffer payload, ChunkVisitor visitor) {
+        byte[] nameBytes = new byte[payload.getShort() & 0xFFFF];
+        payload.get(nameBytes);
+        String biomeName = new String(nameBytes, StandardCharsets.UTF_8);
+
+        int baseX = payload.getInt() << REGION_SHIFT;
+        int baseZ = payload.getInt() << REGION_SHIFT;
+        int count = payload.getShort() & 0xFFFF;
+
+        for (int i = 0; i < count; i++) {
+            int index = payload.getShort() & 0xFFFF;
+            visitor.visit(biomeName, baseX | (index & REGION_MASK), baseZ | (index >>> REGION_SHIFT));
+        }
+    }
+
+    /**
+     * Encode newly explored chunks as record payloads, one per biome and region
+     * @param chunks Packed chunk keys (x in the high, z in the low 32 bits)
+     * @param biomes The biome of each chunk
+     */
+    public static List<byte[]> encode(long[] chunks, Biome[] biomes, int count) {
+        // Local chunk indices grouped by biome, then by region
+        Map<Biome, Map<Long, List<Short>>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            int chunkX = (int) (chunks[i] >> 32);
+            int chunkZ = (int) chunks[i];
+            long region = ((long) (chunkX >> REGION_SHIFT) << 32) | ((chunkZ >> REGION_SHIFT) & 0xFFFFFFFFL);
+            short index = (short) (((chunkZ & REGION_MASK) << REGION_SHIFT) | (chunkX & REGION_MASK));
+
+            groups.computeIfAbsent(biomes[i], biome -> new LinkedHashMap<>())
+                    .computeIfAbsent(region, key -> new ArrayList<>())
+                    .add(index);
+        }
+
+        List<byte[]> payloads = new ArrayList<>();
+        for (Map.Entry<Biome, Map<Long, List<Short>>> biomeEntry : groups.entrySet()) {
+            byte[] name = biomeEntry.getKey().name().getBytes(StandardCharsets.UTF_8);
+
+            for (Map.Entry<Long, List<Short>> regionEntry : biomeEntry.getValue().entrySet()) {
+                List<Short> indices = regionEntry.getValue();
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream(2 + name.length + 10 + indices.size() * 2);
+
+                try (DataOutputStream out = new DataOutputStream(bytes)) {
+                    out.writeShort(name.length);
+                    out.write(name);
+                    out.writeInt((int) (regionEntry.getKey() >> 32));
+                    out.writeInt(regionEntry.getKey().intValue());
+                    out.writeShort(indices.size());
+                    for (short index : indices) {
+                        out.writeShort(index);
+                    }
+                } catch (IOException e) {
+                    // Writing to a byte array cannot fail
+                    throw new IllegalStateException(e);
+                }
+
+                payloads.add(bytes.toByteArray());
+            }
+        }
+
+        return payloads;
+    }
+}
@@ -0,0 +1,118 @@
+package com.ubivismedia.aidungeon.algorithms;
+
+import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import com.ubivismedia.aidungeon.algorithms.cellular.CellularAutomata;
+import com.ubivismedia.aidungeon.algorithms.genetic.GeneticOptimizer;
+import com.ubivismedia.aidungeon.algorithms.markov.MarkovChainModel;
+import com.ubivismedia.aidungeon.config.DungeonTheme;
+import com.ubivismedia.aidungeon.dungeons.DungeonLayout;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The generation stages share one instance of each algorithm between all
+ * generation threads, so a seed must produce the same layout no matter how
+ * many generations run next to it.
+ */
+class ParallelGenerationTest {
+
+    private static final int GENERATIONS = 64;
+    private static final int OPTIMIZATION_GENERATIONS = 10;
+
+    @Test
+    void parallelGenerationsMatchSingleThreadedRuns() throws Exception {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("generation.algorithm.population-size", 10);
+        config.set("generation.algorithm.fitness-parallelism", 4);
+
+        AIDungeonGenerator plugin = mock(AIDungeonGenerator.class);
+        when(plugin.getConfig()).thenReturn(config);
+
+        Stages stages = new Stages(plugin);
+        ExecutorService executor = Executors.newFixedThreadPool(GENERATIONS);
+        try {
+            // One generation at a time on this thread, reusing its scratch buffers for every size
+            byte[][] expected = new byte[GENERATIONS][];
+            for (int i = 0; i < GENERATIONS; i++) {
+                expected[i] = stages.generate(seed(i));
+            }
+
+            // All generations at once, released together to maximize overlap
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < GENERATIONS; i++) {
+                long seed = seed(i);
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return stages.generate(seed);
+                }));
+            }
+            start.countDown();
+
+            for (int i = 0; i < GENERATIONS; i++) {
+                assertArrayEquals(expected[i], results.get(i).get(5, TimeUnit.MINUTES), "generation " + i);
+            }
+        } finally {
+            executor.shutdownNow();
+            stages.genetic.shutdown();
+        }
+    }
+
+    private static long seed(int i) {
+        return 0x5DEECE66DL * (i + 1) ^ 0x2545F4914F6CDD1DL;
+    }
+
+    /**
+     * The layout stages of the dungeon generator, each with its own random stream
+     */
+    private static class Stages {
+        final CellularAutomata cellular;
+        final MarkovChainModel markov;
+        final GeneticOptimizer genetic;
+        final DungeonTheme theme = new DungeonTheme("CRYPT", Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+        Stages(AIDungeonGenerator plugin) {
+            this.cellular = new CellularAutomata(plugin);
+            this.markov = new MarkovChainModel(plugin);
+            this.genetic = new GeneticOptimizer(plugin);
+        }
+
+        /**
+         * Generate a layout and return its room type ordinals
+         */
+        byte[] generate(long seed) {
+            Random random = new Random(seed);
+            int size = 15 + random.nextInt(36);
+
+            DungeonLayout layout = new DungeonLayout(size, theme, seed);
+            layout.setEntrancePosition(size / 2, size / 2);
+
+            cellular.applyTo(layout, new GenerationContext(new Random(random.nextLong())));
+            markov.applyThemeTransitions(layout, new GenerationContext(new Random(random.nextLong())));
+            genetic.optimizeLayout(layout, OPTIMIZATION_GENERATIONS, new GenerationContext(new Random(random.nextLong())));
+
+            byte[] cells = new byte[size * size];
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    cells[x * size + y] = (byte) layout.getRoomType(x, y).ordinal();
+                }
+            }
+            return cells;
+        }
+    }
+}
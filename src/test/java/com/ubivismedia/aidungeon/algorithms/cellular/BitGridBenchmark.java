@@ -0,0 +1,85 @@
+package com.ubivismedia.aidungeon.algorithms.cellular;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+/**
+ * Times automaton steps on bit grids against the boolean grid simulation they replaced.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class BitGridBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    // Keeps results alive so the timed loops are not optimized away
+    private static volatile boolean sink;
+
+    @Test
+    void stepThroughput() {
+        for (int size : new int[] {32, 64, 128, 256}) {
+            boolean[][] cells = BitGridTest.randomGrid(size, 45, new Random(size));
+            int steps = Math.max(50, 4_000_000 / (size * size));
+
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                timeBooleanSteps(cells, steps);
+                timeBitSteps(cells, steps);
+            }
+
+            long booleanNanos = Long.MAX_VALUE;
+            long bitNanos = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                booleanNanos = Math.min(booleanNanos, timeBooleanSteps(cells, steps));
+                bitNanos = Math.min(bitNanos, timeBitSteps(cells, steps));
+            }
+
+            System.out.printf("size %3d: boolean[][] %8.1f ns/step, BitGrid %8.1f ns/step (%.1fx)%n",
+                    size, (double) booleanNanos / steps, (double) bitNanos / steps, (double) booleanNanos / bitNanos);
+        }
+    }
+
+    private static long timeBooleanSteps(boolean[][] cells, int steps) {
+        int size = cells.length;
+        boolean[][] map = new boolean[size][];
+        for (int x = 0; x < size; x++) {
+            map[x] = cells[x].clone();
+        }
+        boolean[][] next = new boolean[size][size];
+
+        long start = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            BitGridTest.ReferenceSimulation.stepInto(map, next, size, 3, 4);
+            boolean[][] previous = map;
+            map = next;
+            next = previous;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        consume(map[size / 2][size / 2]);
+        return elapsed;
+    }
+
+    private static long timeBitSteps(boolean[][] cells, int steps) {
+        BitGrid map = BitGridTest.toBitGrid(cells);
+        BitGrid next = new BitGrid(cells.length);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < steps; i++) {
+            map.stepInto(next, 3, 4);
+            BitGrid previous = map;
+            map = next;
+            next = previous;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        consume(map.get(cells.length / 2, cells.length / 2));
+        return elapsed;
+    }
+
+    private static void consume(boolean value) {
+        sink ^= value;
+    }
+}
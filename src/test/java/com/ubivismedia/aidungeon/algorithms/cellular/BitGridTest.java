@@ -0,0 +1,137 @@
+package com.ubivismedia.aidungeon.algorithms.cellular;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BitGridTest {
+
+    // Sizes around the word boundaries and the generator's usual sizes
+    private static final int[] SIZES = {1, 2, 3, 7, 31, 63, 64, 65, 100, 127, 128, 129, 191, 200};
+
+    /**
+     * Run several steps on random grids with every pair of limits and compare each
+     * step with the boolean grid simulation the bit grid replaced
+     */
+    @Test
+    void stepMatchesBooleanSimulation() {
+        for (int size : SIZES) {
+            // Every pair of limits gets its own random grid from the size's seed
+            Random random = new Random(size);
+
+            for (int deathLimit = 0; deathLimit <= 9; deathLimit++) {
+                for (int birthLimit = -1; birthLimit <= 8; birthLimit++) {
+                    boolean[][] expected = randomGrid(size, 20 + random.nextInt(60), random);
+                    BitGrid grid = toBitGrid(expected);
+                    BitGrid next = new BitGrid(1);
+
+                    for (int step = 0; step < 4; step++) {
+                        expected = ReferenceSimulation.step(expected, size, deathLimit, birthLimit);
+                        grid.stepInto(next, deathLimit, birthLimit);
+
+                        BitGrid previous = grid;
+                        grid = next;
+                        next = previous;
+
+                        assertSameCells(expected, grid, "size " + size + ", limits "
+                                + deathLimit + "/" + birthLimit + ", step " + step);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * A grid reused at a different size must not keep cells or padding of its old size
+     */
+    @Test
+    void resetClearsReusedGrid() {
+        Random random = new Random(3);
+        BitGrid target = new BitGrid(1);
+
+        for (int size : new int[] {129, 64, 200, 5, 65}) {
+            boolean[][] cells = randomGrid(size, 50, random);
+            toBitGrid(cells).stepInto(target, 3, 4);
+
+            assertEquals(size, target.getSize());
+            assertSameCells(ReferenceSimulation.step(cells, size, 3, 4), target, "size " + size);
+        }
+    }
+
+    static boolean[][] randomGrid(int size, int fillPercent, Random random) {
+        boolean[][] cells = new boolean[size][size];
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                cells[x][y] = random.nextInt(100) < fillPercent;
+            }
+        }
+        return cells;
+    }
+
+    static BitGrid toBitGrid(boolean[][] cells) {
+        BitGrid grid = new BitGrid(cells.length);
+        for (int x = 0; x < cells.length; x++) {
+            for (int y = 0; y < cells.length; y++) {
+                grid.set(x, y, cells[x][y]);
+            }
+        }
+        return grid;
+    }
+
+    private static void assertSameCells(boolean[][] expected, BitGrid actual, String message) {
+        for (int x = 0; x < expected.length; x++) {
+            for (int y = 0; y < expected.length; y++) {
+                if (expected[x][y] != actual.get(x, y)) {
+                    assertEquals(expected[x][y], actual.get(x, y), message + ", cell " + x + "," + y);
+                }
+            }
+        }
+    }
+
+    /**
+     * The boolean grid step the cellular automaton used before it ran on bit grids
+     */
+    static final class ReferenceSimulation {
+
+        static boolean[][] step(boolean[][] oldMap, int size, int deathLimit, int birthLimit) {
+            boolean[][] newMap = new boolean[size][size];
+            stepInto(oldMap, newMap, size, deathLimit, birthLimit);
+            return newMap;
+        }
+
+        static void stepInto(boolean[][] oldMap, boolean[][] newMap, int size, int deathLimit, int birthLimit) {
+            for (int x = 0; x < size; x++) {
+                for (int y = 0; y < size; y++) {
+                    int neighbors = countNeighbors(oldMap, x, y, size);
+                    if (oldMap[x][y]) {
+                        newMap[x][y] = neighbors >= deathLimit;
+                    } else {
+                        newMap[x][y] = neighbors > birthLimit;
+                    }
+                }
+            }
+        }
+
+        private static int countNeighbors(boolean[][] map, int x, int y, int size) {
+            int count = 0;
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    if (i == 0 && j == 0) continue;
+
+                    int nx = x + i;
+                    int ny = y + j;
+
+                    // Count edge cells as filled
+                    if (nx < 0 || ny < 0 || nx >= size || ny >= size) {
+                        count++;
+                    } else if (map[nx][ny]) {
+                        count++;
+                    }
+                }
+            }
+            return count;
+        }
+    }
+}
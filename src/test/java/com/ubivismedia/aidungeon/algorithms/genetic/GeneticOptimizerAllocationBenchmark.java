@@ -0,0 +1,79 @@
+package com.ubivismedia.aidungeon.algorithms.genetic;
+
+import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import com.ubivismedia.aidungeon.algorithms.GenerationContext;
+import com.ubivismedia.aidungeon.algorithms.cellular.CellularAutomata;
+import com.ubivismedia.aidungeon.config.DungeonTheme;
+import com.ubivismedia.aidungeon.dungeons.DungeonLayout;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Measures the bytes the genetic optimizer allocates per generation. Fitness is
+ * evaluated on the calling thread so the thread's allocation counter sees all of it;
+ * the cost of a generation is the difference between a long and a one-generation run.
+ * Only the optimizer in the tree is measured; to compare with an earlier version,
+ * run this benchmark on a checkout of it. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class GeneticOptimizerAllocationBenchmark {
+
+    private static final int[] SIZES = {20, 35, 50};
+    private static final int GENERATIONS = 21;
+    private static final int SAMPLES = 20;
+
+    @Test
+    void bytesPerGeneration() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("generation.algorithm.population-size", 10);
+        config.set("generation.algorithm.fitness-parallelism", 1);
+
+        AIDungeonGenerator plugin = mock(AIDungeonGenerator.class);
+        when(plugin.getConfig()).thenReturn(config);
+
+        CellularAutomata cellular = new CellularAutomata(plugin);
+        GeneticOptimizer optimizer = new GeneticOptimizer(plugin);
+        DungeonTheme theme = new DungeonTheme("CRYPT", Collections.emptyList(), Collections.emptyList(),
+                Collections.emptyList(), Collections.emptyList(), Collections.emptyList());
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        for (int size : SIZES) {
+            long oneGeneration = Long.MAX_VALUE;
+            long allGenerations = Long.MAX_VALUE;
+
+            // Early samples warm up the JIT and the thread's scratch buffers; keep the lowest counts
+            for (int sample = 0; sample < SAMPLES; sample++) {
+                DungeonLayout first = layout(cellular, theme, size, sample);
+                DungeonLayout second = layout(cellular, theme, size, sample);
+
+                long bytes = threads.getThreadAllocatedBytes(thread);
+                optimizer.optimizeLayout(first, 1, new GenerationContext(new Random(sample)));
+                oneGeneration = Math.min(oneGeneration, threads.getThreadAllocatedBytes(thread) - bytes);
+
+                bytes = threads.getThreadAllocatedBytes(thread);
+                optimizer.optimizeLayout(second, GENERATIONS, new GenerationContext(new Random(sample)));
+                allGenerations = Math.min(allGenerations, threads.getThreadAllocatedBytes(thread) - bytes);
+            }
+
+            System.out.printf("size %2d: %8d bytes per generation, %8d bytes for setup and the first generation%n",
+                    size, (allGenerations - oneGeneration) / (GENERATIONS - 1), oneGeneration);
+        }
+    }
+
+    private static DungeonLayout layout(CellularAutomata cellular, DungeonTheme theme, int size, long seed) {
+        DungeonLayout layout = new DungeonLayout(size, theme, seed);
+        layout.setEntrancePosition(size / 2, size / 2);
+        cellular.applyTo(layout, new GenerationContext(new Random(seed)));
+        return layout;
+    }
+}
@@ -0,0 +1,137 @@
+package com.ubivismedia.aidungeon.boss;
+
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.LivingEntity;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Times one boss tick's entity lookups on a synthetic server with 20k entities:
+ * walking every world's entity list for each boss, as the boss manager did before,
+ * against the weak entity handles it keeps now. Both strategies are copies written
+ * below, not calls into {@code BossManager.getBossEntity}, so the manager needs no
+ * running server. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class BossLookupBenchmark {
+
+    private static final int WORLDS = 3;
+    private static final int ENTITIES = 20_000;
+    private static final int[] BOSS_COUNTS = {1, 8, 64};
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 10;
+
+    // Keeps results alive so the timed loops are not optimized away
+    private static volatile int sink;
+
+    @Test
+    void tickLookups() {
+        Random random = new Random(11);
+
+        List<List<Entity>> worlds = new ArrayList<>();
+        for (int w = 0; w < WORLDS; w++) {
+            List<Entity> entities = new ArrayList<>();
+            for (int i = 0; i < ENTITIES / WORLDS; i++) {
+                entities.add(entity(new UUID(random.nextLong(), random.nextLong())));
+            }
+            worlds.add(entities);
+        }
+
+        for (int bossCount : BOSS_COUNTS) {
+            // Bosses are ordinary entities somewhere in the worlds' lists
+            UUID[] bosses = new UUID[bossCount];
+            Map<UUID, WeakReference<LivingEntity>> handles = new HashMap<>();
+            for (int b = 0; b < bossCount; b++) {
+                List<Entity> entities = worlds.get(random.nextInt(WORLDS));
+                LivingEntity boss = (LivingEntity) entities.get(random.nextInt(entities.size()));
+                bosses[b] = boss.getUniqueId();
+                handles.put(boss.getUniqueId(), new WeakReference<>(boss));
+            }
+
+            int rounds = Math.max(ROUNDS, 640 / bossCount);
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                sink += scanWorlds(worlds, bosses);
+                sink += readHandles(handles, bosses);
+            }
+
+            long scanNanos = Long.MAX_VALUE;
+            long handleNanos = Long.MAX_VALUE;
+            for (int round = 0; round < rounds; round++) {
+                long start = System.nanoTime();
+                sink += scanWorlds(worlds, bosses);
+                scanNanos = Math.min(scanNanos, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                sink += readHandles(handles, bosses);
+                handleNanos = Math.min(handleNanos, System.nanoTime() - start);
+            }
+
+            System.out.printf("%2d bosses, %d entities: world scan %10.1f us/tick, handles %7.2f us/tick%n",
+                    bossCount, ENTITIES, scanNanos / 1000.0, handleNanos / 1000.0);
+        }
+    }
+
+    /**
+     * Find every boss by walking the entities of every world
+     */
+    private static int scanWorlds(List<List<Entity>> worlds, UUID[] bosses) {
+        int found = 0;
+        for (UUID bossId : bosses) {
+            search:
+            for (List<Entity> entities : worlds) {
+                for (Entity entity : entities) {
+                    if (entity.getUniqueId().equals(bossId)) {
+                        found += entity.isValid() ? 1 : 0;
+                        break search;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Find every boss through its cached handle
+     */
+    private static int readHandles(Map<UUID, WeakReference<LivingEntity>> handles, UUID[] bosses) {
+        int found = 0;
+        for (UUID bossId : bosses) {
+            WeakReference<LivingEntity> handle = handles.get(bossId);
+            LivingEntity boss = handle != null ? handle.get() : null;
+            if (boss != null && boss.isValid()) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * A living entity that only answers for its ID and validity
+     */
+    private static LivingEntity entity(UUID id) {
+        return (LivingEntity) Proxy.newProxyInstance(BossLookupBenchmark.class.getClassLoader(),
+                new Class<?>[] {LivingEntity.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getUniqueId":
+                            return id;
+                        case "isValid":
+                            return true;
+                        case "hashCode":
+                            return id.hashCode();
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,171 @@
+package com.ubivismedia.aidungeon.config;
+
+import org.bukkit.block.Biome;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Times the settings reads made for each chunk a player enters (dungeon biome check,
+ * generation rules, biome theme and the quest switch) through string config paths,
+ * as the move listener path did before, and through the compiled snapshot.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class CompiledSettingsBenchmark {
+
+    private static final Biome[] MAPPED = {Biome.PLAINS, Biome.DESERT, Biome.FOREST, Biome.SWAMP,
+            Biome.TAIGA, Biome.JUNGLE, Biome.BADLANDS, Biome.SNOWY_PLAINS};
+    private static final Biome[] SAMPLED = {Biome.PLAINS, Biome.DESERT, Biome.FOREST, Biome.SWAMP,
+            Biome.TAIGA, Biome.JUNGLE, Biome.BADLANDS, Biome.SNOWY_PLAINS, Biome.OCEAN, Biome.DEEP_DARK,
+            Biome.MUSHROOM_FIELDS, Biome.DARK_FOREST};
+    private static final String[] WORLDS = {"world", "world_nether", "world_the_end", "survival"};
+
+    private static final int CHUNKS = 200_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+
+    // Keeps results alive so the timed loops are not optimized away
+    private static volatile int sink;
+
+    @Test
+    void chunkEnterLookups() {
+        String[] themeNames = {"CRYPT", "TEMPLE", "RUINS", "SWAMP_HUT", "ICE_CAVE"};
+        Map<String, DungeonTheme> themes = new HashMap<>();
+        for (String name : themeNames) {
+            themes.put(name, new DungeonTheme(name, Collections.emptyList(), Collections.emptyList(),
+                    Collections.emptyList(), Collections.emptyList(), Collections.emptyList()));
+        }
+
+        YamlConfiguration mainConfig = new YamlConfiguration();
+        YamlConfiguration dungeonConfig = new YamlConfiguration();
+        Map<Biome, DungeonTheme> biomeThemes = new EnumMap<>(Biome.class);
+        for (int i = 0; i < MAPPED.length; i++) {
+            String themeName = themeNames[i % themeNames.length];
+            mainConfig.set("biome-themes." + MAPPED[i].name(), themeName);
+            biomeThemes.put(MAPPED[i], themes.get(themeName));
+        }
+        for (Biome biome : SAMPLED) {
+            if (!biomeThemes.containsKey(biome)) {
+                dungeonConfig.set("biome-themes." + biome.name(), "RUINS");
+                biomeThemes.put(biome, themes.get("RUINS"));
+            }
+        }
+        mainConfig.set("settings.world-blacklist", Arrays.asList("world_the_end", "lobby"));
+        mainConfig.set("settings.dungeon-per-biome", true);
+        mainConfig.set("settings.min-distance-between-dungeons", 1000);
+        mainConfig.set("quests.enabled", true);
+
+        CompiledSettings settings = new CompiledSettings(biomeThemes, EnumSet.copyOf(Arrays.asList(MAPPED)),
+                new HashSet<>(mainConfig.getStringList("settings.world-blacklist")), true, 1000, true);
+
+        Random random = new Random(21);
+        Biome[] biomes = new Biome[CHUNKS];
+        String[] worlds = new String[CHUNKS];
+        for (int i = 0; i < CHUNKS; i++) {
+            biomes[i] = SAMPLED[random.nextInt(SAMPLED.length)];
+            worlds[i] = WORLDS[random.nextInt(WORLDS.length)];
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            sink += readConfigPaths(mainConfig, dungeonConfig, themes, biomes, worlds);
+            sink += readSnapshot(settings, biomes, worlds);
+        }
+
+        long configNanos = Long.MAX_VALUE;
+        long snapshotNanos = Long.MAX_VALUE;
+        long configBytes = 0;
+        long snapshotBytes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            int configResult = readConfigPaths(mainConfig, dungeonConfig, themes, biomes, worlds);
+            configNanos = Math.min(configNanos, System.nanoTime() - start);
+            configBytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+            bytes = threads.getThreadAllocatedBytes(thread);
+            start = System.nanoTime();
+            int snapshotResult = readSnapshot(settings, biomes, worlds);
+            snapshotNanos = Math.min(snapshotNanos, System.nanoTime() - start);
+            snapshotBytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+            if (configResult != snapshotResult) {
+                throw new AssertionError("Config paths and snapshot disagree: " + configResult + " != " + snapshotResult);
+            }
+        }
+
+        System.out.printf("config paths: %7.1f ns/chunk, %7.1f bytes/chunk%n",
+                (double) configNanos / CHUNKS, (double) configBytes / CHUNKS);
+        System.out.printf("snapshot:     %7.1f ns/chunk, %7.1f bytes/chunk (%.1fx)%n",
+                (double) snapshotNanos / CHUNKS, (double) snapshotBytes / CHUNKS, (double) configNanos / snapshotNanos);
+    }
+
+    /**
+     * The reads through string paths the listener path made before the snapshot
+     */
+    private static int readConfigPaths(YamlConfiguration mainConfig, YamlConfiguration dungeonConfig,
+                                       Map<String, DungeonTheme> themes, Biome[] biomes, String[] worlds) {
+        int result = 0;
+        for (int i = 0; i < biomes.length; i++) {
+            Biome biome = biomes[i];
+            if (!mainConfig.isSet("biome-themes." + biome.name())) {
+                continue;
+            }
+            if (mainConfig.getStringList("settings.world-blacklist").contains(worlds[i])) {
+                continue;
+            }
+            boolean dungeonPerBiome = mainConfig.getBoolean("settings.dungeon-per-biome", true);
+            int minDistance = mainConfig.getInt("settings.min-distance-between-dungeons", 1000);
+
+            String themeName = mainConfig.getString("biome-themes." + biome.name());
+            if (themeName == null) {
+                themeName = dungeonConfig.getString("biome-themes." + biome.name());
+            }
+            DungeonTheme theme = themes.get(themeName != null ? themeName : "RUINS");
+
+            if (mainConfig.getBoolean("quests.enabled", true)) {
+                result += theme.getName().length() + (dungeonPerBiome ? 1 : 0) + minDistance;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * The same reads from the compiled snapshot
+     */
+    private static int readSnapshot(CompiledSettings settings, Biome[] biomes, String[] worlds) {
+        int result = 0;
+        for (int i = 0; i < biomes.length; i++) {
+            Biome biome = biomes[i];
+            if (!settings.isDungeonBiome(biome)) {
+                continue;
+            }
+            if (settings.isWorldBlacklisted(worlds[i])) {
+                continue;
+            }
+            boolean dungeonPerBiome = settings.isDungeonPerBiome();
+            int minDistance = settings.getMinDistanceBetweenDungeons();
+
+            DungeonTheme theme = settings.getThemeForBiome(biome);
+
+            if (settings.isQuestsEnabled()) {
+                result += theme.getName().length() + (dungeonPerBiome ? 1 : 0) + minDistance;
+            }
+        }
+        return result;
+    }
+}
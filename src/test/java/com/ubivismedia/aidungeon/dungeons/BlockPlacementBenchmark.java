@@ -0,0 +1,165 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import com.ubivismedia.aidungeon.AIDungeonGenerator;
+import com.ubivismedia.aidungeon.algorithms.GenerationContext;
+import com.ubivismedia.aidungeon.algorithms.cellular.CellularAutomata;
+import com.ubivismedia.aidungeon.algorithms.markov.MarkovChainModel;
+import com.ubivismedia.aidungeon.config.DungeonTheme;
+import org.bukkit.Material;
+import org.bukkit.World;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Times the main thread's work for placing a planned 60x60 dungeon: the worst single
+ * tick of the placement engine under its tick budget, against placing the whole queue
+ * at once with {@code drainAll} as dungeons were placed before. The world is a stand-in
+ * whose block writes cost a fixed busy wait, so the times show how the work is spread,
+ * not what a server spends per block. Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class BlockPlacementBenchmark {
+
+    private static final int SIZE = 60;
+    private static final int BASE_Y = 20;
+    private static final double TICK_BUDGET_MS = 10.0;
+
+    // Rough cost of one block change on a server, spent by the stand-in world
+    private static final long BLOCK_COST_NANOS = 2_000;
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+
+    // Keeps results alive so the timed loops are not optimized away
+    private static volatile int sink;
+
+    @Test
+    void worstTick() {
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("generation.placement.tick-budget-ms", TICK_BUDGET_MS);
+
+        // A disabled plugin keeps the engine from scheduling itself, so the ticks are driven below
+        AIDungeonGenerator plugin = mock(AIDungeonGenerator.class);
+        when(plugin.getConfig()).thenReturn(config);
+
+        DungeonLayout layout = layout(plugin);
+        World world = world();
+        BlockPlacementEngine engine = new BlockPlacementEngine(plugin);
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            placeAtOnce(layout.planPlacement(0, 0), world);
+            placeInTicks(engine, layout.planPlacement(0, 0), world, new long[2]);
+        }
+
+        long oneShotNanos = Long.MAX_VALUE;
+        long worstTickNanos = Long.MAX_VALUE;
+        long ticks = 0;
+        int blocks = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            // Planning runs on a generation thread, so only the block writes are timed
+            BlockPlacementQueue queue = layout.planPlacement(0, 0);
+            long start = System.nanoTime();
+            blocks = placeAtOnce(queue, world);
+            oneShotNanos = Math.min(oneShotNanos, System.nanoTime() - start);
+
+            long[] result = new long[2];
+            placeInTicks(engine, layout.planPlacement(0, 0), world, result);
+            worstTickNanos = Math.min(worstTickNanos, result[0]);
+            ticks = result[1];
+        }
+
+        System.out.printf("%dx%d layout, %d blocks: drainAll %7.2f ms in one tick, engine worst tick %5.2f ms " +
+                        "over %d ticks (budget %.1f ms)%n",
+                SIZE, SIZE, blocks, oneShotNanos / 1e6, worstTickNanos / 1e6, ticks, TICK_BUDGET_MS);
+    }
+
+    /**
+     * Place a planned queue in one call
+     * @return Number of blocks placed
+     */
+    private static int placeAtOnce(BlockPlacementQueue queue, World world) {
+        queue.drainAll(world, BASE_Y);
+        sink += queue.getPlaced();
+        return queue.getPlaced();
+    }
+
+    /**
+     * Place a planned queue through the engine, one tick at a time
+     * @param result Receives the longest tick in nanoseconds and the number of ticks
+     */
+    private static void placeInTicks(BlockPlacementEngine engine, BlockPlacementQueue queue, World world, long[] result) {
+        engine.submit(world, BASE_Y, queue, new BlockPlacementEngine.PlacementListener() {
+            @Override
+            public void onComplete() {
+                sink++;
+            }
+
+            @Override
+            public void onFailure(Exception e) {
+                throw new AssertionError("Placement failed", e);
+            }
+        });
+
+        long worst = 0;
+        long ticks = 0;
+        while (engine.getPendingJobs() > 0) {
+            long start = System.nanoTime();
+            engine.tick();
+            worst = Math.max(worst, System.nanoTime() - start);
+            ticks++;
+        }
+
+        result[0] = worst;
+        result[1] = ticks;
+    }
+
+    private static DungeonLayout layout(AIDungeonGenerator plugin) {
+        DungeonTheme theme = new DungeonTheme("CRYPT",
+                Arrays.asList(Material.STONE_BRICKS, Material.CRACKED_STONE_BRICKS, Material.MOSSY_STONE_BRICKS),
+                Collections.singletonList(Material.CHISELED_STONE_BRICKS),
+                Arrays.asList(Material.STONE_BRICKS, Material.GRAVEL),
+                Collections.singletonList(Material.STONE_BRICKS),
+                Collections.singletonList(Material.LANTERN));
+        DungeonLayout layout = new DungeonLayout(SIZE, theme, 60);
+        layout.setEntrancePosition(SIZE / 2, SIZE / 2);
+
+        new CellularAutomata(plugin).applyTo(layout, new GenerationContext(new Random(1)));
+        new MarkovChainModel(plugin).applyThemeTransitions(layout, new GenerationContext(new Random(2)));
+        return layout;
+    }
+
+    /**
+     * A world whose block writes only spend {@link #BLOCK_COST_NANOS}
+     */
+    private static World world() {
+        return (World) Proxy.newProxyInstance(BlockPlacementBenchmark.class.getClassLoader(),
+                new Class<?>[] {World.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "setType":
+                            long end = System.nanoTime() + BLOCK_COST_NANOS;
+                            while (System.nanoTime() < end) {
+                                Thread.onSpinWait();
+                            }
+                            sink += ((Material) args[3]).ordinal();
+                            return null;
+                        case "getName":
+                            return "world";
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "equals":
+                            return proxy == args[0];
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
@@ -0,0 +1,65 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import org.bukkit.block.Biome;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DungeonSpatialIndexTest {
+
+    private static final Biome[] BIOMES = {Biome.PLAINS, Biome.DESERT, Biome.FOREST};
+
+    @Test
+    void lookupsMatchAScanAfterAddsAndRemoves() {
+        Random random = new Random(20);
+        DungeonSpatialIndex index = new DungeonSpatialIndex();
+        List<BiomeArea> areas = new ArrayList<>();
+
+        for (int i = 0; i < 400; i++) {
+            BiomeArea area = new BiomeArea("world", random.nextInt(8_000) - 4_000, random.nextInt(8_000) - 4_000,
+                    16 + random.nextInt(200), BIOMES[random.nextInt(BIOMES.length)]);
+            index.add(area);
+            areas.add(area);
+
+            // Drop some areas again, like dungeons abandoned before they were placed
+            if (random.nextInt(3) == 0) {
+                BiomeArea removed = areas.remove(random.nextInt(areas.size()));
+                index.remove(removed);
+                assertFalse(index.contains(removed));
+            }
+        }
+
+        for (BiomeArea area : areas) {
+            assertTrue(index.contains(area), area.toString());
+        }
+
+        for (Biome biome : BIOMES) {
+            boolean expected = areas.stream().anyMatch(area -> area.getPrimaryBiome() == biome);
+            assertEquals(expected, index.hasBiome("world", biome), biome.name());
+        }
+
+        for (int i = 0; i < 20_000; i++) {
+            int x = random.nextInt(9_000) - 4_500;
+            int z = random.nextInt(9_000) - 4_500;
+            int distance = random.nextInt(1_000);
+
+            boolean inside = false;
+            boolean within = false;
+            for (BiomeArea area : areas) {
+                long dx = area.getCenterX() - x;
+                long dz = area.getCenterZ() - z;
+                inside |= dx * dx + dz * dz <= (long) area.getRadius() * area.getRadius();
+                within |= dx * dx + dz * dz < (long) distance * distance;
+            }
+
+            assertEquals(inside, index.getAreaAt("world", x, z) != null, "area at " + x + "," + z);
+            assertEquals(within, index.hasAreaWithin("world", x, z, distance), "within " + distance + " of " + x + "," + z);
+        }
+    }
+}
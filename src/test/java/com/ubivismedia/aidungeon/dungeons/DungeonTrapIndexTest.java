@@ -0,0 +1,80 @@
+package com.ubivismedia.aidungeon.dungeons;
+
+import org.bukkit.block.Biome;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DungeonTrapIndexTest {
+
+    @Test
+    void findsRecordedPlatesAcrossManyDungeons() {
+        Random random = new Random(11);
+        DungeonTrapIndex index = new DungeonTrapIndex();
+
+        // Expected plates per world and chunk, and the chunks each world covers
+        Set<String> plates = new HashSet<>();
+        Map<String, Set<Long>> chunks = new HashMap<>();
+
+        for (int i = 0; i < 300; i++) {
+            String world = i % 3 == 0 ? "world_nether" : "world";
+            int centerX = random.nextInt(20_000) - 10_000;
+            int centerZ = random.nextInt(20_000) - 10_000;
+            int radius = 16 + random.nextInt(64);
+
+            int[] areaPlates = new int[3 * random.nextInt(20)];
+            for (int n = 0; n < areaPlates.length; n += 3) {
+                areaPlates[n] = centerX + random.nextInt(2 * radius + 1) - radius;
+                areaPlates[n + 1] = random.nextInt(120) - 64;
+                areaPlates[n + 2] = centerZ + random.nextInt(2 * radius + 1) - radius;
+                plates.add(world + ":" + areaPlates[n] + "," + areaPlates[n + 1] + "," + areaPlates[n + 2]);
+            }
+
+            index.addArea(new BiomeArea(world, centerX, centerZ, radius, Biome.PLAINS), areaPlates);
+            Set<Long> worldChunks = chunks.computeIfAbsent(world, name -> new HashSet<>());
+            for (int cx = (centerX - radius) >> 4; cx <= (centerX + radius) >> 4; cx++) {
+                for (int cz = (centerZ - radius) >> 4; cz <= (centerZ + radius) >> 4; cz++) {
+                    worldChunks.add(((long) cx << 32) | (cz & 0xFFFFFFFFL));
+                }
+            }
+        }
+
+        for (int i = 0; i < 200_000; i++) {
+            String world = random.nextBoolean() ? "world_nether" : "world";
+            int x = random.nextInt(21_000) - 10_500;
+            int y = random.nextInt(120) - 64;
+            int z = random.nextInt(21_000) - 10_500;
+
+            long chunk = ((long) (x >> 4) << 32) | ((z >> 4) & 0xFFFFFFFFL);
+            assertEquals(chunks.get(world).contains(chunk), index.isDungeonChunk(world, x, z), "chunk of " + x + "," + z);
+            assertEquals(plates.contains(world + ":" + x + "," + y + "," + z) ? 1 : 0,
+                    index.hasPressurePlate(world, x, y, z), "plate at " + x + "," + y + "," + z);
+        }
+
+        // Every recorded plate is found
+        for (String plate : plates) {
+            String[] parts = plate.split("[:,]");
+            assertEquals(1, index.hasPressurePlate(parts[0], Integer.parseInt(parts[1]),
+                    Integer.parseInt(parts[2]), Integer.parseInt(parts[3])), plate);
+        }
+    }
+
+    @Test
+    void unrecordedDungeonsAreUnknown() {
+        DungeonTrapIndex index = new DungeonTrapIndex();
+        index.addArea(new BiomeArea("world", 0, 0, 40, Biome.PLAINS), new int[] {5, -20, 5});
+        index.addUnrecordedArea(new BiomeArea("world", 60, 0, 40, Biome.PLAINS));
+
+        assertEquals(1, index.hasPressurePlate("world", 5, -20, 5));
+        assertEquals(0, index.hasPressurePlate("world", -5, -20, 5));
+        assertEquals(DungeonTrapIndex.UNKNOWN, index.hasPressurePlate("world", 90, -20, 5));
+        assertEquals(0, index.hasPressurePlate("world", 500, -20, 5));
+        assertEquals(0, index.hasPressurePlate("world_the_end", 5, -20, 5));
+    }
+}
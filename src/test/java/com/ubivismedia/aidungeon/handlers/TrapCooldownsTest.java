@@ -0,0 +1,80 @@
+package com.ubivismedia.aidungeon.handlers;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrapCooldownsTest {
+
+    // The trap handler's cooldown, and one longer than a turn of the wheel
+    private static final long COOLDOWN = 60_000;
+    private static final long LONG_COOLDOWN = 200_000;
+    private static final int CHECKS = 2_000_000;
+
+    @Test
+    void matchesMapReference() {
+        compareWithMap(COOLDOWN, 42);
+    }
+
+    @Test
+    void matchesMapReferenceWithCooldownLongerThanWheel() {
+        compareWithMap(LONG_COOLDOWN, 7);
+    }
+
+    /**
+     * Compare the cooldown table against a plain map of expiry times, with a clock
+     * that mostly ticks but sometimes jumps past several wheel turns
+     */
+    private void compareWithMap(long cooldown, long seed) {
+        Random random = new Random(seed);
+        long now = System.currentTimeMillis();
+
+        TrapCooldowns cooldowns = new TrapCooldowns(cooldown);
+        Map<String, Long> reference = new HashMap<>();
+        String[] worlds = {"world", "world_nether", "dungeons"};
+
+        for (int i = 0; i < CHECKS; i++) {
+            int roll = random.nextInt(10_000);
+            if (roll == 0) {
+                // Server paused for longer than the whole wheel
+                now += 128_000 + random.nextInt(600_000);
+            } else if (roll < 20) {
+                now += random.nextInt(10_000);
+            } else {
+                now += random.nextInt(100);
+            }
+
+            String world = worlds[random.nextInt(worlds.length)];
+            int x = random.nextInt(400) - 200;
+            int y = random.nextInt(8) - 64;
+            int z = random.nextInt(400) - 200;
+
+            String key = world + ":" + x + "," + y + "," + z;
+            Long expiry = reference.get(key);
+            boolean expected = expiry != null && expiry > now;
+            if (!expected) {
+                reference.put(key, now + cooldown);
+            }
+
+            assertEquals(expected, cooldowns.checkAndTrigger(world, x, y, z, now), "check " + i + " of " + key);
+        }
+    }
+
+    /**
+     * A block triggers again exactly when its cooldown ran out
+     */
+    @Test
+    void blockTriggersAgainAfterCooldown() {
+        long now = System.currentTimeMillis();
+        TrapCooldowns cooldowns = new TrapCooldowns(COOLDOWN);
+
+        assertEquals(false, cooldowns.checkAndTrigger("world", 10, 64, -3, now));
+        assertEquals(true, cooldowns.checkAndTrigger("world", 10, 64, -3, now + COOLDOWN - 1));
+        assertEquals(false, cooldowns.checkAndTrigger("world_nether", 10, 64, -3, now + 1));
+        assertEquals(false, cooldowns.checkAndTrigger("world", 10, 64, -3, now + COOLDOWN));
+    }
+}
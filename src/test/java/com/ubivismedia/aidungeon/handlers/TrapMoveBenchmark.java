@@ -0,0 +1,220 @@
+package com.ubivismedia.aidungeon.handlers;
+
+import com.ubivismedia.aidungeon.dungeons.BiomeArea;
+import com.ubivismedia.aidungeon.dungeons.DungeonTrapIndex;
+import org.bukkit.block.Biome;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times the trap handler's work per player move: the dungeon chunk lookup, the
+ * plate lookups at and below the feet and the cooldown check when on a plate.
+ * 200 players walk around inside and between dungeons. The trap index is compared
+ * with a copy of its earlier boxed {@code Map<Long, ChunkTraps>} lookups.
+ * Run with {@code gradle benchmark}.
+ */
+@Tag("benchmark")
+class TrapMoveBenchmark {
+
+    private static final int PLAYERS = 200;
+    private static final int MOVES_PER_PLAYER = 5_000;
+    private static final int DUNGEONS = 64;
+    private static final int FLOOR_Y = -20;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+
+    // Keeps results alive so the timed loops are not optimized away
+    private static volatile int sink;
+
+    @Test
+    void playerMoves() {
+        Random random = new Random(200);
+        DungeonTrapIndex index = new DungeonTrapIndex();
+        BoxedTrapIndex boxed = new BoxedTrapIndex();
+
+        // Dungeons on a grid, 400 blocks apart, with plates near their centers
+        int[] centers = new int[DUNGEONS * 2];
+        for (int i = 0; i < DUNGEONS; i++) {
+            int centerX = (i % 8) * 400;
+            int centerZ = (i / 8) * 400;
+            centers[i * 2] = centerX;
+            centers[i * 2 + 1] = centerZ;
+
+            int[] plates = new int[3 * 40];
+            for (int n = 0; n < plates.length; n += 3) {
+                plates[n] = centerX + random.nextInt(41) - 20;
+                plates[n + 1] = FLOOR_Y + 1;
+                plates[n + 2] = centerZ + random.nextInt(41) - 20;
+            }
+            index.addArea(new BiomeArea("world", centerX, centerZ, 48, Biome.PLAINS), plates);
+            boxed.addArea(centerX, centerZ, 48, plates);
+        }
+
+        // Every player walks one block per move, starting near a dungeon center
+        int moves = PLAYERS * MOVES_PER_PLAYER;
+        int[] xs = new int[moves];
+        int[] zs = new int[moves];
+        for (int p = 0; p < PLAYERS; p++) {
+            int dungeon = random.nextInt(DUNGEONS);
+            int x = centers[dungeon * 2] + random.nextInt(61) - 30;
+            int z = centers[dungeon * 2 + 1] + random.nextInt(61) - 30;
+            for (int m = 0; m < MOVES_PER_PLAYER; m++) {
+                switch (random.nextInt(4)) {
+                    case 0: x++; break;
+                    case 1: x--; break;
+                    case 2: z++; break;
+                    default: z--; break;
+                }
+                // Players take turns, like move events of a tick
+                xs[m * PLAYERS + p] = x;
+                zs[m * PLAYERS + p] = z;
+            }
+        }
+
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        TrapLookup[] lookups = {boxed, new TrapLookup() {
+            @Override
+            public boolean isDungeonChunk(String worldName, int x, int z) {
+                return index.isDungeonChunk(worldName, x, z);
+            }
+
+            @Override
+            public int hasPressurePlate(String worldName, int x, int y, int z) {
+                return index.hasPressurePlate(worldName, x, y, z);
+            }
+        }};
+        String[] names = {"boxed map", "trap index"};
+
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (TrapLookup lookup : lookups) {
+                runMoves(lookup, xs, zs);
+            }
+        }
+
+        int expected = -1;
+        for (int i = 0; i < lookups.length; i++) {
+            long bestNanos = Long.MAX_VALUE;
+            long allocated = 0;
+            int triggered = 0;
+            for (int round = 0; round < ROUNDS; round++) {
+                long bytesBefore = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                triggered = runMoves(lookups[i], xs, zs);
+                bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+                allocated = threads.getThreadAllocatedBytes(thread) - bytesBefore;
+            }
+
+            if (expected >= 0 && triggered != expected) {
+                throw new AssertionError("Lookups disagree: " + triggered + " != " + expected + " traps triggered");
+            }
+            expected = triggered;
+
+            System.out.printf("%-10s %d players, %d moves: %.1f ns/move, %.2f bytes allocated/move, %d traps triggered%n",
+                    names[i], PLAYERS, moves, (double) bestNanos / moves, (double) allocated / moves, triggered);
+        }
+    }
+
+    /**
+     * Run all moves through the trap checks of the move listener
+     * @return Number of moves that triggered a trap
+     */
+    private static int runMoves(TrapLookup index, int[] xs, int[] zs) {
+        TrapCooldowns cooldowns = new TrapCooldowns(60_000);
+        long now = System.currentTimeMillis();
+        int y = FLOOR_Y + 1;
+        int triggered = 0;
+
+        for (int i = 0; i < xs.length; i++) {
+            // One tick per round of player moves
+            if (i % PLAYERS == 0) {
+                now += 50;
+            }
+
+            int x = xs[i];
+            int z = zs[i];
+            if (!index.isDungeonChunk("world", x, z)) {
+                continue;
+            }
+
+            boolean onPlate = index.hasPressurePlate("world", x, y, z) == 1
+                    || index.hasPressurePlate("world", x, y - 1, z) == 1;
+            if (onPlate && !cooldowns.checkAndTrigger("world", x, y, z, now)) {
+                triggered++;
+            }
+        }
+
+        sink += triggered;
+        return triggered;
+    }
+
+    /**
+     * The lookups of the move listener
+     */
+    private interface TrapLookup {
+        boolean isDungeonChunk(String worldName, int x, int z);
+
+        int hasPressurePlate(String worldName, int x, int y, int z);
+    }
+
+    /**
+     * The trap index as it was before chunks were keyed by primitive longs:
+     * boxed chunk keys in a map per world
+     */
+    private static class BoxedTrapIndex implements TrapLookup {
+        private static final int Y_OFFSET = 2048;
+
+        private final Map<String, Map<Long, int[]>> worlds = new ConcurrentHashMap<>();
+
+        void addArea(int centerX, int centerZ, int radius, int[] plates) {
+            Map<Long, int[]> chunks = worlds.computeIfAbsent("world", name -> new ConcurrentHashMap<>());
+            for (int chunkX = (centerX - radius) >> 4; chunkX <= (centerX + radius) >> 4; chunkX++) {
+                for (int chunkZ = (centerZ - radius) >> 4; chunkZ <= (centerZ + radius) >> 4; chunkZ++) {
+                    chunks.putIfAbsent(chunkKey(chunkX, chunkZ), new int[0]);
+                }
+            }
+            for (int i = 0; i + 2 < plates.length; i += 3) {
+                long key = chunkKey(plates[i] >> 4, plates[i + 2] >> 4);
+                int packed = pack(plates[i], plates[i + 1], plates[i + 2]);
+                int[] current = chunks.get(key);
+                if (Arrays.binarySearch(current, packed) < 0) {
+                    int[] grown = Arrays.copyOf(current, current.length + 1);
+                    grown[current.length] = packed;
+                    Arrays.sort(grown);
+                    chunks.put(key, grown);
+                }
+            }
+        }
+
+        @Override
+        public boolean isDungeonChunk(String worldName, int x, int z) {
+            return getChunk(worldName, x, z) != null;
+        }
+
+        @Override
+        public int hasPressurePlate(String worldName, int x, int y, int z) {
+            int[] plates = getChunk(worldName, x, z);
+            return plates != null && Arrays.binarySearch(plates, pack(x, y, z)) >= 0 ? 1 : 0;
+        }
+
+        private int[] getChunk(String worldName, int x, int z) {
+            Map<Long, int[]> chunks = worlds.get(worldName);
+            return chunks != null ? chunks.get(chunkKey(x >> 4, z >> 4)) : null;
+        }
+
+        private static int pack(int x, int y, int z) {
+            return ((y + Y_OFFSET) << 8) | ((x & 15) << 4) | (z & 15);
+        }
+
+        private static long chunkKey(int chunkX, int chunkZ) {
+            return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+        }
+    }
+}